@@ -0,0 +1,47 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import java.util.Map;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Carries the logging context of a request over to the thread, that writes its asynchronous response,
+ * like the body of a streamed search or a CSV export.
+ * The statements sent while the body is written are thereby logged with the correlation ID of the request,
+ * and counted against the {@link at.ac.tuwien.sepr.assignment.individual.rest.QueryBudget} of its endpoint.
+ * The tasks still run on the executor, that Spring Boot sets up for asynchronous requests, as {@link QueryExecutor} explains.
+ */
+@Configuration
+public class AsyncRequestConfiguration implements WebMvcConfigurer {
+  private final AsyncTaskExecutor executor;
+
+  public AsyncRequestConfiguration(
+      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+    var withContext = new TaskExecutorAdapter(executor);
+    withContext.setTaskDecorator(task -> {
+      Map<String, String> context = MDC.getCopyOfContextMap();
+      return () -> {
+        // the task may run on a thread, that is reused for other requests afterwards
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        QueryExecutor.setContext(context);
+        try {
+          task.run();
+        } finally {
+          QueryExecutor.setContext(previous);
+        }
+      };
+    });
+    configurer.setTaskExecutor(withContext);
+  }
+}
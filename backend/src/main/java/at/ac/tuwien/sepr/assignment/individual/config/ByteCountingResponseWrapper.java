@@ -0,0 +1,135 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes written as response body, without buffering them.
+ * Text written to the writer is encoded and passed on right away, so it is counted then,
+ * and nothing is left behind, if the response is completed without flushing the writer.
+ */
+class ByteCountingResponseWrapper extends HttpServletResponseWrapper {
+  private final LongAdder bytes = new LongAdder();
+  private ServletOutputStream outputStream;
+  private PrintWriter writer;
+
+  ByteCountingResponseWrapper(HttpServletResponse response) {
+    super(response);
+  }
+
+  long getByteCount() {
+    return bytes.sum();
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream() throws IOException {
+    if (outputStream == null) {
+      outputStream = new CountingOutputStream(super.getOutputStream());
+    }
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter() throws IOException {
+    if (writer == null) {
+      writer = new PrintWriter(new EncodingWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+    }
+    return writer;
+  }
+
+  /**
+   * Encodes every write on its own; unlike an {@link java.io.OutputStreamWriter} it keeps no bytes,
+   * only the first half of a surrogate pair split between two writes.
+   */
+  private static final class EncodingWriter extends Writer {
+    private final OutputStream out;
+    private final Charset charset;
+    private char pendingHighSurrogate;
+
+    EncodingWriter(OutputStream out, Charset charset) {
+      this.out = out;
+      this.charset = charset;
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+      if (len == 0) {
+        return;
+      }
+      var text = new StringBuilder(len + 1);
+      if (pendingHighSurrogate != 0) {
+        text.append(pendingHighSurrogate);
+        pendingHighSurrogate = 0;
+      }
+      text.append(chars, off, len);
+      if (Character.isHighSurrogate(text.charAt(text.length() - 1))) {
+        pendingHighSurrogate = text.charAt(text.length() - 1);
+        text.setLength(text.length() - 1);
+      }
+      out.write(text.toString().getBytes(charset));
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (pendingHighSurrogate != 0) {
+        // a lone surrogate, encoded as the replacement of the charset
+        out.write(String.valueOf(pendingHighSurrogate).getBytes(charset));
+        pendingHighSurrogate = 0;
+      }
+      out.close();
+    }
+  }
+
+  private final class CountingOutputStream extends ServletOutputStream {
+    private final ServletOutputStream delegate;
+
+    CountingOutputStream(ServletOutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      bytes.increment();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+      bytes.add(len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      delegate.setWriteListener(writeListener);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import at.ac.tuwien.sepr.assignment.individual.persistence.DatabaseCheckpointer;
+import java.nio.file.Path;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * The profile {@code inmemory} serves requests from an in-memory database,
+ * which is restored from the last checkpoint on startup and written back by the {@link DatabaseCheckpointer}.
+ */
+@Configuration
+@Profile("inmemory")
+@EnableScheduling
+public class InMemoryDatabaseConfiguration {
+
+  /**
+   * Restore the checkpoint before the data source is handed out to any other bean.
+   * This is done over a connection of its own, before the pool opens any:
+   * every new connection runs the schema script, which would put back tables and indexes while the checkpoint replaces them.
+   */
+  @Bean
+  public static BeanPostProcessor checkpointRestorer(
+      @Value("${app.checkpoint.file}") Path file,
+      @Value("${spring.datasource.url}") String url,
+      @Value("${spring.datasource.username:}") String username,
+      @Value("${spring.datasource.password:}") String password) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && "dataSource".equals(beanName)) {
+          DatabaseCheckpointer.restore(new DriverManagerDataSource(url, username, password), file);
+        }
+        return bean;
+      }
+    };
+  }
+}
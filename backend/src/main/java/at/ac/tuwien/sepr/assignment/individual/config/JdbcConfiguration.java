@@ -0,0 +1,33 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import at.ac.tuwien.sepr.assignment.individual.persistence.InstrumentedJdbcTemplate;
+import at.ac.tuwien.sepr.assignment.individual.persistence.QueryStatistics;
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the {@code JdbcTemplate} of Spring Boot by one, that records every statement in the {@link QueryStatistics}.
+ * The {@code NamedParameterJdbcTemplate} of Spring Boot wraps this one, so the statements of both are recorded.
+ */
+@Configuration
+public class JdbcConfiguration {
+
+  /**
+   * The template, configured by {@code spring.jdbc.template} like the one of Spring Boot.
+   */
+  @Bean
+  public InstrumentedJdbcTemplate jdbcTemplate(
+      DataSource dataSource, QueryStatistics statistics, RequestQueryCounter requestQueries, JdbcProperties properties) {
+    var jdbcTemplate = new InstrumentedJdbcTemplate(dataSource, statistics, requestQueries);
+    var template = properties.getTemplate();
+    jdbcTemplate.setFetchSize(template.getFetchSize());
+    jdbcTemplate.setMaxRows(template.getMaxRows());
+    if (template.getQueryTimeout() != null) {
+      jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+    }
+    return jdbcTemplate;
+  }
+}
@@ -1,6 +1,7 @@
 package at.ac.tuwien.sepr.assignment.individual.config;
 
-
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,8 +15,13 @@ import org.springframework.web.filter.OncePerRequestFilter;
 public class LogConfiguration {
 
   @Bean
-  public FilterRegistrationBean<OncePerRequestFilter> logFilter() {
-    var reg = new FilterRegistrationBean<OncePerRequestFilter>(new LogFilter());
+  public FilterRegistrationBean<OncePerRequestFilter> logFilter(
+      RequestMetrics metrics,
+      RequestQueryCounter queryCounter,
+      @Value("${app.queries.default-budget:10}") int defaultQueryBudget,
+      @Value("${app.logging.success-sample-rate:1.0}") double successSampleRate) {
+    var reg = new FilterRegistrationBean<OncePerRequestFilter>(
+        new LogFilter(metrics, queryCounter, defaultQueryBudget, successSampleRate));
     reg.addUrlPatterns("/*");
     reg.setName("logFilter");
     reg.setOrder(Ordered.LOWEST_PRECEDENCE);
@@ -1,63 +1,163 @@
 package at.ac.tuwien.sepr.assignment.individual.config;
 
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import at.ac.tuwien.sepr.assignment.individual.rest.QueryBudget;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
 
 /**
- * ServletFilter to log every request.
+ * ServletFilter to log every request, and to record it in the {@link RequestMetrics}.
+ * The SQL statements of a request are counted while it is served, and a request sending more than
+ * the {@link QueryBudget} of its endpoint is logged as a warning.
+ * Only a sample of the successful requests is logged, if so configured; failed requests are logged always.
+ * The log lines are built in a buffer kept by each thread, and written by the asynchronous appenders of
+ * {@code logback-spring.xml}, so that a request does not wait for the log file.
  */
 public class LogFilter extends OncePerRequestFilter {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-  private static final  DecimalFormat REQUEST_RUNTIME_FORMAT = new DecimalFormat("#.###", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
-  private static final Long NANOSECONDS_PER_MS = 1000_000L;
+  private static final long NANOSECONDS_PER_MICROSECOND = 1000L;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  private static final int REQUEST_ID_LENGTH = 12;
+  private static final int LINE_CAPACITY = 256;
+  /**
+   * A buffer grown beyond this by a long URL is not kept for the next request.
+   */
+  private static final int MAX_RETAINED_LINE_CAPACITY = 4096;
+  private static final ThreadLocal<StringBuilder> LINE = ThreadLocal.withInitial(() -> new StringBuilder(LINE_CAPACITY));
   private static final List<String> MUTED_PATHS = Arrays.asList(
       "/swagger-ui/",
       "/swagger.yaml"
   );
 
+  private final RequestMetrics metrics;
+  private final RequestQueryCounter queryCounter;
+  private final int defaultQueryBudget;
+  private final double successSampleRate;
+
+  /**
+   * Create the filter.
+   *
+   * @param metrics the metrics to record the requests in
+   * @param queryCounter the counter of the SQL statements of each request
+   * @param defaultQueryBudget the SQL statements a request may send, unless its endpoint sets a {@link QueryBudget}
+   * @param successSampleRate the share of the successful requests, that is logged, between 0 and 1
+   */
+  public LogFilter(RequestMetrics metrics, RequestQueryCounter queryCounter, int defaultQueryBudget, double successSampleRate) {
+    this.metrics = metrics;
+    this.queryCounter = queryCounter;
+    this.defaultQueryBudget = defaultQueryBudget;
+    this.successSampleRate = successSampleRate;
+  }
 
   @Override
   public void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) {
     var runtime = -1L;
     var shouldLog = shouldLog(request);
+    // decided up front, so that a successful request has both of its lines or none
+    var sampled = shouldLog && isSampled();
     if (shouldLog) {
       populateMDC(request);
+    }
+    if (sampled) {
       beforeRequest(request);
     }
+    var requestId = MDC.get("r");
+    var countQueries = requestId != null && queryCounter.begin(requestId);
+    var countingResponse = new ByteCountingResponseWrapper(response);
+    var failed = false;
+    //keep timestamp
+    final var start = System.nanoTime();
     try {
-      //keep timestamp
-      runtime = System.nanoTime();
+      runtime = start;
       //do the work
-      filterChain.doFilter(request, response);
-    } catch (ServletException | IOException e) {
-      throw new FatalException(e);
+      filterChain.doFilter(request, countingResponse);
+    } catch (ServletException | IOException | RuntimeException e) {
+      failed = true;
+      throw e instanceof RuntimeException runtimeException ? runtimeException : new FatalException(e);
     } finally {
       //runtime = end - start
       runtime = System.nanoTime() - runtime;
       if (shouldLog) {
-        afterRequest(request, response, runtime);
+        afterRequest(request, response, runtime, countQueries ? queryCounter.count(requestId) : -1, sampled);
       }
+      recordMetrics(request, countingResponse, start, failed, countQueries ? requestId : null);
       MDC.clear();
     }
   }
 
+  /**
+   * Record the request, when it is complete: right away, or when the response of an asynchronous request was written.
+   */
+  private void recordMetrics(HttpServletRequest request, ByteCountingResponseWrapper response, long start, boolean failed,
+                             String countedRequestId) {
+    if (!failed && request.isAsyncStarted()) {
+      request.getAsyncContext().addListener(new AsyncListener() {
+        @Override
+        public void onComplete(AsyncEvent event) {
+          record(request, response, response.getStatus(), start);
+          checkQueryBudget(request, countedRequestId);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+      });
+    } else {
+      record(request, response, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), start);
+      checkQueryBudget(request, countedRequestId);
+    }
+  }
+
+  private void record(HttpServletRequest request, ByteCountingResponseWrapper response, int status, long start) {
+    var route = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    metrics.record(request.getMethod(), route, status, System.nanoTime() - start, response.getByteCount());
+  }
+
+  private void checkQueryBudget(HttpServletRequest request, String countedRequestId) {
+    if (countedRequestId == null) {
+      return;
+    }
+    long queries = queryCounter.end(countedRequestId);
+    int budget = defaultQueryBudget;
+    if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler
+        && handler.hasMethodAnnotation(QueryBudget.class)) {
+      budget = handler.getMethodAnnotation(QueryBudget.class).value();
+    }
+    if (queries > budget) {
+      LOG.warn("Request r={} to {} {} sent {} SQL statements, its budget is {}",
+          countedRequestId, request.getMethod(), request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), queries, budget);
+    }
+  }
+
   private void beforeRequest(HttpServletRequest request) {
+    if (!LOG.isInfoEnabled()) {
+      return;
+    }
     var b = getUrlString(">>> ", request);
     var agent = request.getHeader("User-Agent");
     if (agent != null) {
@@ -66,22 +166,61 @@ public class LogFilter extends OncePerRequestFilter {
     logWithRightCategory(200, b.toString());
   }
 
-  private void afterRequest(HttpServletRequest request, HttpServletResponse response, Long runtime) {
+  private void afterRequest(HttpServletRequest request, HttpServletResponse response, long runtime, long queries, boolean sampled) {
+    var logStatus = response != null ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+    // successful requests are logged at INFO, the others at WARN or ERROR
+    var success = logStatus / 100 == 2 || logStatus / 100 == 3;
+    if (success && (!sampled || !LOG.isInfoEnabled())) {
+      return;
+    }
     var b = getUrlString("<<< ", request);
-    var logStatus = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
     if (response != null) {
-      logStatus = response.getStatus();
-      MDC.put("status", "" + logStatus);
       b.append(" status=").append(logStatus);
     } else {
       b.append(" NO RESPONSE");
     }
-    var time = REQUEST_RUNTIME_FORMAT.format(runtime / NANOSECONDS_PER_MS);
-    MDC.put("duration", time);
-    b.append(" time=").append(time).append("ms");
+    b.append(" time=");
+    appendMillis(b, runtime);
+    b.append("ms");
+    if (queries >= 0) {
+      b.append(" queries=").append(queries);
+    }
     logWithRightCategory(logStatus, b.toString());
   }
 
+  private boolean isSampled() {
+    return successSampleRate >= 1 || (successSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < successSampleRate);
+  }
+
+  /**
+   * Append a duration in milliseconds with up to three decimals, without trailing zeros, e.g. {@code 12.05}.
+   *
+   * @param b the line to append to
+   * @param nanos the duration in nanoseconds
+   */
+  static void appendMillis(StringBuilder b, long nanos) {
+    long micros = nanos / NANOSECONDS_PER_MICROSECOND;
+    b.append(micros / 1000);
+    int fraction = (int) (micros % 1000);
+    if (fraction == 0) {
+      return;
+    }
+    b.append('.');
+    if (fraction < 100) {
+      b.append('0');
+    }
+    if (fraction < 10) {
+      b.append('0');
+    }
+    while (fraction % 10 == 0) {
+      fraction /= 10;
+    }
+    b.append(fraction);
+  }
+
+  /**
+   * Only the entries used by the log pattern are set; {@link QueryExecutor} copies them to every query of the request.
+   */
   private void populateMDC(HttpServletRequest request) {
     var forwarded = request.getHeader("X-Forwarded-For");
     //ip of client
@@ -90,26 +229,37 @@ public class LogFilter extends OncePerRequestFilter {
     if (MDC.get("r") == null) {
       MDC.put("r", generateRequestId());
     }
-    MDC.put("http_request_method", request.getMethod());
-    MDC.put("http_request_url", request.getRequestURI());
-    MDC.put("http_request_query", request.getQueryString());
-    MDC.put("http_request_ua", request.getHeader("User-Agent"));
   }
 
-  private String generateRequestId() {
-    var uuid = UUID.randomUUID().toString();
-    uuid = uuid.substring(uuid.lastIndexOf("-") + 1);
-    return uuid;
+  /**
+   * Generate a correlation ID of 12 hexadecimal digits, like the last group of a UUID.
+   * It only has to tell the requests in a log apart, so it is taken from the random generator of the thread,
+   * instead of the shared, cryptographically strong one of {@link java.util.UUID#randomUUID()}.
+   */
+  static String generateRequestId() {
+    long bits = ThreadLocalRandom.current().nextLong();
+    char[] id = new char[REQUEST_ID_LENGTH];
+    for (int i = REQUEST_ID_LENGTH - 1; i >= 0; i--) {
+      id[i] = HEX_DIGITS[(int) (bits & 0xF)];
+      bits >>>= 4;
+    }
+    return new String(id);
   }
 
   private StringBuilder getUrlString(String prefix, HttpServletRequest request) {
-    var b = new StringBuilder(prefix)
+    var b = LINE.get();
+    if (b.capacity() > MAX_RETAINED_LINE_CAPACITY) {
+      b = new StringBuilder(LINE_CAPACITY);
+      LINE.set(b);
+    }
+    b.setLength(0);
+    b.append(prefix)
         .append(request.getMethod())
-        .append(" ")
+        .append(' ')
         .append(request.getRequestURI());
     var qs = request.getQueryString();
     if (qs != null) {
-      b.append("?").append(qs);
+      b.append('?').append(qs);
     }
     return b;
   }
@@ -0,0 +1,122 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs independent queries of one request concurrently on a bounded pool, so that the request waits for the slowest
+ * instead of the sum of them.
+ * The logging context of the request is carried over to the pool threads.
+ * When the pool and its queue are full, the query runs on the requesting thread, as it would without the pool.
+ * This is not an {@link java.util.concurrent.Executor} bean on purpose: one of those would replace the executor,
+ * that Spring Boot sets up for asynchronous requests.
+ */
+@Component
+public class QueryExecutor implements DisposableBean {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final ThreadPoolExecutor pool;
+  private final Duration timeout;
+
+  /**
+   * A query, that may fail with a {@link NotFoundException}.
+   */
+  @FunctionalInterface
+  public interface Query<T> {
+    T get() throws NotFoundException;
+  }
+
+  public QueryExecutor(@Value("${app.queries.pool-size:8}") int poolSize,
+                       @Value("${app.queries.queue-capacity:64}") int queueCapacity,
+                       @Value("${app.queries.timeout:PT5S}") Duration timeout) {
+    this.pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("query-"), new ThreadPoolExecutor.CallerRunsPolicy());
+    this.pool.allowCoreThreadTimeOut(true);
+    this.timeout = timeout;
+  }
+
+  /**
+   * Start a query on the pool.
+   * The returned future fails with a {@link TimeoutException}, if the query takes longer than the configured timeout;
+   * the query itself is not interrupted, it only no longer holds up the request.
+   *
+   * @param query the query to run
+   * @return the future result of the query
+   */
+  public <T> CompletableFuture<T> submit(Query<T> query) {
+    Map<String, String> context = MDC.getCopyOfContextMap();
+    return CompletableFuture.supplyAsync(() -> {
+      // the query may also run on the requesting thread, whose context must be left as it was
+      Map<String, String> previous = MDC.getCopyOfContextMap();
+      setContext(context);
+      try {
+        return query.get();
+      } catch (NotFoundException e) {
+        throw new CompletionException(e);
+      } finally {
+        setContext(previous);
+      }
+    }, pool).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Wait for the result of a query started with {@link #submit(Query)}, and throw what the query threw.
+   *
+   * @param future the future result of the query
+   * @return the result of the query
+   * @throws NotFoundException if the query did not find what it looked for
+   * @throws FatalException if the query timed out, or failed unexpectedly
+   */
+  public static <T> T await(CompletableFuture<T> future) throws NotFoundException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof NotFoundException notFound) {
+        throw notFound;
+      }
+      if (cause instanceof TimeoutException) {
+        throw new FatalException("Query did not complete in time", cause);
+      }
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new FatalException(cause);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    LOG.trace("destroy()");
+    pool.shutdown();
+  }
+
+  /**
+   * Set the logging context of the current thread.
+   *
+   * @param context the context to set, {@code null} to clear it
+   */
+  static void setContext(Map<String, String> context) {
+    if (context == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(context);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Sends read-only transactions to a read replica, if {@code app.datasource.replica.url} is set.
+ * Without it, the single data source of {@code spring.datasource} is used for everything.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+  @Bean
+  public DataSource primaryDataSource(DataSourceProperties properties) {
+    return properties.initializeDataSourceBuilder().build();
+  }
+
+  @Bean
+  public DataSource replicaDataSource(
+      @Value("${app.datasource.replica.url}") String url,
+      @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+      @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password) {
+    return DataSourceBuilder.create().url(url).username(username).password(password).build();
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("replicaDataSource") DataSource replica,
+      @Value("${app.datasource.replica.max-lag:1s}") Duration maxLag,
+      @Value("${app.datasource.replica.retry-after:30s}") Duration retryAfter) {
+    return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, replica, maxLag, retryAfter));
+  }
+}
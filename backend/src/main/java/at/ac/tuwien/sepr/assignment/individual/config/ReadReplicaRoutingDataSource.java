@@ -0,0 +1,124 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Data source sending the connections of read-only transactions to a replica, and all others to the primary.
+ * A method is marked as read-only by {@code @Transactional(readOnly = true)};
+ * outside of such a transaction the primary is used, as it is unknown whether the connection is written with.
+ *
+ * <p>The replica may lag behind the primary. To not miss recent writes, reads go to the primary
+ * until {@code maxLag} has passed since the primary was last used for anything else than reading.
+ * That use is recorded when such a connection is opened, committed, and closed,
+ * so that a long transaction counts from its commit, not from its start.
+ * If no connection to the replica can be opened, reads go to the primary for {@code retryAfter}.
+ *
+ * <p>The routing is decided when the connection is opened, so this data source has to be wrapped
+ * in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which opens the connection only after the transaction has been marked as read-only.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractDataSource {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final DataSource primary;
+  private final DataSource replica;
+  private final long maxLagNanos;
+  private final long retryAfterNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicLong lastPrimaryUse;
+  private final AtomicLong replicaDownUntil;
+
+  public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, Duration retryAfter) {
+    this(primary, replica, maxLag, retryAfter, System::nanoTime);
+  }
+
+  ReadReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, Duration retryAfter, LongSupplier nanoClock) {
+    this.primary = primary;
+    this.replica = replica;
+    this.maxLagNanos = maxLag.toNanos();
+    this.retryAfterNanos = retryAfter.toNanos();
+    this.nanoClock = nanoClock;
+    long now = nanoClock.getAsLong();
+    // nothing was written yet, and the replica is assumed to be up
+    this.lastPrimaryUse = new AtomicLong(now - maxLagNanos - 1);
+    this.replicaDownUntil = new AtomicLong(now);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (useReplica()) {
+      try {
+        return replica.getConnection();
+      } catch (SQLException e) {
+        replicaFailed(e);
+      }
+    }
+    return primaryConnection(primary.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    if (useReplica()) {
+      try {
+        return replica.getConnection(username, password);
+      } catch (SQLException e) {
+        replicaFailed(e);
+      }
+    }
+    return primaryConnection(primary.getConnection(username, password));
+  }
+
+  private boolean useReplica() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return false;
+    }
+    long now = nanoClock.getAsLong();
+    return now - lastPrimaryUse.get() > maxLagNanos
+        && now - replicaDownUntil.get() >= 0;
+  }
+
+  private Connection primaryConnection(Connection connection) {
+    if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return connection;
+    }
+    lastPrimaryUse.set(nanoClock.getAsLong());
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "equals":
+              return proxy == args[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            default:
+              break;
+          }
+          try {
+            return method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+          } finally {
+            if (method.getName().equals("commit") || method.getName().equals("close")) {
+              lastPrimaryUse.set(nanoClock.getAsLong());
+            }
+          }
+        });
+  }
+
+  private void replicaFailed(SQLException e) {
+    LOG.warn("Could not connect to the read replica, reading from the primary for the next {} ms: {}",
+        retryAfterNanos / 1_000_000, e.getMessage());
+    replicaDownUntil.set(nanoClock.getAsLong() + retryAfterNanos);
+  }
+}
@@ -0,0 +1,115 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import at.ac.tuwien.sepr.assignment.individual.type.LatencyHistogram;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency, status classes and response sizes of the served requests, per HTTP method and route template.
+ * Recording a request only increments counters, no lock is taken; a route is registered once, on its first request.
+ */
+@Component
+public class RequestMetrics {
+  /**
+   * The route of requests, that matched no handler, so that unknown URIs do not add a route each.
+   */
+  public static final String UNMATCHED_ROUTE = "UNMATCHED";
+
+  private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+  private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+  private final Map<Route, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+  private record Route(String method, String template) {
+  }
+
+  private static final class RouteMetrics {
+    final LatencyHistogram latency = new LatencyHistogram();
+    final LongAdder[] statusClasses = new LongAdder[STATUS_CLASSES.length];
+    final LongAdder responseBytes = new LongAdder();
+
+    RouteMetrics() {
+      for (int i = 0; i < statusClasses.length; i++) {
+        statusClasses[i] = new LongAdder();
+      }
+    }
+  }
+
+  /**
+   * Record a served request.
+   *
+   * @param method the HTTP method
+   * @param template the route template, like {@code /horses/{id}}, or {@code null} if no handler matched
+   * @param status the status of the response
+   * @param nanos the time taken to serve the request
+   * @param responseBytes the size of the response body
+   */
+  public void record(String method, String template, int status, long nanos, long responseBytes) {
+    var route = new Route(method, template != null ? template : UNMATCHED_ROUTE);
+    var metrics = routes.get(route);
+    if (metrics == null) {
+      metrics = routes.computeIfAbsent(route, r -> new RouteMetrics());
+    }
+    metrics.latency.record(nanos / 1000);
+    int statusClass = status / 100 - 1;
+    if (statusClass >= 0 && statusClass < STATUS_CLASSES.length) {
+      metrics.statusClasses[statusClass].increment();
+    }
+    metrics.responseBytes.add(responseBytes);
+  }
+
+  /**
+   * Write the metrics in the text format of Prometheus.
+   *
+   * @return the metrics, one sample per line
+   */
+  public String toPrometheusText() {
+    var latency = new StringBuilder()
+        .append("# HELP http_server_requests_seconds Time taken to serve requests.\n")
+        .append("# TYPE http_server_requests_seconds summary\n");
+    var statuses = new StringBuilder()
+        .append("# HELP http_server_requests_total Served requests by status class.\n")
+        .append("# TYPE http_server_requests_total counter\n");
+    var sizes = new StringBuilder()
+        .append("# HELP http_server_response_size_bytes_total Bytes written as response body.\n")
+        .append("# TYPE http_server_response_size_bytes_total counter\n");
+    var max = new StringBuilder()
+        .append("# HELP http_server_requests_seconds_max Longest time taken to serve a request.\n")
+        .append("# TYPE http_server_requests_seconds_max gauge\n");
+
+    routes.entrySet().stream()
+        .sorted(Map.Entry.comparingByKey(Comparator.comparing(Route::template).thenComparing(Route::method)))
+        .forEach(entry -> {
+          String labels = "method=\"" + escape(entry.getKey().method()) + "\",route=\"" + escape(entry.getKey().template()) + "\"";
+          var metrics = entry.getValue();
+          for (double quantile : QUANTILES) {
+            latency.append("http_server_requests_seconds{").append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                .append(seconds(metrics.latency.valueAtQuantile(quantile))).append('\n');
+          }
+          latency.append("http_server_requests_seconds_count{").append(labels).append("} ").append(metrics.latency.count()).append('\n');
+          latency.append("http_server_requests_seconds_sum{").append(labels).append("} ").append(seconds(metrics.latency.sum())).append('\n');
+          max.append("http_server_requests_seconds_max{").append(labels).append("} ").append(seconds(metrics.latency.max())).append('\n');
+          for (int i = 0; i < STATUS_CLASSES.length; i++) {
+            long count = metrics.statusClasses[i].sum();
+            if (count > 0) {
+              statuses.append("http_server_requests_total{").append(labels).append(",status=\"").append(STATUS_CLASSES[i]).append("\"} ")
+                  .append(count).append('\n');
+            }
+          }
+          sizes.append("http_server_response_size_bytes_total{").append(labels).append("} ").append(metrics.responseBytes.sum()).append('\n');
+        });
+    return latency.append(max).append(statuses).append(sizes).toString();
+  }
+
+  private static String seconds(long micros) {
+    return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+  }
+
+  private static String escape(String labelValue) {
+    return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,22 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.time.Instant;
+
+/**
+ * Counters of the breed cache.
+ * A lookup is a hit, if it was answered from memory, and a miss, if the database had to be asked.
+ *
+ * @param size the number of cached breeds, 0 if the cache is not loaded
+ * @param hits the number of lookups answered from memory
+ * @param misses the number of lookups passed on to the database
+ * @param loads the number of times the breed table was loaded
+ * @param loadedAt when the cached breeds were loaded, or {@code null} if the cache is not loaded
+ */
+public record BreedCacheStatisticsDto(
+    int size,
+    long hits,
+    long misses,
+    long loads,
+    Instant loadedAt
+) {
+}
@@ -0,0 +1,28 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * State of the checkpoints of the in-memory database, and what a crash would lose right now.
+ *
+ * @param file the checkpoint file
+ * @param checkpointAt when the data of the last checkpoint was read, or {@code null} if none was written yet
+ * @param checkpointBytes the size of the last checkpoint file
+ * @param checkpointMillis how long writing the last checkpoint took
+ * @param secondsAtRisk the seconds since {@code checkpointAt}; every write in this time is lost on a crash;
+ *                      -1 if there is no checkpoint yet, and everything would be lost
+ * @param rowDeltaSinceCheckpoint the number of rows per table, that were added (positive) or removed (negative)
+ *                                since the last checkpoint; updated rows are not visible here
+ * @param lastError the message of the last failed checkpoint, {@code null} if the last one succeeded
+ */
+public record CheckpointStatusDto(
+    String file,
+    Instant checkpointAt,
+    long checkpointBytes,
+    long checkpointMillis,
+    long secondsAtRisk,
+    Map<String, Long> rowDeltaSinceCheckpoint,
+    String lastError
+) {
+}
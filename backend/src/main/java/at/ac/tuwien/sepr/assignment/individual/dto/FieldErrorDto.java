@@ -0,0 +1,13 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+/**
+ * A failed validation of one field of the data sent to the backend.
+ *
+ * @param field the name of the field, as sent, e.g. {@code dateOfBirth}
+ * @param message what is wrong with the field
+ */
+public record FieldErrorDto(
+    String field,
+    String message
+) {
+}
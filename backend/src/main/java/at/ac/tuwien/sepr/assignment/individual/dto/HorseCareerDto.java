@@ -0,0 +1,14 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * The tournaments of a horse, latest first, and the counters over all of them.
+ */
+public record HorseCareerDto(
+    long horseId,
+    String name,
+    HorseCareerStatsDto stats,
+    List<HorseCareerEntryDto> tournaments
+) {
+}
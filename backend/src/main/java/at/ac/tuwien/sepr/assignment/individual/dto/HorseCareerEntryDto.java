@@ -0,0 +1,16 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A tournament entered by a horse, with the standing of the horse in it.
+ */
+public record HorseCareerEntryDto(
+    long tournamentId,
+    String name,
+    LocalDate startDate,
+    LocalDate endDate,
+    Long entryNumber,
+    Long roundReached
+) {
+}
@@ -0,0 +1,22 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+/**
+ * Counters over all tournaments a horse entered.
+ *
+ * @param tournaments the number of tournaments entered
+ * @param semiFinals the number of tournaments, in which the horse reached at least the semi-finals
+ * @param finals the number of tournaments, in which the horse reached the final
+ * @param wins the number of tournaments won
+ * @param bestRound the best round reached, 0 if no round is known yet
+ * @param points the points earned in all tournaments
+ */
+public record HorseCareerStatsDto(
+    long tournaments,
+    long semiFinals,
+    long finals,
+    long wins,
+    long bestRound,
+    long points
+) {
+  public static final HorseCareerStatsDto NONE = new HorseCareerStatsDto(0, 0, 0, 0, 0, 0);
+}
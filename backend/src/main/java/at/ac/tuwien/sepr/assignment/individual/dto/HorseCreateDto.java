@@ -16,5 +16,5 @@ public record HorseCreateDto(
         float height,
         float weight,
         BreedDto breed
-) {
+) implements HorseData {
 }
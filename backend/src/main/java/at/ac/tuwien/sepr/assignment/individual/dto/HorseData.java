@@ -0,0 +1,22 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.time.LocalDate;
+
+/**
+ * The properties a horse sent to the backend has, whether it is created or updated.
+ * Lets the same validation rules check both.
+ */
+public interface HorseData {
+  String name();
+
+  Sex sex();
+
+  LocalDate dateOfBirth();
+
+  float height();
+
+  float weight();
+
+  BreedDto breed();
+}
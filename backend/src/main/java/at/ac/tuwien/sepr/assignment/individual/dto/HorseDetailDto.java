@@ -19,7 +19,7 @@ public record HorseDetailDto(
     float height,
     float weight,
     BreedDto breed
-) {
+) implements HorseData {
 
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -0,0 +1,19 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * Report of a horse import, with the outcome of every row in the order of the upload.
+ *
+ * @param received the number of rows read from the upload
+ * @param created the number of horses created
+ * @param rejected the number of rows, for which no horse was created
+ * @param rows the outcome of each row
+ */
+public record HorseImportResultDto(
+    int received,
+    int created,
+    int rejected,
+    List<HorseImportRowDto> rows
+) {
+}
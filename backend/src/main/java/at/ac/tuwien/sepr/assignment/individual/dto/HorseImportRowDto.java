@@ -0,0 +1,19 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of one row of a horse import.
+ *
+ * @param row the number of the row in the upload, starting at 1 for the first horse
+ * @param id the ID of the created horse, or {@code null} if the row was rejected
+ * @param errors why the row was rejected, empty if the horse was created
+ * @param fieldErrors those of the {@code errors}, that concern a single field of the horse, or column of a CSV upload, with its name
+ */
+public record HorseImportRowDto(
+    int row,
+    Long id,
+    List<String> errors,
+    List<FieldErrorDto> fieldErrors
+) {
+}
@@ -7,6 +7,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 /**
  * DTO to bundle the query parameters used in searching horses.
  * Each field can be null, in which case this field is not filtered by.
+ * The result is sorted by ID; {@code cursor} is the opaque token of the page to continue after.
  */
 public record HorseSearchDto(
     String name,
@@ -16,6 +17,17 @@ public record HorseSearchDto(
     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     LocalDate bornLatest,
     String breed,
-    Integer limit
+    Integer limit,
+    String cursor
 ) {
+
+  /**
+   * Returns these search parameters with the given limit.
+   *
+   * @param newLimit the number of horses to get at most
+   * @return the search parameters
+   */
+  public HorseSearchDto withLimit(int newLimit) {
+    return new HorseSearchDto(name, sex, bornEarliest, bornLatest, breed, newLimit, cursor);
+  }
 }
@@ -0,0 +1,12 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+/**
+ * A horse on the leaderboard. Horses with the same points share their rank.
+ */
+public record LeaderboardEntryDto(
+    long rank,
+    long horseId,
+    String name,
+    long points
+) {
+}
@@ -0,0 +1,35 @@
+package at.ac.tuwien.sepr.assignment.individual.dto;
+
+import java.time.Instant;
+
+/**
+ * Aggregated executions of one SQL statement since startup.
+ * Times are the execution of the statement, reading its result included;
+ * the wait for a connection from the data source is reported on its own.
+ *
+ * @param sql the statement, as sent to the database
+ * @param executions the number of times the statement was executed
+ * @param totalMillis the time spent in all executions together
+ * @param meanMillis the mean time of an execution
+ * @param p99Millis the 99th percentile of the time of an execution
+ * @param maxMillis the longest execution
+ * @param rows the rows read or changed by all executions together
+ * @param connectionWaitMillis the time spent waiting for a connection, before the statement could be sent
+ * @param slowExecutions the number of executions, that took longer than the slow-query threshold
+ * @param slowPlan the plan of the last slow execution that was explained, {@code null} if there is none
+ * @param slowPlanAt when {@code slowPlan} was captured, {@code null} if there is none
+ */
+public record QueryStatisticsDto(
+    String sql,
+    long executions,
+    double totalMillis,
+    double meanMillis,
+    double p99Millis,
+    double maxMillis,
+    long rows,
+    double connectionWaitMillis,
+    long slowExecutions,
+    String slowPlan,
+    Instant slowPlanAt
+) {
+}
@@ -1,6 +1,5 @@
 package at.ac.tuwien.sepr.assignment.individual.dto;
 
-import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
@@ -8,12 +7,25 @@ import java.time.LocalDate;
 /**
  * DTO to bundle the query parameters used in searching tournaments.
  * Each field can be null, in which case this field is not filtered by.
+ * The result is sorted by start date, newest first; {@code cursor} is the opaque token of the page to continue after.
  */
 
 public record TournamentSearchDto(String name,
                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
                                   LocalDate startDate,
                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
-                                  LocalDate endDate
+                                  LocalDate endDate,
+                                  Integer limit,
+                                  String cursor
 ) {
+
+    /**
+     * Returns these search parameters with the given limit.
+     *
+     * @param newLimit the number of tournaments to get at most
+     * @return the search parameters
+     */
+    public TournamentSearchDto withLimit(int newLimit) {
+        return new TournamentSearchDto(name, startDate, endDate, newLimit, cursor);
+    }
 }
@@ -13,6 +13,7 @@ public class Tournament {
     private String name;
     private LocalDate startDate;
     private LocalDate endDate;
+    private long version;
 
     private Long[] participantIds;
 
@@ -54,6 +55,15 @@ public class Tournament {
         return this;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public Tournament setVersion(long version) {
+        this.version = version;
+        return this;
+    }
+
     public Long[] getParticipantIds() {
         return participantIds;
     }
@@ -69,6 +79,7 @@ public class Tournament {
                 ", name='" + name + '\'' +
                 ", startDate=" + startDate +
                 ", endDate=" + endDate +
+                ", version=" + version +
                 ", participantIds=" + Arrays.toString(participantIds) +
                 '}';
     }
@@ -0,0 +1,11 @@
+package at.ac.tuwien.sepr.assignment.individual.exception;
+
+/**
+ * Exception that signals, that a resource was changed since the version
+ * the client based its write on, so the write was not done.
+ */
+public class StaleVersionException extends Exception {
+  public StaleVersionException(String message) {
+    super(message);
+  }
+}
@@ -5,6 +5,7 @@ import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDt
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
+import at.ac.tuwien.sepr.assignment.individual.type.TournamentBracket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -64,7 +65,8 @@ public class TournamentMapper {
     }
 
     /**
-     * Convert a TournamentDetailDto to a {@link TournamentStandingsDto}
+     * Convert a TournamentDetailDto to a {@link TournamentStandingsDto}.
+     * The tree of the standings is built from the entry numbers and reached rounds of the participants.
      *
      * @param tournament to convert
      * @return the converted {@link TournamentStandingsDto}
@@ -79,7 +81,7 @@ public class TournamentMapper {
                 tournament.id(),
                 tournament.name(),
                 tournament.participants(),
-                null
+                TournamentBracket.of(tournament.participants()).toTree()
         );
     }
 
@@ -3,9 +3,12 @@ package at.ac.tuwien.sepr.assignment.individual.persistence;
 import jakarta.annotation.PostConstruct;
 import java.lang.invoke.MethodHandles;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
@@ -14,18 +17,37 @@ import org.springframework.stereotype.Component;
 /**
  * This component is only created, if the profile {@code datagen} is active
  * You can activate this profile by adding {@code -Dspring.profiles.active=datagen} to your maven command line
+ * Besides the test data, it adds as many synthetic horses and tournaments as set in {@code app.datagen},
+ * e.g. {@code java -jar backend.jar --spring.profiles.active=datagen --app.datagen.horses=10000000 --app.datagen.tournaments=1000000}
  */
 @Component
 @Profile("datagen")
 public class DataGeneratorBean {
   private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private final DataSource dataSource;
+  private final ApplicationEventPublisher eventPublisher;
+  private final long horses;
+  private final long tournaments;
+  private final int threads;
+  private final int batchSize;
+  private final long seed;
 
   /**
    * Executed once when the component is instantiated. Inserts some dummy data.
    */
-  public DataGeneratorBean(DataSource dataSource) {
+  public DataGeneratorBean(DataSource dataSource, ApplicationEventPublisher eventPublisher,
+                           @Value("${app.datagen.horses:0}") long horses,
+                           @Value("${app.datagen.tournaments:0}") long tournaments,
+                           @Value("${app.datagen.threads:4}") int threads,
+                           @Value("${app.datagen.batch-size:1000}") int batchSize,
+                           @Value("${app.datagen.seed:1}") long seed) {
     this.dataSource = dataSource;
+    this.eventPublisher = eventPublisher;
+    this.horses = horses;
+    this.tournaments = tournaments;
+    this.threads = threads;
+    this.batchSize = batchSize;
+    this.seed = seed;
   }
 
   @PostConstruct
@@ -33,8 +55,12 @@ public class DataGeneratorBean {
     LOGGER.info("Generating data…");
     try (var connection = dataSource.getConnection()) {
       ScriptUtils.executeSqlScript(connection, new ClassPathResource("sql/insertData.sql"));
-      LOGGER.info("Finished generating data without error.");
     }
+    if (horses > 0 || tournaments > 0) {
+      new SyntheticDataGenerator(dataSource, horses, tournaments, threads, batchSize, seed, LocalDate.now()).generate();
+    }
+    LOGGER.info("Finished generating data without error.");
+    eventPublisher.publishEvent(new DataResetEvent());
   }
 
   public void clearData() throws SQLException {
@@ -43,6 +69,7 @@ public class DataGeneratorBean {
       ScriptUtils.executeSqlScript(connection, new ClassPathResource("sql/deleteData.sql"));
       LOGGER.info("Finished clearing data without error");
     }
+    eventPublisher.publishEvent(new DataResetEvent());
   }
 
     public static interface TournamentDao {
@@ -0,0 +1,8 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+/**
+ * Published after the content of the persistent data store was replaced past the DAOs, for example by a SQL script.
+ * Everything kept in memory about the stored data has to be discarded when it is received.
+ */
+public record DataResetEvent() {
+}
@@ -0,0 +1,192 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.CheckpointStatusDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the in-memory database of the profile {@code inmemory} to a file, periodically and on shutdown,
+ * and reads it back on startup.
+ * A checkpoint is an H2 {@code SCRIPT} of all tables, read in one transaction, so it is consistent;
+ * it is written next to the previous one and only replaces it when complete.
+ * Everything written after the last checkpoint is lost when the process dies.
+ */
+@Component
+@Profile("inmemory")
+public class DatabaseCheckpointer {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String SQL_TABLES =
+      "SELECT table_name FROM information_schema.tables WHERE table_schema = 'PUBLIC' AND table_type = 'BASE TABLE'";
+
+  private final DataSource dataSource;
+  private final Path file;
+  private volatile Checkpoint last;
+  private volatile String lastError;
+
+  /**
+   * What was written by a checkpoint.
+   */
+  private record Checkpoint(Instant at, long bytes, long millis, Map<String, Long> rowCounts) {
+  }
+
+  public DatabaseCheckpointer(DataSource dataSource, @Value("${app.checkpoint.file}") Path file) {
+    this.dataSource = dataSource;
+    this.file = file;
+  }
+
+  /**
+   * Load the last checkpoint into a fresh database, replacing the tables created by the schema script.
+   * Does nothing, if no checkpoint was written yet.
+   *
+   * @param dataSource the database to load the checkpoint into
+   * @param file the checkpoint file
+   */
+  public static void restore(DataSource dataSource, Path file) {
+    LOG.trace("restore({})", file);
+    if (!Files.exists(file)) {
+      LOG.info("No checkpoint at {}, starting with an empty database", file.toAbsolutePath());
+      return;
+    }
+    long started = System.nanoTime();
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.execute("RUNSCRIPT FROM " + quote(file) + " COMPRESSION GZIP");
+    } catch (SQLException e) {
+      throw new FatalException("Could not restore the database from the checkpoint " + file.toAbsolutePath(), e);
+    }
+    LOG.info("Restored the database from the checkpoint {} in {} ms",
+        file.toAbsolutePath(), Duration.ofNanos(System.nanoTime() - started).toMillis());
+  }
+
+  /**
+   * Take the restored checkpoint as the last one; what it contains is safe already.
+   */
+  @PostConstruct
+  public void rememberRestoredCheckpoint() throws IOException {
+    LOG.trace("rememberRestoredCheckpoint()");
+    if (!Files.exists(file)) {
+      return;
+    }
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      last = new Checkpoint(Instant.now(), Files.size(file), 0, rowCounts(statement));
+    } catch (SQLException e) {
+      throw new FatalException("Could not count the rows of the database", e);
+    }
+  }
+
+  /**
+   * Write a checkpoint of the whole database.
+   */
+  @Scheduled(fixedDelayString = "${app.checkpoint.interval}", initialDelayString = "${app.checkpoint.interval}")
+  public synchronized void checkpoint() {
+    LOG.trace("checkpoint()");
+    long started = System.nanoTime();
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      Instant at = Instant.now();
+      Map<String, Long> rowCounts;
+      try (Statement statement = connection.createStatement()) {
+        rowCounts = rowCounts(statement);
+        statement.execute("SCRIPT DROP TO " + quote(temporary) + " COMPRESSION GZIP");
+        connection.commit();
+      } finally {
+        connection.setAutoCommit(true);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      var checkpoint = new Checkpoint(at, Files.size(file), Duration.ofNanos(System.nanoTime() - started).toMillis(), rowCounts);
+      last = checkpoint;
+      lastError = null;
+      LOG.debug("Wrote checkpoint of {} bytes in {} ms", checkpoint.bytes(), checkpoint.millis());
+    } catch (SQLException | IOException e) {
+      lastError = e.getMessage();
+      LOG.error("Could not write the checkpoint {}, the data since {} is not saved",
+          file.toAbsolutePath(), last == null ? "the start" : last.at(), e);
+    }
+  }
+
+  /**
+   * Write a last checkpoint, before the database goes away with the process.
+   */
+  @PreDestroy
+  public void checkpointOnShutdown() {
+    LOG.trace("checkpointOnShutdown()");
+    checkpoint();
+  }
+
+  /**
+   * Report the last checkpoint, and how much would be lost by a crash right now.
+   *
+   * @return the checkpoint status
+   */
+  public CheckpointStatusDto status() {
+    LOG.trace("status()");
+    var checkpoint = last;
+    Map<String, Long> delta = new LinkedHashMap<>();
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      Map<String, Long> before = checkpoint == null ? Map.of() : checkpoint.rowCounts();
+      rowCounts(statement).forEach((table, count) -> delta.put(table, count - before.getOrDefault(table, 0L)));
+    } catch (SQLException e) {
+      throw new FatalException("Could not count the rows of the database", e);
+    }
+    if (checkpoint == null) {
+      return new CheckpointStatusDto(file.toAbsolutePath().toString(), null, 0, 0, -1, delta, lastError);
+    }
+    return new CheckpointStatusDto(
+        file.toAbsolutePath().toString(),
+        checkpoint.at(),
+        checkpoint.bytes(),
+        checkpoint.millis(),
+        Duration.between(checkpoint.at(), Instant.now()).toSeconds(),
+        delta,
+        lastError);
+  }
+
+  private static Map<String, Long> rowCounts(Statement statement) throws SQLException {
+    List<String> tables = new ArrayList<>();
+    try (ResultSet rs = statement.executeQuery(SQL_TABLES)) {
+      while (rs.next()) {
+        tables.add(rs.getString(1));
+      }
+    }
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (String table : tables) {
+      try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM \"" + table + "\"")) {
+        rs.next();
+        counts.put(table.toLowerCase(Locale.ROOT), rs.getLong(1));
+      }
+    }
+    return counts;
+  }
+
+  private static String quote(Path path) {
+    return "'" + path.toAbsolutePath().toString().replace("'", "''") + "'";
+  }
+}
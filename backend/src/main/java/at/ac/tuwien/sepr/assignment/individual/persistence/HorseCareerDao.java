@@ -0,0 +1,37 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerStatsDto;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Data Access Object for the tournaments a horse entered.
+ * The counters over them are stored per horse, so that they are read with a single row no matter how long the career is.
+ */
+public interface HorseCareerDao {
+
+  /**
+   * Count the tournaments of the given horses from their standings again.
+   * Must be called in the transaction, that writes the standings, after the points of the horses were refreshed.
+   *
+   * @param horseIds the IDs of the horses whose standings changed
+   */
+  void refresh(Collection<Long> horseIds);
+
+  /**
+   * Get the counters over all tournaments of a horse.
+   *
+   * @param horseId the ID of the horse
+   * @return the counters, all 0 for a horse, that did not enter any tournament
+   */
+  HorseCareerStatsDto getStats(long horseId);
+
+  /**
+   * Get all tournaments a horse entered, with its standing in each, in a single query.
+   *
+   * @param horseId the ID of the horse
+   * @return the tournaments, latest first
+   */
+  List<HorseCareerEntryDto> getEntries(long horseId);
+}
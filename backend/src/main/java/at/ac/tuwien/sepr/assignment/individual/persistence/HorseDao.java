@@ -7,6 +7,9 @@ import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for horses.
@@ -18,12 +21,24 @@ public interface HorseDao {
    * Get the horses that match the given search parameters.
    * Parameters that are {@code null} are ignored.
    * The name is considered a match, if the given parameter is a substring of the field in horse.
+   * The horses are sorted by ID and start after the given cursor, if there is one.
    *
    * @param searchParameters the parameters to use in searching.
    * @return the horses where all given parameters match.
    */
   Collection<Horse> search(HorseSearchDto searchParameters);
 
+  /**
+   * Get the horses that match the given search parameters, like {@link #search(HorseSearchDto)},
+   * but read them from the persistent data store in chunks while the returned stream is consumed,
+   * instead of loading the whole result at once.
+   * Nothing is read before the stream is consumed, and no connection is held between chunks.
+   *
+   * @param searchParameters the parameters to use in searching.
+   * @return the horses where all given parameters match.
+   */
+  Stream<Horse> streamSearch(HorseSearchDto searchParameters);
+
 
   /**
    * Update the horse with the ID given in {@code horse}
@@ -45,6 +60,15 @@ public interface HorseDao {
    */
   Horse getById(long id) throws NotFoundException;
 
+  /**
+   * Get the version of a horse, which is raised on every change of it.
+   *
+   * @param id the ID of the horse
+   * @return the version of the horse
+   * @throws NotFoundException if the Horse with the given ID does not exist in the persistent data store
+   */
+  long getVersion(long id) throws NotFoundException;
+
   /**
    * Create a horse in the persistent data store.
    *
@@ -53,6 +77,17 @@ public interface HorseDao {
    */
   Horse create(HorseCreateDto horseCreateDto) throws NotFoundException;
 
+  /**
+   * Create many horses in the persistent data store, sending them in batches of {@code batchSize} rows.
+   * The horses are expected to be valid, and the breeds to exist.
+   * All horses are created with the connection of the current transaction, if there is one.
+   *
+   * @param horses the horses to create
+   * @param batchSize the number of rows sent to the data store at once
+   * @return the IDs of the created horses, in the order of {@code horses}
+   */
+  List<Long> createAll(List<HorseCreateDto> horses, int batchSize);
+
   /**
    * Delete a horse in the persistent data store.
    *
@@ -62,9 +97,19 @@ public interface HorseDao {
   void delete(Long id) throws NotFoundException;
 
   /**
-   * Get all the IDs of horses that exist in the persistent data store.
+   * Find out which of the given horse IDs exist in the persistent data store.
+   * Only the given IDs are looked up, the effort does not depend on the number of stored horses.
+   *
+   * @param ids the IDs to check
+   * @return the IDs out of {@code ids}, for which a horse exists
+   */
+  Set<Long> findExistingIds(Collection<Long> ids);
+
+  /**
+   * Get the names of the horses with the given IDs in a single query.
    *
-   * @return list of horse IDs
+   * @param ids the IDs of the horses
+   * @return the names by ID, IDs without a horse are not contained
    */
-  List<Long> getAllHorseIDs();
+  Map<Long, String> findNamesByIds(Collection<Long> ids);
 }
@@ -0,0 +1,39 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Data Access Object for the points the horses earned in tournaments.
+ * The points are stored per horse and tournament, derived from the round reached:
+ * 5 for the winner, 3 for the other finalist, 1 for the losers of the semi-finals and none before.
+ */
+public interface HorsePointsDao {
+
+  /**
+   * Derive the points of the given participants of a tournament from their current standings again.
+   * Must be called in the transaction, that writes the standings.
+   *
+   * @param tournamentId the ID of the tournament
+   * @param horseIds the IDs of the participants whose standing changed
+   */
+  void refresh(long tournamentId, Collection<Long> horseIds);
+
+  /**
+   * Get the sum of the points of every horse, that earned points in tournaments ending on or after the given date.
+   *
+   * @param from the first day of the window
+   * @return the points by horse ID, horses without points are not contained
+   */
+  Map<Long, Long> getPointsSince(LocalDate from);
+
+  /**
+   * Get the sum of the points of the given horses in tournaments ending on or after the given date.
+   *
+   * @param from the first day of the window
+   * @param horseIds the IDs of the horses
+   * @return the points by horse ID, horses without points are not contained
+   */
+  Map<Long, Long> getPointsSince(LocalDate from, Collection<Long> horseIds);
+}
@@ -0,0 +1,314 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterDisposer;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.support.KeyHolder;
+
+/**
+ * A {@link JdbcTemplate}, that records every statement it executes in the {@link QueryStatistics}:
+ * the wait for a connection, the time of the execution, reading the result included, and the rows read or changed.
+ * Each statement is also counted for the request it was sent for, by the {@link RequestQueryCounter}.
+ * The plan of a slow statement is captured with H2's {@code EXPLAIN ANALYZE}, with the same parameters,
+ * right after the statement and in the same transaction; statements that change data are only explained, not run again.
+ *
+ * <p>The template hands the connection to the {@link PreparedStatementCreator} of a statement,
+ * so wrapping the creator is enough to see the statement, its parameters and its result.
+ * Statements without parameters are sent as prepared statements too, so that they pass the same way.
+ * A {@link ConnectionCallback} gets a connection, that records every statement the callback prepares on it.
+ * Streamed queries ({@code queryForStream}) are counted for the request when they are sent,
+ * and recorded when the stream is closed, as their result is read after the template returned.
+ */
+public class InstrumentedJdbcTemplate extends JdbcTemplate {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final QueryStatistics statistics;
+  private final RequestQueryCounter requestQueries;
+
+  public InstrumentedJdbcTemplate(DataSource dataSource, QueryStatistics statistics, RequestQueryCounter requestQueries) {
+    super(dataSource);
+    this.statistics = statistics;
+    this.requestQueries = requestQueries;
+  }
+
+  @Override
+  public <T> T query(String sql, ResultSetExtractor<T> rse) throws DataAccessException {
+    return query(sql, (PreparedStatementSetter) null, rse);
+  }
+
+  @Override
+  public int update(String sql) throws DataAccessException {
+    return update(sql, (PreparedStatementSetter) null);
+  }
+
+  @Override
+  public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse) throws DataAccessException {
+    return instrumented(new Execution(psc), execution -> super.query(execution, pss, rse));
+  }
+
+  @Override
+  protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss) throws DataAccessException {
+    return instrumented(new Execution(psc), execution -> super.update(execution, pss));
+  }
+
+  @Override
+  public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) throws DataAccessException {
+    return instrumented(new Execution(psc), execution -> super.update(execution, generatedKeyHolder));
+  }
+
+  @Override
+  public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action) throws DataAccessException {
+    return instrumented(new Execution(psc), execution -> super.execute(execution, action));
+  }
+
+  @Override
+  public <T> T execute(String sql, PreparedStatementCallback<T> action) throws DataAccessException {
+    return instrumented(new Execution(sql, con -> con.prepareStatement(sql)), execution -> super.execute(execution, action));
+  }
+
+  @Override
+  public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
+    return super.execute((ConnectionCallback<T>) con -> {
+      List<Execution> executions = new ArrayList<>();
+      Connection instrumented = proxy(Connection.class, con, (method, args, result) -> {
+        if (result instanceof PreparedStatement ps && method.getName().equals("prepareStatement")) {
+          var execution = new Execution((String) args[0], null);
+          executions.add(execution);
+          requestQueries.increment();
+          return execution.prepared(ps);
+        }
+        return result;
+      });
+      boolean succeeded = false;
+      try {
+        T result = action.doInConnection(instrumented);
+        succeeded = true;
+        return result;
+      } finally {
+        for (Execution execution : executions) {
+          record(execution, succeeded ? slow -> slow.explain(con) : null);
+        }
+      }
+    });
+  }
+
+  @Override
+  public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+    return streamed(new Execution(sql, con -> con.prepareStatement(sql)), execution -> super.queryForStream(execution, null, rowMapper));
+  }
+
+  @Override
+  public <T> Stream<T> queryForStream(PreparedStatementCreator psc, PreparedStatementSetter pss, RowMapper<T> rowMapper)
+      throws DataAccessException {
+    return streamed(new Execution(psc), execution -> super.queryForStream(execution, pss, rowMapper));
+  }
+
+  private <T> T instrumented(Execution execution, Function<Execution, T> statement) {
+    boolean succeeded = false;
+    try {
+      T result = statement.apply(execution);
+      succeeded = true;
+      return result;
+    } finally {
+      requestQueries.increment();
+      record(execution, succeeded ? this::explain : null);
+    }
+  }
+
+  /**
+   * Send a streamed query; it is counted for the request of this thread right away, but recorded once the stream is closed,
+   * which may be on another thread.
+   */
+  private <T> Stream<T> streamed(Execution execution, Function<Execution, Stream<T>> query) {
+    requestQueries.increment();
+    Stream<T> rows;
+    try {
+      rows = query.apply(execution);
+    } catch (RuntimeException e) {
+      record(execution, null);
+      throw e;
+    }
+    return rows.onClose(() -> record(execution, this::explain));
+  }
+
+  /**
+   * Record a finished statement, and capture its plan if it was slow and {@code explain} is given.
+   */
+  private void record(Execution execution, Function<Execution, String> explain) {
+    execution.finished();
+    if (explain != null && statistics.isSlow(execution.executionNanos()) && statistics.claimPlanCapture(execution.sql)) {
+      execution.plan = explain.apply(execution);
+    }
+    statistics.record(execution.sql, execution.connectionWaitNanos(), execution.executionNanos(), execution.rows, execution.plan);
+  }
+
+  private String explain(Execution execution) {
+    // not through the instrumented callback, the EXPLAIN itself is not recorded
+    return super.execute((ConnectionCallback<String>) execution::explain);
+  }
+
+  /**
+   * One execution of a statement: creates it, counts the rows of its result, and remembers its parameters.
+   * Implements {@link SqlProvider} and {@link ParameterDisposer} like the creator it wraps, as the template looks for them.
+   */
+  private static final class Execution implements PreparedStatementCreator, SqlProvider, ParameterDisposer {
+    private final PreparedStatementCreator creator;
+    private final String sql;
+    private final long start = System.nanoTime();
+    private final Map<Integer, Object> parameters = new TreeMap<>();
+    private long connectedAt = -1;
+    private long finishedAt = -1;
+    private long rows;
+    private String plan;
+
+    Execution(PreparedStatementCreator creator) {
+      this(creator instanceof SqlProvider provider && provider.getSql() != null ? provider.getSql() : creator.toString(), creator);
+    }
+
+    Execution(String sql, PreparedStatementCreator creator) {
+      this.sql = sql;
+      this.creator = creator;
+    }
+
+    @Override
+    public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+      if (connectedAt < 0) {
+        connectedAt = System.nanoTime();
+      }
+      return creator.createPreparedStatement(proxy(Connection.class, con, (method, args, result) ->
+          result instanceof PreparedStatement ps && method.getName().equals("prepareStatement") ? instrument(ps) : result));
+    }
+
+    @Override
+    public String getSql() {
+      return sql;
+    }
+
+    @Override
+    public void cleanupParameters() {
+      if (creator instanceof ParameterDisposer disposer) {
+        disposer.cleanupParameters();
+      }
+    }
+
+    /**
+     * Instrument a statement, that was prepared on the connection of a {@link ConnectionCallback} rather than by this creator.
+     */
+    PreparedStatement prepared(PreparedStatement ps) {
+      connectedAt = System.nanoTime();
+      return instrument(ps);
+    }
+
+    void finished() {
+      if (finishedAt < 0) {
+        finishedAt = System.nanoTime();
+      }
+    }
+
+    long connectionWaitNanos() {
+      return (connectedAt < 0 ? finishedAt : connectedAt) - start;
+    }
+
+    long executionNanos() {
+      return connectedAt < 0 ? 0 : finishedAt - connectedAt;
+    }
+
+    private PreparedStatement instrument(PreparedStatement ps) {
+      return proxy(PreparedStatement.class, ps, (method, args, result) -> {
+        String name = method.getName();
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+          parameters.put(index, name.equals("setNull") ? null : args[1]);
+        } else if (name.equals("clearParameters")) {
+          parameters.clear();
+        } else if (name.equals("close")) {
+          finished();
+        } else if (result instanceof ResultSet resultSet && name.equals("executeQuery")) {
+          return proxy(ResultSet.class, resultSet, (rsMethod, rsArgs, rsResult) -> {
+            if (rsMethod.getName().equals("next") && Boolean.TRUE.equals(rsResult)) {
+              rows++;
+            }
+            return rsResult;
+          });
+        } else if (result instanceof Number count && (name.equals("executeUpdate") || name.equals("executeLargeUpdate"))) {
+          rows += count.longValue();
+        } else if (result instanceof int[] counts && name.equals("executeBatch")) {
+          for (int count : counts) {
+            rows += Math.max(count, 0);
+          }
+        }
+        return result;
+      });
+    }
+
+    /**
+     * Explain the statement with the parameters of its last execution.
+     * Queries are run once more by {@code EXPLAIN ANALYZE}, to report the rows actually scanned.
+     */
+    String explain(Connection con) {
+      String keyword = sql.stripLeading().toUpperCase(Locale.ROOT);
+      boolean query = keyword.startsWith("SELECT") || keyword.startsWith("WITH");
+      try (var explain = con.prepareStatement((query ? "EXPLAIN ANALYZE " : "EXPLAIN ") + sql)) {
+        for (var parameter : parameters.entrySet()) {
+          explain.setObject(parameter.getKey(), parameter.getValue());
+        }
+        try (var rs = explain.executeQuery()) {
+          var result = new StringBuilder();
+          while (rs.next()) {
+            result.append(rs.getString(1)).append('\n');
+          }
+          return result.toString().strip();
+        }
+      } catch (SQLException e) {
+        LOG.debug("Could not explain {}", sql, e);
+        return null;
+      }
+    }
+  }
+
+  /**
+   * What a proxy does, after the call was passed on to the proxied object.
+   */
+  @FunctionalInterface
+  private interface AfterCall {
+    Object apply(Method method, Object[] args, Object result) throws SQLException;
+  }
+
+  private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      Object result;
+      try {
+        result = method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+      return afterCall.apply(method, args, result);
+    };
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+}
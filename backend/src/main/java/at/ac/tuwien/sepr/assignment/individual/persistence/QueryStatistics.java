@@ -0,0 +1,164 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.QueryStatisticsDto;
+import at.ac.tuwien.sepr.assignment.individual.type.LatencyHistogram;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Execution time, rows and connection wait of the SQL statements sent by the {@link InstrumentedJdbcTemplate}, per statement.
+ * Executions slower than {@code app.queries.slow-threshold} are written to the logger {@code slow-queries}.
+ * For those, the plan is captured too, but for each statement at most once per {@code app.queries.slow-plan-interval},
+ * as explaining a query runs it once more.
+ */
+@Component
+public class QueryStatistics {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final Logger SLOW_LOG = LoggerFactory.getLogger("slow-queries");
+  /**
+   * A list of parameters, as {@code NamedParameterJdbcTemplate} expands a collection, e.g. {@code IN (?, ?, ?)}.
+   */
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)", Pattern.CASE_INSENSITIVE);
+
+  private final long slowThresholdNanos;
+  private final long planIntervalNanos;
+  private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+
+  private static final class Statement {
+    final LatencyHistogram executionTime = new LatencyHistogram();
+    final LongAdder rows = new LongAdder();
+    final LongAdder connectionWaitNanos = new LongAdder();
+    final LongAdder slowExecutions = new LongAdder();
+    final AtomicLong nextPlanAt;
+    volatile String slowPlan;
+    volatile Instant slowPlanAt;
+
+    Statement(long now) {
+      nextPlanAt = new AtomicLong(now);
+    }
+  }
+
+  public QueryStatistics(
+      @Value("${app.queries.slow-threshold:200ms}") Duration slowThreshold,
+      @Value("${app.queries.slow-plan-interval:PT1M}") Duration planInterval) {
+    this.slowThresholdNanos = slowThreshold.toNanos();
+    this.planIntervalNanos = planInterval.toNanos();
+  }
+
+  /**
+   * Whether an execution of this length counts as slow.
+   *
+   * @param executionNanos the time the execution took, so far
+   * @return {@code true} if it is slow
+   */
+  public boolean isSlow(long executionNanos) {
+    return executionNanos >= slowThresholdNanos;
+  }
+
+  /**
+   * Claim the capture of the plan of a slow execution.
+   * Of all slow executions of a statement within {@code app.queries.slow-plan-interval}, only the first one succeeds.
+   *
+   * @param sql the statement
+   * @return {@code true} if the caller is to capture the plan
+   */
+  public boolean claimPlanCapture(String sql) {
+    long now = System.nanoTime();
+    var nextPlanAt = statement(sql).nextPlanAt;
+    long next = nextPlanAt.get();
+    return now - next >= 0 && nextPlanAt.compareAndSet(next, now + planIntervalNanos);
+  }
+
+  /**
+   * Record an execution of a statement.
+   *
+   * @param sql the statement
+   * @param connectionWaitNanos the time it took to get a connection
+   * @param executionNanos the time the execution took, without the wait for the connection
+   * @param rows the rows read or changed
+   * @param plan the captured plan, if the execution was slow and its plan was captured, else {@code null}
+   */
+  public void record(String sql, long connectionWaitNanos, long executionNanos, long rows, String plan) {
+    var statement = statement(sql);
+    statement.executionTime.record(executionNanos / 1000);
+    statement.connectionWaitNanos.add(connectionWaitNanos);
+    statement.rows.add(rows);
+    if (isSlow(executionNanos)) {
+      statement.slowExecutions.increment();
+      if (plan != null) {
+        statement.slowPlan = plan;
+        statement.slowPlanAt = Instant.now();
+        SLOW_LOG.warn("{} ms, {} rows, {} ms waiting for a connection: {}\n{}",
+            executionNanos / 1_000_000, rows, connectionWaitNanos / 1_000_000, sql, plan);
+      } else {
+        SLOW_LOG.warn("{} ms, {} rows, {} ms waiting for a connection: {}",
+            executionNanos / 1_000_000, rows, connectionWaitNanos / 1_000_000, sql);
+      }
+    }
+  }
+
+  /**
+   * The aggregates of every statement executed since startup.
+   *
+   * @return the statements, the one with the most time spent first
+   */
+  public List<QueryStatisticsDto> snapshot() {
+    LOG.trace("snapshot()");
+    return statements.entrySet().stream()
+        .map(entry -> toDto(entry.getKey(), entry.getValue()))
+        .sorted(Comparator.comparingDouble(QueryStatisticsDto::totalMillis).reversed())
+        .toList();
+  }
+
+  private Statement statement(String sql) {
+    var key = key(sql);
+    var statement = statements.get(key);
+    return statement != null ? statement : statements.computeIfAbsent(key, s -> new Statement(System.nanoTime()));
+  }
+
+  /**
+   * The statement, under which an execution is aggregated.
+   * Lists of parameters are collapsed to one, so that the lookups of any number of IDs share one entry,
+   * instead of each length of the list getting a histogram of its own.
+   *
+   * @param sql the statement as executed
+   * @return the statement with every {@code IN (?, ?, ...)} replaced by {@code IN (?)}
+   */
+  static String key(String sql) {
+    // most statements have no list, and are not matched against the pattern
+    return sql.indexOf(", ?") < 0 && sql.indexOf(",?") < 0 ? sql : PARAMETER_LIST.matcher(sql).replaceAll("IN (?)");
+  }
+
+  private static QueryStatisticsDto toDto(String sql, Statement statement) {
+    var time = statement.executionTime;
+    long executions = time.count();
+    return new QueryStatisticsDto(
+        sql,
+        executions,
+        millis(time.sum()),
+        executions == 0 ? 0 : millis(time.sum()) / executions,
+        millis(time.valueAtQuantile(0.99)),
+        millis(time.max()),
+        statement.rows.sum(),
+        statement.connectionWaitNanos.sum() / 1_000_000.0,
+        statement.slowExecutions.sum(),
+        statement.slowPlan,
+        statement.slowPlanAt);
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
@@ -0,0 +1,63 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements sent by the {@link InstrumentedJdbcTemplate} on behalf of a request.
+ * A request is identified by its correlation ID, the MDC entry {@code r}, which is also present
+ * on the threads of the {@code QueryExecutor}, so statements run concurrently for a request are counted too.
+ * Statements of threads without a correlation ID, or with one that was not begun, are not counted.
+ */
+@Component
+public class RequestQueryCounter {
+  private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+
+  /**
+   * Start counting the statements of a request.
+   *
+   * @param requestId the correlation ID of the request
+   * @return {@code true} if counting started, {@code false} if the statements of this ID are counted already
+   */
+  public boolean begin(String requestId) {
+    return requests.putIfAbsent(requestId, new LongAdder()) == null;
+  }
+
+  /**
+   * The statements of a request, so far.
+   *
+   * @param requestId the correlation ID of the request
+   * @return the number of statements, 0 if the request is not counted
+   */
+  public long count(String requestId) {
+    var count = requests.get(requestId);
+    return count != null ? count.sum() : 0;
+  }
+
+  /**
+   * Stop counting the statements of a request.
+   *
+   * @param requestId the correlation ID of the request
+   * @return the number of statements, 0 if the request was not counted
+   */
+  public long end(String requestId) {
+    var count = requests.remove(requestId);
+    return count != null ? count.sum() : 0;
+  }
+
+  /**
+   * Count a statement for the request of the current thread, if there is one.
+   */
+  void increment() {
+    var requestId = MDC.get("r");
+    if (requestId != null) {
+      var count = requests.get(requestId);
+      if (count != null) {
+        count.increment();
+      }
+    }
+  }
+}
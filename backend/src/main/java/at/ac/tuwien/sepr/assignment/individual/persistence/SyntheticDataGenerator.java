@@ -0,0 +1,437 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepr.assignment.individual.type.TournamentBracket;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Fills the database with a large, reproducible set of horses and finished tournaments, for load and capacity tests.
+ * Every horse and every tournament is drawn from a random generator seeded with its own index,
+ * so the data only depends on the seed, not on the number of threads or the order in which they run,
+ * and the birth date of any horse can be drawn again when it is picked for a tournament.
+ * The rows are written with JDBC batches on several connections at once, each chunk in a transaction of its own.
+ * The generated rows get IDs above the highest one already in use, and the identity columns are moved past them.
+ */
+public class SyntheticDataGenerator {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * Rows of one chunk, in batches: a chunk is written and committed on one connection.
+   */
+  private static final int BATCHES_PER_CHUNK = 10;
+  /**
+   * Tournaments go back this many years; more of them are recent.
+   */
+  private static final int HISTORY_YEARS = 10;
+  /**
+   * A horse enters tournaments from this age on.
+   */
+  private static final int MIN_AGE_YEARS = 2;
+  /**
+   * Draws of a participant, before one is taken, that is too young or already entered.
+   */
+  private static final int MAX_PARTICIPANT_DRAWS = 64;
+  /**
+   * The horse, that enters more tournaments, wins a match with this probability.
+   */
+  private static final double FAVOURITE_WINS = 0.65;
+  private static final double NO_BREED = 0.03;
+  private static final long TOURNAMENT_SALT = 0x5DEECE66DL;
+
+  private static final String[] NAMES = {
+    "Bella", "Luna", "Max", "Charlie", "Daisy", "Star", "Lucky", "Sunny", "Shadow", "Storm",
+    "Flicka", "Spirit", "Wendy", "Hugo", "Sophie", "Blitz", "Amigo", "Ginger", "Jasper", "Rocky",
+    "Cleo", "Apollo", "Fanny", "Diamond", "Maestro", "Nelly", "Oskar", "Pepper", "Rosie", "Sultan",
+    "Tango", "Ursula", "Valentino", "Whisky", "Xenia", "Yankee", "Zorro", "Amadeus", "Balou", "Cassandra",
+    "Dakota", "Esprit", "Fiona", "Gandalf", "Harlekin", "Isabella", "Jolly", "Kasimir", "Lady", "Mistral"
+  };
+  /**
+   * Appended to the first name without a space, as the validation of the horses only allows letters in a name.
+   */
+  private static final String[] SECOND_NAMES = {
+    "Star", "Dancer", "Queen", "King", "Boy", "Girl", "Thunder", "Dream", "Jewel", "Spirit",
+    "Heart", "Wind", "Valley", "Vega", "Hof", "Junior"
+  };
+  private static final String[] PLACES = {
+    "Vienna", "Graz", "Linz", "Salzburg", "Innsbruck", "Klagenfurt", "Villach", "Wels", "St. Pölten", "Dornbirn",
+    "Baden", "Lipica", "Aachen", "Piber", "Stadl-Paura", "Magna Racino"
+  };
+  private static final String[] KINDS = {
+    "Cup", "Derby", "Open", "Classic", "Grand Prix", "Championship", "Trophy", "Invitational"
+  };
+
+  private static final String SQL_INSERT_HORSE = "INSERT INTO horse (id, name, sex, date_of_birth, height, weight, breed_id)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+  private static final String SQL_INSERT_TOURNAMENT = "INSERT INTO tournament (id, name, start_date, end_date) VALUES (?, ?, ?, ?)";
+  private static final String SQL_INSERT_STANDING = "INSERT INTO standings (tournament_id, horse_id, entry_number, round_reached)"
+      + " VALUES (?, ?, ?, ?)";
+  /**
+   * Copies the points the database derived for the standings of a range of tournaments, ordered by horse like their index.
+   */
+  private static final String SQL_INSERT_POINTS = "INSERT INTO horse_points (horse_id, tournament_id, tournament_date, points)"
+      + " SELECT * FROM horse_points_of_standings WHERE tournament_id BETWEEN ? AND ? ORDER BY horse_id, tournament_id";
+  /**
+   * The counters of the view {@code horse_career_of_standings}; the generated horses only enter generated tournaments.
+   */
+  private static final String SQL_INSERT_CAREERS = "INSERT INTO horse_career"
+      + " (horse_id, tournaments, semi_finals, finals, wins, best_round, points)"
+      + " SELECT * FROM horse_career_of_standings WHERE horse_id BETWEEN ? AND ?";
+
+  private final DataSource dataSource;
+  private final long horses;
+  private final long tournaments;
+  private final int threads;
+  private final int batchSize;
+  private final long seed;
+  private final LocalDate today;
+
+  /**
+   * Prepare the generation of a data set.
+   *
+   * @param dataSource the database to fill, with the schema of {@code createSchema.sql}
+   * @param horses the number of horses to add
+   * @param tournaments the number of tournaments to add, each with a complete bracket of eight of the added horses
+   * @param threads the number of connections written to at once
+   * @param batchSize the rows sent to the database with one JDBC batch
+   * @param seed the seed of the random data; the same seed gives the same data
+   * @param today the last possible end date of a tournament, birth dates and tournament dates are counted back from it
+   */
+  public SyntheticDataGenerator(DataSource dataSource, long horses, long tournaments, int threads, int batchSize,
+                                long seed, LocalDate today) {
+    if (horses < 0 || tournaments < 0 || threads < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("Cannot generate %d horses and %d tournaments on %d threads in batches of %d"
+          .formatted(horses, tournaments, threads, batchSize));
+    }
+    if (tournaments > 0 && horses < TournamentBracket.ENTRIES) {
+      throw new IllegalArgumentException("A tournament needs %d horses, only %d are generated"
+          .formatted(TournamentBracket.ENTRIES, horses));
+    }
+    this.dataSource = dataSource;
+    this.horses = horses;
+    this.tournaments = tournaments;
+    this.threads = threads;
+    this.batchSize = batchSize;
+    this.seed = seed;
+    this.today = today;
+  }
+
+  /**
+   * Add the horses, the tournaments with their standings and points, and the career counters of the horses.
+   *
+   * @throws SQLException if writing to the database fails; chunks committed until then are kept
+   */
+  public void generate() throws SQLException {
+    LOG.trace("generate()");
+    LOG.info("Generating {} horses and {} tournaments on {} threads…", horses, tournaments, threads);
+    long firstHorseId = nextId("horse");
+    long firstTournamentId = nextId("tournament");
+    long[] breedIds = loadBreedIds();
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("datagen-"));
+    try {
+      runChunks(pool, "horses", horses, (conn, from, to) -> insertHorses(conn, from, to, firstHorseId, breedIds));
+      runChunks(pool, "tournaments", tournaments, (conn, from, to) -> insertTournaments(conn, from, to, firstTournamentId, firstHorseId));
+      runChunks(pool, "careers", horses, (conn, from, to) -> insertCareers(conn, firstHorseId + from, firstHorseId + to - 1));
+    } finally {
+      pool.shutdownNow();
+    }
+    if (horses > 0) {
+      restartIdentity("horse", firstHorseId + horses);
+    }
+    if (tournaments > 0) {
+      restartIdentity("tournament", firstTournamentId + tournaments);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Chunk {
+    void write(Connection connection, long from, long to) throws SQLException;
+  }
+
+  private void runChunks(ExecutorService pool, String what, long count, Chunk chunk) throws SQLException {
+    long started = System.nanoTime();
+    long chunkSize = (long) batchSize * BATCHES_PER_CHUNK;
+    List<Future<?>> futures = new ArrayList<>();
+    for (long from = 0; from < count; from += chunkSize) {
+      long chunkFrom = from;
+      long chunkTo = Math.min(from + chunkSize, count);
+      futures.add(pool.submit(() -> {
+        try (Connection connection = dataSource.getConnection()) {
+          connection.setAutoCommit(false);
+          try {
+            chunk.write(connection, chunkFrom, chunkTo);
+            connection.commit();
+          } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+          }
+        }
+        LOG.debug("Wrote {} {} to {}", what, chunkFrom, chunkTo);
+        return null;
+      }));
+    }
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      futures.forEach(future -> future.cancel(true));
+      throw new FatalException("Interrupted while generating " + what, e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof SQLException sqlException) {
+        throw sqlException;
+      }
+      throw new FatalException("Could not generate " + what, e.getCause());
+    }
+    long millis = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+    LOG.info("Generated {} {} in {} ms, {} per second", count, what, millis, count * 1000 / millis);
+  }
+
+  private void insertHorses(Connection connection, long from, long to, long firstId, long[] breedIds) throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_HORSE)) {
+      for (long index = from; index < to; index++) {
+        SplittableRandom random = horseRandom(index);
+        LocalDate dateOfBirth = dateOfBirth(random);
+        boolean female = random.nextBoolean();
+        double height = Math.min(Math.max(1.55 + 0.15 * random.nextGaussian(), 0.8), 2.0);
+        // below the 1000 kg the validation allows, which the tallest and heaviest built horses would exceed
+        double weight = Math.min(130 * height * height * height * (0.85 + 0.3 * random.nextDouble()), 990);
+        ps.setLong(1, firstId + index);
+        ps.setString(2, name(random));
+        ps.setString(3, female ? "FEMALE" : "MALE");
+        ps.setDate(4, Date.valueOf(dateOfBirth));
+        ps.setBigDecimal(5, BigDecimal.valueOf(Math.round(height * 100), 2));
+        ps.setBigDecimal(6, BigDecimal.valueOf(Math.round(weight * 100), 2));
+        if (breedIds.length == 0 || random.nextDouble() < NO_BREED) {
+          ps.setNull(7, Types.BIGINT);
+        } else {
+          ps.setLong(7, breedIds[skewed(random, breedIds.length, 2)]);
+        }
+        ps.addBatch();
+        if ((index - from + 1) % batchSize == 0) {
+          ps.executeBatch();
+        }
+      }
+      ps.executeBatch();
+    }
+  }
+
+  /**
+   * A horse entered into a generated tournament.
+   */
+  private record Entry(long horseId, long tournamentId, int entryNumber, int roundReached) {
+  }
+
+  /**
+   * Write the tournaments of the chunk first, then their standings and points ordered by horse:
+   * both are indexed by horse, and inserting them in the random order of the draw touches a different index page each time.
+   */
+  private void insertTournaments(Connection connection, long from, long to, long firstId, long firstHorseId) throws SQLException {
+    List<Entry> entries = new ArrayList<>((int) (to - from) * TournamentBracket.ENTRIES);
+    try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_TOURNAMENT)) {
+      for (long index = from; index < to; index++) {
+        SplittableRandom random = new SplittableRandom(seed ^ TOURNAMENT_SALT ^ (index * 0x9E3779B97F4A7C15L));
+        LocalDate endDate = today.minusDays((long) (HISTORY_YEARS * 365 * Math.pow(random.nextDouble(), 2)));
+        LocalDate startDate = endDate.minusDays(1 + random.nextInt(3));
+        long id = firstId + index;
+        ps.setLong(1, id);
+        ps.setString(2, "%s %s %d".formatted(PLACES[skewed(random, PLACES.length, 2)],
+            KINDS[random.nextInt(KINDS.length)], startDate.getYear()));
+        ps.setDate(3, Date.valueOf(startDate));
+        ps.setDate(4, Date.valueOf(endDate));
+        ps.addBatch();
+        if ((index - from + 1) % batchSize == 0) {
+          ps.executeBatch();
+        }
+
+        long[] participants = participants(random, startDate);
+        int[] rounds = rounds(random, participants);
+        for (int entry = 0; entry < participants.length; entry++) {
+          entries.add(new Entry(firstHorseId + participants[entry], id, entry + 1, rounds[entry]));
+        }
+      }
+      ps.executeBatch();
+    }
+
+    entries.sort(Comparator.comparingLong(Entry::horseId).thenComparingLong(Entry::tournamentId));
+    try (PreparedStatement standingPs = connection.prepareStatement(SQL_INSERT_STANDING)) {
+      for (int i = 0; i < entries.size(); i++) {
+        Entry entry = entries.get(i);
+        standingPs.setLong(1, entry.tournamentId());
+        standingPs.setLong(2, entry.horseId());
+        standingPs.setInt(3, entry.entryNumber());
+        standingPs.setInt(4, entry.roundReached());
+        standingPs.addBatch();
+        if ((i + 1) % batchSize == 0) {
+          standingPs.executeBatch();
+        }
+      }
+      standingPs.executeBatch();
+    }
+    try (PreparedStatement pointsPs = connection.prepareStatement(SQL_INSERT_POINTS)) {
+      pointsPs.setLong(1, firstId + from);
+      pointsPs.setLong(2, firstId + to - 1);
+      pointsPs.executeUpdate();
+    }
+  }
+
+  private static void insertCareers(Connection connection, long fromId, long toId) throws SQLException {
+    try (PreparedStatement ps = connection.prepareStatement(SQL_INSERT_CAREERS)) {
+      ps.setLong(1, fromId);
+      ps.setLong(2, toId);
+      ps.executeUpdate();
+    }
+  }
+
+  /**
+   * Draw eight different horses old enough for the tournament, the active ones more often.
+   * A horse is taken regardless of its age, if no fitting one is drawn after a number of tries.
+   *
+   * @return the indexes of the horses, in the order of their entry numbers
+   */
+  private long[] participants(SplittableRandom random, LocalDate startDate) {
+    LocalDate bornBefore = startDate.minusYears(MIN_AGE_YEARS);
+    long[] entries = new long[TournamentBracket.ENTRIES];
+    for (int entry = 0; entry < entries.length; entry++) {
+      for (int draw = 0; ; draw++) {
+        long candidate = skewed(random, horses, 3);
+        if (contains(entries, entry, candidate)) {
+          continue;
+        }
+        entries[entry] = candidate;
+        if (draw >= MAX_PARTICIPANT_DRAWS || dateOfBirth(horseRandom(candidate)).isBefore(bornBefore)) {
+          break;
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static boolean contains(long[] values, int length, long value) {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Play the bracket: entries 1 and 2 meet in the first round, their winner meets the winner of 3 and 4, and so on.
+   * The horse with the lower index, the one entering more tournaments, is the favourite of each match.
+   *
+   * @return the round reached by each entry
+   */
+  private static int[] rounds(SplittableRandom random, long[] entries) {
+    int[] rounds = new int[entries.length];
+    int[] alive = new int[entries.length];
+    for (int i = 0; i < alive.length; i++) {
+      alive[i] = i;
+      rounds[i] = 1;
+    }
+    for (int matches = entries.length / 2; matches >= 1; matches /= 2) {
+      for (int match = 0; match < matches; match++) {
+        int first = alive[2 * match];
+        int second = alive[2 * match + 1];
+        int favourite = entries[first] < entries[second] ? first : second;
+        int winner = random.nextDouble() < FAVOURITE_WINS ? favourite : first + second - favourite;
+        rounds[winner]++;
+        alive[match] = winner;
+      }
+    }
+    return rounds;
+  }
+
+  private SplittableRandom horseRandom(long index) {
+    return new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+  }
+
+  /**
+   * The first draw of every horse, so that it can be repeated from the index of the horse alone.
+   * Most horses are a few years old; the ages fall off exponentially, up to 30 years.
+   */
+  private LocalDate dateOfBirth(SplittableRandom random) {
+    double years = MIN_AGE_YEARS + Math.min(-Math.log(1 - random.nextDouble()) * 6, 28);
+    return today.minusDays((long) (years * 365.25));
+  }
+
+  private static String name(SplittableRandom random) {
+    String name = NAMES[skewed(random, NAMES.length, 2)];
+    if (random.nextDouble() < 0.4) {
+      name += SECOND_NAMES[random.nextInt(SECOND_NAMES.length)];
+    }
+    return name;
+  }
+
+  /**
+   * A random index below {@code bound}, the lower ones more likely the higher the exponent.
+   */
+  private static int skewed(SplittableRandom random, int bound, int exponent) {
+    return (int) skewed(random, (long) bound, exponent);
+  }
+
+  private static long skewed(SplittableRandom random, long bound, int exponent) {
+    return Math.min((long) (bound * Math.pow(random.nextDouble(), exponent)), bound - 1);
+  }
+
+  private long[] loadBreedIds() throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery("SELECT id FROM breed ORDER BY id")) {
+      List<Long> ids = new ArrayList<>();
+      while (rs.next()) {
+        ids.add(rs.getLong(1));
+      }
+      // which breeds are common depends on the seed
+      long[] breedIds = ids.stream().mapToLong(Long::longValue).toArray();
+      SplittableRandom random = new SplittableRandom(seed);
+      for (int i = breedIds.length - 1; i > 0; i--) {
+        int j = random.nextInt(i + 1);
+        long swap = breedIds[i];
+        breedIds[i] = breedIds[j];
+        breedIds[j] = swap;
+      }
+      return breedIds;
+    }
+  }
+
+  private long nextId(String table) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+      rs.next();
+      return Math.max(rs.getLong(1), 1);
+    }
+  }
+
+  private void restartIdentity(String table, long nextId) throws SQLException {
+    try (Connection connection = dataSource.getConnection();
+         Statement statement = connection.createStatement()) {
+      // DDL takes no parameters; both parts are our own
+      statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + nextId);
+    }
+  }
+}
@@ -2,14 +2,17 @@ package at.ac.tuwien.sepr.assignment.individual.persistence;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.entity.Standing;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.StaleVersionException;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Data Access Object for tournaments.
@@ -23,6 +26,7 @@ public interface TournamentDao {
      * Parameters that are {@code null} are ignored.
      * The name is considered a match, if the given parameter is a substring of the field in tournament.
      * Every tournament is displayed that has at least one tournament day in this date range.
+     * The tournaments are sorted by start date (newest first) and ID, and start after the given cursor, if there is one.
      *
      * @param searchParameters the parameters to use in searching.
      * @return the tournaments where all given parameters match.
@@ -46,6 +50,33 @@ public interface TournamentDao {
      */
     Tournament getById(long tournamentId) throws NotFoundException;
 
+    /**
+     * Get the version of a tournament, which is raised on every change of the tournament,
+     * its standings, or the horses taking part in it.
+     *
+     * @param tournamentId the ID of the tournament
+     * @return the version of the tournament
+     * @throws NotFoundException if the tournament with the given ID does not exist in the persistent data store.
+     */
+    long getVersion(long tournamentId) throws NotFoundException;
+
+    /**
+     * Write the entry numbers and reached rounds of the given participants of the tournament with ID {@param tournamentId}
+     * in one batch, and raise the version of the tournament, all in one transaction.
+     * A {@code null} entry number or round is stored as not set.
+     * With an expected version, the version is only raised if it still is the expected one.
+     *
+     * @param tournamentId the ID of the tournament
+     * @param expectedVersion the version the tournament must have, or {@code null} to write whatever its version
+     * @param changed the participants whose standing changed, identified by their horse ID
+     * @return the version of the tournament after the update
+     * @throws NotFoundException if the tournament, or the standing of one of the participants in it, does not exist;
+     *     nothing is written then
+     * @throws StaleVersionException if the tournament is not at the expected version; nothing is written then
+     */
+    long updateStandings(long tournamentId, Long expectedVersion, List<TournamentDetailParticipantDto> changed)
+            throws NotFoundException, StaleVersionException;
+
     /**
      * Get the standing of the tournament participant with horse ID {@param horseID}
      * from the tournament with ID {@param tournamentID} form the data store.
@@ -72,4 +103,24 @@ public interface TournamentDao {
      * @return list of the tournament IDs
      */
     List<Long> getAllTournamentIdsByHorseId(long horseId);
+
+    /**
+     * Get all participants of the tournament with ID {@param tournamentId},
+     * together with the name and date of birth of the participating horses, in a single query.
+     *
+     * @param tournamentId ID of the tournament to get the participants of
+     * @return the participants of the tournament, ordered by their entry number
+     * @throws NotFoundException if no standings exist for the given tournament ID
+     */
+    List<TournamentDetailParticipantDto> getParticipantsByTournamentId(long tournamentId) throws NotFoundException;
+
+    /**
+     * Get the results of a tournament: its participants, best placed first, and in the order of entry within a round.
+     * The rows are read while the returned stream is consumed; it must be closed after use.
+     * An unknown tournament results in an empty stream.
+     *
+     * @param tournamentId the ID of the tournament
+     * @return the participants of the tournament
+     */
+    Stream<TournamentDetailParticipantDto> streamResultsByTournamentId(long tournamentId);
 }
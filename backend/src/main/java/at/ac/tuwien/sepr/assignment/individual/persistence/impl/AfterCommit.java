@@ -0,0 +1,32 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers changes of the in-memory indexes of the DAOs, until the write they follow is committed.
+ * A rolled back transaction so leaves the indexes as they were.
+ */
+final class AfterCommit {
+  private AfterCommit() {
+  }
+
+  /**
+   * Run {@code change} once the current transaction committed, or right away, if there is none;
+   * each statement is then committed on its own.
+   *
+   * @param change the change to make
+   */
+  static void run(Runnable change) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      change.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        change.run();
+      }
+    });
+  }
+}
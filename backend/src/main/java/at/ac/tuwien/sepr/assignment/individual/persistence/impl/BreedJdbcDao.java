@@ -3,17 +3,24 @@ package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Breed;
 import at.ac.tuwien.sepr.assignment.individual.persistence.BreedDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataResetEvent;
 import java.lang.invoke.MethodHandles;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class BreedJdbcDao implements BreedDao {
@@ -28,28 +35,58 @@ public class BreedJdbcDao implements BreedDao {
       "SELECT * FROM " + TABLE_NAME
           + " WHERE UPPER(name) LIKE UPPER('%'||:name||'%')";
   private static final String SQL_LIMIT_CLAUSE = " LIMIT :limit";
+  private static final String SQL_SELECT_ALL_NAMES =
+      "SELECT id, name FROM " + TABLE_NAME;
 
   private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TrigramIndex nameIndex;
+  private final PrimaryReads primaryReads;
 
-  public BreedJdbcDao(NamedParameterJdbcTemplate jdbcTemplate) {
+  public BreedJdbcDao(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
     this.jdbcTemplate = jdbcTemplate;
+    this.primaryReads = new PrimaryReads(transactionManager);
+    this.nameIndex = new TrigramIndex(TABLE_NAME + ".name", this::loadAllNames);
+  }
+
+  @EventListener
+  public void onDataReset(DataResetEvent event) {
+    LOG.trace("onDataReset({})", event);
+    nameIndex.invalidate();
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Collection<Breed> allBreeds() {
     LOG.trace("allBreeds()");
     return jdbcTemplate.query(SQL_ALL, this::mapRow);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Collection<Breed> findBreedsById(Set<Long> breedIds) {
     LOG.trace("findBreedsById({})", breedIds);
     return jdbcTemplate.query(SQL_FIND_BY_IDS, Map.of("ids", breedIds), this::mapRow);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Collection<Breed> search(BreedSearchDto searchParams) {
     LOG.trace("search({})", searchParams);
+    var ids = searchParams.name() != null ? nameIndex.lookup(searchParams.name()) : Optional.<Set<Long>>empty();
+    if (ids.isPresent()) {
+      if (ids.get().isEmpty()) {
+        return List.of();
+      }
+      String query = SQL_FIND_BY_IDS;
+      if (searchParams.limit() != null) {
+        query += SQL_LIMIT_CLAUSE;
+      }
+      var params = new MapSqlParameterSource()
+          .addValue("ids", ids.get())
+          .addValue("limit", searchParams.limit());
+      return jdbcTemplate.query(query, params, this::mapRow);
+    }
+
     String query = SQL_SEARCH;
     if (searchParams.limit() != null) {
       query += SQL_LIMIT_CLAUSE;
@@ -57,6 +94,13 @@ public class BreedJdbcDao implements BreedDao {
     return jdbcTemplate.query(query, new BeanPropertySqlParameterSource(searchParams), this::mapRow);
   }
 
+  private void loadAllNames(TrigramIndex.Rows names) {
+    LOG.trace("loadAllNames()");
+    primaryReads.run(() -> jdbcTemplate.query(SQL_SELECT_ALL_NAMES, rs -> {
+      names.add(rs.getLong("id"), rs.getString("name"));
+    }));
+  }
+
   private Breed mapRow(ResultSet resultSet, int i) throws SQLException {
     LOG.trace("mapRow({}, {})", resultSet, i);
     return new Breed()
@@ -0,0 +1,85 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerStatsDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseCareerDao;
+import java.lang.invoke.MethodHandles;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class HorseCareerJdbcDao implements HorseCareerDao {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String TABLE_NAME = "horse_career";
+
+  /**
+   * Counts the tournaments of one horse, with the view {@code horse_career_of_standings} of {@code createSchema.sql},
+   * which also fills the table.
+   */
+  private static final String SQL_MERGE_CAREER = "MERGE INTO " + TABLE_NAME
+      + " (horse_id, tournaments, semi_finals, finals, wins, best_round, points) KEY (horse_id)"
+      + " SELECT * FROM horse_career_of_standings WHERE horse_id = ?";
+  private static final String SQL_SELECT_STATS = "SELECT * FROM " + TABLE_NAME + " WHERE horse_id = ?";
+  // the standings are found by the index of the reverse lookup from horse to tournaments
+  private static final String SQL_SELECT_ENTRIES = "SELECT t.id, t.name, t.start_date, t.end_date, s.entry_number, s.round_reached"
+      + " FROM standings s JOIN tournament t ON t.id = s.tournament_id"
+      + " WHERE s.horse_id = ?"
+      + " ORDER BY t.start_date DESC, t.id DESC";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public HorseCareerJdbcDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void refresh(Collection<Long> horseIds) {
+    LOG.trace("refresh({})", horseIds);
+    List<Object[]> keys = horseIds.stream()
+        .map(horseId -> new Object[] {horseId})
+        .toList();
+    jdbcTemplate.batchUpdate(SQL_MERGE_CAREER, keys);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public HorseCareerStatsDto getStats(long horseId) {
+    LOG.trace("getStats({})", horseId);
+    List<HorseCareerStatsDto> stats = jdbcTemplate.query(SQL_SELECT_STATS, this::mapRowStats, horseId);
+    return stats.isEmpty() ? HorseCareerStatsDto.NONE : stats.get(0);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<HorseCareerEntryDto> getEntries(long horseId) {
+    LOG.trace("getEntries({})", horseId);
+    return jdbcTemplate.query(SQL_SELECT_ENTRIES, this::mapRowEntry, horseId);
+  }
+
+  private HorseCareerStatsDto mapRowStats(ResultSet result, int rowNum) throws SQLException {
+    return new HorseCareerStatsDto(
+        result.getLong("tournaments"),
+        result.getLong("semi_finals"),
+        result.getLong("finals"),
+        result.getLong("wins"),
+        result.getLong("best_round"),
+        result.getLong("points"));
+  }
+
+  private HorseCareerEntryDto mapRowEntry(ResultSet result, int rowNum) throws SQLException {
+    return new HorseCareerEntryDto(
+        result.getLong("id"),
+        result.getString("name"),
+        result.getDate("start_date").toLocalDate(),
+        result.getDate("end_date").toLocalDate(),
+        result.getObject("entry_number", Long.class),
+        result.getObject("round_reached", Long.class));
+  }
+}
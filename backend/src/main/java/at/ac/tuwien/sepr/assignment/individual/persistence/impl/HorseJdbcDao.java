@@ -6,37 +6,68 @@ import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataResetEvent;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import java.lang.invoke.MethodHandles;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public class HorseJdbcDao implements HorseDao {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   private static final String TABLE_NAME = "horse";
+  private static final String SQL_COUNT_ALL = "SELECT COUNT(*) FROM " + TABLE_NAME;
+  private static final String SQL_SELECT_ALL_IDS = "SELECT id FROM " + TABLE_NAME;
+  private static final String SQL_SELECT_EXISTING_IDS = "SELECT id FROM " + TABLE_NAME + " WHERE id IN (:ids)";
   private static final String SQL_SELECT_BY_ID = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
+  private static final String SQL_SELECT_VERSION = "SELECT version FROM " + TABLE_NAME + " WHERE id = ?";
   private static final String SQL_SELECT_SEARCH = "SELECT  "
           + "    h.id as \"id\", h.name as \"name\", h.sex as \"sex\", h.date_of_birth as \"date_of_birth\""
           + "    , h.height as \"height\", h.weight as \"weight\", h.breed_id as \"breed_id\""
           + " FROM " + TABLE_NAME + " h LEFT OUTER JOIN breed b ON (h.breed_id = b.id)"
-          + " WHERE (:name IS NULL OR UPPER(h.name) LIKE UPPER('%'||:name||'%'))"
-          + "  AND (:sex IS NULL OR :sex = sex)"
+          + " WHERE (:sex IS NULL OR :sex = sex)"
           + "  AND (:bornEarliest IS NULL OR :bornEarliest <= h.date_of_birth)"
           + "  AND (:bornLatest IS NULL OR :bornLatest >= h.date_of_birth)"
           + "  AND (:breed IS NULL OR UPPER(b.name) LIKE UPPER('%'||:breed||'%'))";
 
+  // the name is filtered by ID, if the name index can answer the search, otherwise by LIKE
+  private static final String SQL_NAME_CLAUSE = "  AND UPPER(h.name) LIKE UPPER('%'||:name||'%')";
+  private static final String SQL_IDS_CLAUSE = "  AND h.id IN (:ids)";
+  private static final String SQL_SELECT_NAMES_BY_IDS = "SELECT id, name FROM " + TABLE_NAME + " WHERE id IN (:ids)";
+  private static final String SQL_SELECT_ALL_NAMES = "SELECT id, name FROM " + TABLE_NAME;
+  private static final String SQL_AFTER_CURSOR_CLAUSE = "  AND h.id > :afterId";
+  private static final String SQL_ORDER_CLAUSE = " ORDER BY h.id";
   private static final String SQL_LIMIT_CLAUSE = " LIMIT :limit";
 
   private static final String SQL_UPDATE = "UPDATE " + TABLE_NAME
@@ -46,8 +77,13 @@ public class HorseJdbcDao implements HorseDao {
       + "  , height = ?"
       + "  , weight = ?"
       + "  , breed_id = ?"
+      + "  , version = version + 1"
       + " WHERE id = ?";
 
+  // the participants of a tournament show the name and birth date of the horse, so its tournaments change with it
+  private static final String SQL_TOUCH_TOURNAMENTS = "UPDATE tournament SET version = version + 1"
+      + " WHERE id IN (SELECT tournament_id FROM standings WHERE horse_id = ?)";
+
   private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE id = ?";
 
   private static final String TABLE_COLUMNS = "(name, sex, date_of_birth, height, weight, breed_id)";
@@ -56,16 +92,34 @@ public class HorseJdbcDao implements HorseDao {
 
   private final JdbcTemplate jdbcTemplate;
   private final NamedParameterJdbcTemplate jdbcNamed;
+  private final TrigramIndex nameIndex;
+  private final IdBloomFilter idFilter;
+  private final PrimaryReads primaryReads;
+  private final int streamChunkSize;
 
 
   public HorseJdbcDao(
       NamedParameterJdbcTemplate jdbcNamed,
-      JdbcTemplate jdbcTemplate) {
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${app.horses.stream.chunk-size:1000}") int streamChunkSize) {
     this.jdbcTemplate = jdbcTemplate;
     this.jdbcNamed = jdbcNamed;
+    this.primaryReads = new PrimaryReads(transactionManager);
+    this.streamChunkSize = streamChunkSize;
+    this.nameIndex = new TrigramIndex(TABLE_NAME + ".name", this::loadAllNames);
+    this.idFilter = new IdBloomFilter(TABLE_NAME, this::countAll, this::loadAllIds);
+  }
+
+  @EventListener
+  public void onDataReset(DataResetEvent event) {
+    LOG.trace("onDataReset({})", event);
+    nameIndex.invalidate();
+    idFilter.invalidate();
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Horse getById(long id) throws NotFoundException {
     LOG.trace("getById({})", id);
     List<Horse> horses;
@@ -88,16 +142,7 @@ public class HorseJdbcDao implements HorseDao {
     KeyHolder keyHolder = new GeneratedKeyHolder();
     jdbcTemplate.update(conn -> {
       PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS);
-      ps.setString(1, horse.name());
-      ps.setString(2, horse.sex().toString());
-      ps.setDate(3, Date.valueOf(horse.dateOfBirth()));
-      ps.setFloat(4, horse.height());
-      ps.setFloat(5, horse.weight());
-      if (horse.breed() != null) {
-        ps.setLong(6, horse.breed().id());
-      } else {
-        ps.setNull(6, Types.BIGINT);
-      }
+      setInsertParameters(ps, horse);
       return ps;
     }, keyHolder);
 
@@ -105,8 +150,14 @@ public class HorseJdbcDao implements HorseDao {
       throw new FatalException("Could not extract key for newly created horse.");
     }
 
+    long id = keyHolder.getKey().longValue();
+    AfterCommit.run(() -> {
+      nameIndex.put(id, horse.name());
+      idFilter.add(id);
+    });
+
     return new Horse()
-            .setId(keyHolder.getKey().longValue())
+            .setId(id)
             .setName(horse.name())
             .setSex(horse.sex())
             .setDateOfBirth(horse.dateOfBirth())
@@ -117,8 +168,56 @@ public class HorseJdbcDao implements HorseDao {
   }
 
   @Override
+  public List<Long> createAll(List<HorseCreateDto> horses, int batchSize) {
+    LOG.trace("createAll({} horses, {})", horses.size(), batchSize);
+    List<Long> ids = new ArrayList<>(horses.size());
+    jdbcTemplate.execute((ConnectionCallback<Void>) conn -> {
+      try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+        for (int from = 0; from < horses.size(); from += batchSize) {
+          for (HorseCreateDto horse : horses.subList(from, Math.min(from + batchSize, horses.size()))) {
+            setInsertParameters(ps, horse);
+            ps.addBatch();
+          }
+          ps.executeBatch();
+          try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+              ids.add(keys.getLong(1));
+            }
+          }
+        }
+      }
+      return null;
+    });
+
+    if (ids.size() != horses.size()) {
+      throw new FatalException("Could not extract keys for %d newly created horses, got %d".formatted(horses.size(), ids.size()));
+    }
+    // a chunk of an import is rolled back as a whole, when a later statement of its transaction fails
+    AfterCommit.run(() -> {
+      for (int i = 0; i < ids.size(); i++) {
+        nameIndex.put(ids.get(i), horses.get(i).name());
+        idFilter.add(ids.get(i));
+      }
+    });
+    return ids;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public long getVersion(long id) throws NotFoundException {
+    LOG.trace("getVersion({})", id);
+    List<Long> versions = jdbcTemplate.queryForList(SQL_SELECT_VERSION, Long.class, id);
+    if (versions.isEmpty()) {
+      throw new NotFoundException("No horse with ID %d found".formatted(id));
+    }
+    return versions.get(0);
+  }
+
+  @Override
+  @Transactional
   public void delete(Long id) throws NotFoundException {
     LOG.trace("delete({})", id);
+    jdbcTemplate.update(SQL_TOUCH_TOURNAMENTS, id);
     int updated = jdbcTemplate.update(conn -> {
       PreparedStatement ps = conn.prepareStatement(SQL_DELETE);
       ps.setLong(1, id);
@@ -128,30 +227,160 @@ public class HorseJdbcDao implements HorseDao {
     if (updated == 0) {
       throw new NotFoundException("Could not delete horse with ID " + id + ", because it does not exist!");
     }
+    AfterCommit.run(() -> nameIndex.remove(id));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Set<Long> findExistingIds(Collection<Long> ids) {
+    LOG.trace("findExistingIds({})", ids);
+    // IDs the filter rules out are not sent to the database at all
+    var candidates = ids.stream()
+        .filter(idFilter::mightContain)
+        .collect(Collectors.toSet());
+    if (candidates.isEmpty()) {
+      return Set.of();
+    }
+    return new HashSet<>(jdbcNamed.queryForList(SQL_SELECT_EXISTING_IDS, Map.of("ids", candidates), Long.class));
   }
 
   @Override
-  public List<Long> getAllHorseIDs() {
-    LOG.trace("getAllHorseIDs()");
-    String sql = "SELECT id FROM " + TABLE_NAME;
-    return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong("id"));
+  @Transactional(readOnly = true)
+  public Map<Long, String> findNamesByIds(Collection<Long> ids) {
+    LOG.trace("findNamesByIds({})", ids);
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, String> names = new HashMap<>();
+    jdbcNamed.query(SQL_SELECT_NAMES_BY_IDS, Map.of("ids", ids), rs -> {
+      names.put(rs.getLong("id"), rs.getString("name"));
+    });
+    return names;
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Collection<Horse> search(HorseSearchDto searchParameters) {
     LOG.trace("search({})", searchParameters);
+    var cursor = searchParameters.cursor() != null ? PageCursor.decode(searchParameters.cursor()).id() : null;
+    return searchPage(searchParameters, cursor, searchParameters.limit());
+  }
+
+  @Override
+  public Stream<Horse> streamSearch(HorseSearchDto searchParameters) {
+    LOG.trace("streamSearch({})", searchParameters);
+    // each chunk is the page after the last horse of the previous one, so no connection is held between chunks
+    var chunks = new Iterator<List<Horse>>() {
+      private Long afterId = searchParameters.cursor() != null ? PageCursor.decode(searchParameters.cursor()).id() : null;
+      private int remaining = searchParameters.limit() != null ? searchParameters.limit() : Integer.MAX_VALUE;
+      private boolean last;
+
+      @Override
+      public boolean hasNext() {
+        return !last && remaining > 0;
+      }
+
+      @Override
+      public List<Horse> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int size = Math.min(streamChunkSize, remaining);
+        List<Horse> chunk = searchPage(searchParameters, afterId, size);
+        last = chunk.size() < size;
+        remaining -= chunk.size();
+        if (!chunk.isEmpty()) {
+          afterId = chunk.get(chunk.size() - 1).getId();
+        }
+        return chunk;
+      }
+    };
+    // nothing is read before the stream is consumed
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+        .flatMap(List::stream);
+  }
+
+  private List<Horse> searchPage(HorseSearchDto searchParameters, Long afterId, Integer limit) {
+    var params = new MapSqlParameterSource();
+    return searchQuery(searchParameters, afterId, limit, params)
+        .map(query -> jdbcNamed.query(query, params, this::mapRow))
+        .orElse(List.of());
+  }
+
+  /**
+   * Compose the search query for the given parameters and fill in the values of its parameters.
+   *
+   * @param afterId the ID after which the page starts, or {@code null} for the first page
+   * @param limit the number of horses to get at most, or {@code null} for all
+   * @return the query, or nothing if the name index shows that no horse matches
+   */
+  private Optional<String> searchQuery(HorseSearchDto searchParameters, Long afterId, Integer limit,
+                                       MapSqlParameterSource params) {
     var query = SQL_SELECT_SEARCH;
-    if (searchParameters.limit() != null) {
+    if (searchParameters.name() != null) {
+      var ids = nameIndex.lookup(searchParameters.name());
+      if (ids.isEmpty()) {
+        query += SQL_NAME_CLAUSE;
+        params.addValue("name", searchParameters.name());
+      } else if (ids.get().isEmpty()) {
+        return Optional.empty();
+      } else {
+        query += SQL_IDS_CLAUSE;
+        params.addValue("ids", ids.get());
+      }
+    }
+    if (afterId != null) {
+      query += SQL_AFTER_CURSOR_CLAUSE;
+    }
+    query += SQL_ORDER_CLAUSE;
+    if (limit != null) {
       query += SQL_LIMIT_CLAUSE;
     }
-    var params = new BeanPropertySqlParameterSource(searchParameters);
-    params.registerSqlType("sex", Types.VARCHAR);
+    params
+        .addValue("sex", searchParameters.sex() != null ? searchParameters.sex().name() : null, Types.VARCHAR)
+        .addValue("bornEarliest", searchParameters.bornEarliest())
+        .addValue("bornLatest", searchParameters.bornLatest())
+        .addValue("breed", searchParameters.breed())
+        .addValue("limit", limit)
+        .addValue("afterId", afterId);
+    return Optional.of(query);
+  }
+
+  private static void setInsertParameters(PreparedStatement ps, HorseCreateDto horse) throws SQLException {
+    ps.setString(1, horse.name());
+    ps.setString(2, horse.sex().toString());
+    ps.setDate(3, Date.valueOf(horse.dateOfBirth()));
+    ps.setFloat(4, horse.height());
+    ps.setFloat(5, horse.weight());
+    if (horse.breed() != null) {
+      ps.setLong(6, horse.breed().id());
+    } else {
+      ps.setNull(6, Types.BIGINT);
+    }
+  }
+
+  private long countAll() {
+    LOG.trace("countAll()");
+    return primaryReads.read(() -> jdbcTemplate.queryForObject(SQL_COUNT_ALL, Long.class));
+  }
+
+  private void loadAllIds(LongConsumer ids) {
+    LOG.trace("loadAllIds()");
+    primaryReads.run(() -> jdbcTemplate.query(SQL_SELECT_ALL_IDS, rs -> {
+      ids.accept(rs.getLong("id"));
+    }));
+  }
 
-    return jdbcNamed.query(query, params, this::mapRow);
+  private void loadAllNames(TrigramIndex.Rows names) {
+    LOG.trace("loadAllNames()");
+    primaryReads.run(() -> jdbcTemplate.query(SQL_SELECT_ALL_NAMES, rs -> {
+      names.add(rs.getLong("id"), rs.getString("name"));
+    }));
   }
 
 
   @Override
+  @Transactional
   public Horse update(HorseDetailDto horse) throws NotFoundException {
     LOG.trace("update({})", horse);
     int updated = jdbcTemplate.update(SQL_UPDATE,
@@ -165,6 +394,8 @@ public class HorseJdbcDao implements HorseDao {
     if (updated == 0) {
       throw new NotFoundException("Could not update horse with ID " + horse.id() + ", because it does not exist");
     }
+    jdbcTemplate.update(SQL_TOUCH_TOURNAMENTS, horse.id());
+    AfterCommit.run(() -> nameIndex.put(horse.id(), horse.name()));
 
     return new Horse()
         .setId(horse.id())
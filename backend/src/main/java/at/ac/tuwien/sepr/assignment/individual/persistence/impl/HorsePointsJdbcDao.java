@@ -0,0 +1,76 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class HorsePointsJdbcDao implements HorsePointsDao {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final String TABLE_NAME = "horse_points";
+
+  /**
+   * Copies the points of a standing, with the view {@code horse_points_of_standings} of {@code createSchema.sql},
+   * which also fills the table.
+   */
+  private static final String SQL_MERGE_POINTS = "MERGE INTO " + TABLE_NAME
+      + " (horse_id, tournament_id, tournament_date, points) KEY (horse_id, tournament_id)"
+      + " SELECT * FROM horse_points_of_standings WHERE tournament_id = ? AND horse_id = ?";
+  private static final String SQL_SELECT_POINTS_SINCE = "SELECT horse_id, SUM(points) AS points FROM " + TABLE_NAME
+      + " WHERE tournament_date >= :from GROUP BY horse_id HAVING SUM(points) > 0";
+  private static final String SQL_SELECT_POINTS_OF_HORSES_SINCE = "SELECT horse_id, SUM(points) AS points FROM " + TABLE_NAME
+      + " WHERE horse_id IN (:ids) AND tournament_date >= :from GROUP BY horse_id HAVING SUM(points) > 0";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate jdbcNamed;
+
+  public HorsePointsJdbcDao(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate jdbcNamed) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.jdbcNamed = jdbcNamed;
+  }
+
+  @Override
+  public void refresh(long tournamentId, Collection<Long> horseIds) {
+    LOG.trace("refresh({}, {})", tournamentId, horseIds);
+    List<Object[]> keys = horseIds.stream()
+        .map(horseId -> new Object[] {tournamentId, horseId})
+        .toList();
+    jdbcTemplate.batchUpdate(SQL_MERGE_POINTS, keys);
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Map<Long, Long> getPointsSince(LocalDate from) {
+    LOG.trace("getPointsSince({})", from);
+    return queryPoints(SQL_SELECT_POINTS_SINCE, new MapSqlParameterSource("from", from));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public Map<Long, Long> getPointsSince(LocalDate from, Collection<Long> horseIds) {
+    LOG.trace("getPointsSince({}, {})", from, horseIds);
+    if (horseIds.isEmpty()) {
+      return Map.of();
+    }
+    return queryPoints(SQL_SELECT_POINTS_OF_HORSES_SINCE, new MapSqlParameterSource("from", from).addValue("ids", horseIds));
+  }
+
+  private Map<Long, Long> queryPoints(String sql, MapSqlParameterSource params) {
+    Map<Long, Long> points = new HashMap<>();
+    jdbcNamed.query(sql, params, rs -> {
+      points.put(rs.getLong("horse_id"), rs.getLong("points"));
+    });
+    return points;
+  }
+}
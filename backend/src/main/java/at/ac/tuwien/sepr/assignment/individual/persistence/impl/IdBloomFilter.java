@@ -0,0 +1,201 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bloom filter over the IDs of a table.
+ * It tells for sure, that a row does not exist, without asking the database;
+ * if it answers, that a row might exist, the database still has to confirm it.
+ *
+ * <p>The filter is filled from the database on first use, and the DAO owning it adds every row it created, once committed.
+ * Deleted rows can not be taken out, they only make the filter answer "might exist" more often.
+ * A filter holding more IDs than it was sized for is built anew, while the full one still answers the checks.
+ * Data written past the DAO, like the test data scripts, has to be followed by {@link #invalidate()}.
+ */
+public class IdBloomFilter {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  /**
+   * With ten bits per ID and seven hash functions, about one in a hundred missing IDs is reported as "might exist".
+   */
+  private static final int BITS_PER_ID = 10;
+  private static final int HASHES = 7;
+  private static final int MIN_CAPACITY = 1024;
+
+  private final String name;
+  private final LongSupplier counter;
+  private final Consumer<LongConsumer> loader;
+  private final ReentrantLock loading = new ReentrantLock();
+  private volatile Bits bits;
+  // guarded by this: the IDs added while the filter is (re)built, they might be missing from what the loader read
+  private List<Long> addedWhileLoading;
+  private long generation;
+
+  /**
+   * The bits of the filter, sized for {@code capacity} IDs.
+   */
+  private record Bits(AtomicLongArray words, long bitCount, int capacity, AtomicInteger size) {
+    static Bits forCapacity(int capacity) {
+      long bitCount = (long) capacity * BITS_PER_ID;
+      return new Bits(new AtomicLongArray((int) ((bitCount + 63) / 64)), bitCount, capacity, new AtomicInteger());
+    }
+
+    void add(long id) {
+      long hash = mix(id);
+      for (int i = 0; i < HASHES; i++) {
+        long bit = index(hash, i);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long old;
+        do {
+          old = words.get(word);
+        } while ((old & mask) == 0 && !words.compareAndSet(word, old, old | mask));
+      }
+      size.incrementAndGet();
+    }
+
+    boolean mightContain(long id) {
+      long hash = mix(id);
+      for (int i = 0; i < HASHES; i++) {
+        long bit = index(hash, i);
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * The {@code i}th bit of an ID, derived from the two halves of its hash (Kirsch and Mitzenmacher).
+     */
+    private long index(long hash, int i) {
+      long combined = (hash >>> 32) + i * (hash & 0xFFFFFFFFL);
+      return Math.floorMod(combined, bitCount);
+    }
+  }
+
+  /**
+   * Create an empty filter.
+   *
+   * @param name the name of the table, for logging
+   * @param counter supplies the number of rows of the table, the filter is sized for, whenever it is (re)built
+   * @param loader passes every ID of the table to the given consumer, right after the rows were counted
+   */
+  public IdBloomFilter(String name, LongSupplier counter, Consumer<LongConsumer> loader) {
+    this.name = name;
+    this.counter = counter;
+    this.loader = loader;
+  }
+
+  /**
+   * Check if a row with the given ID might exist.
+   *
+   * @param id the ID to check
+   * @return {@code false} if there is no row with this ID, {@code true} if there might be one
+   */
+  public boolean mightContain(long id) {
+    LOG.trace("mightContain({})", id);
+    var current = loaded();
+    // invalidated while it was loaded, the database has to answer
+    return current == null || current.mightContain(id);
+  }
+
+  /**
+   * Add the ID of a newly created row.
+   * Only committed rows may be added, the filter can not forget a rolled back one.
+   *
+   * @param id the ID of the row
+   */
+  public synchronized void add(long id) {
+    LOG.trace("add({})", id);
+    // before the first load, the loader will read the row from the database
+    if (bits != null) {
+      bits.add(id);
+    }
+    if (addedWhileLoading != null) {
+      addedWhileLoading.add(id);
+    }
+  }
+
+  /**
+   * Drop the content of the filter, it is loaded again on the next check.
+   */
+  public synchronized void invalidate() {
+    LOG.trace("invalidate()");
+    generation++;
+    bits = null;
+  }
+
+  private Bits loaded() {
+    var current = bits;
+    if (current != null && current.size().get() <= current.capacity()) {
+      return current;
+    }
+    if (current != null) {
+      // full, it answers "might exist" more and more often, but is still right about the rows that do not exist;
+      // it is used by all other checks, until it has been rebuilt
+      if (loading.tryLock()) {
+        try {
+          load();
+        } finally {
+          loading.unlock();
+        }
+      }
+      return bits;
+    }
+    loading.lock();
+    try {
+      if (bits == null) {
+        load();
+      }
+    } finally {
+      loading.unlock();
+    }
+    return bits;
+  }
+
+  private void load() {
+    long started;
+    synchronized (this) {
+      started = generation;
+      addedWhileLoading = new ArrayList<>();
+    }
+    Bits built = null;
+    try {
+      // the IDs go straight into the bits, instead of being collected first; rows created after the count
+      // are added in excess of it, a filter filled beyond its capacity that way is rebuilt on a later check
+      var filling = Bits.forCapacity((int) Math.max(MIN_CAPACITY, 2 * counter.getAsLong()));
+      loader.accept(filling::add);
+      built = filling;
+    } finally {
+      synchronized (this) {
+        if (built != null && generation == started) {
+          addedWhileLoading.forEach(built::add);
+          bits = built;
+          LOG.debug("Loaded ID filter of {} with {} IDs for a capacity of {}", name, built.size().get(), built.capacity());
+        }
+        addedWhileLoading = null;
+      }
+    }
+  }
+
+  /**
+   * Spread the bits of an ID over the whole long (the finalizer of SplitMix64), IDs are mostly consecutive.
+   */
+  private static long mix(long id) {
+    long z = id + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
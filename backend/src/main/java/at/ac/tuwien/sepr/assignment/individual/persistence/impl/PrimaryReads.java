@@ -0,0 +1,29 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import java.util.function.Supplier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the loaders of the in-memory indexes outside of the transaction that needed them.
+ * A lookup runs in a read-only transaction, which may be sent to a read replica lagging behind the primary;
+ * an index loaded from there would miss the latest rows, and then wrongly rule them out.
+ * Outside of a read-only transaction, the connection is taken from the primary.
+ */
+final class PrimaryReads {
+  private final TransactionTemplate outsideTransaction;
+
+  PrimaryReads(PlatformTransactionManager transactionManager) {
+    this.outsideTransaction = new TransactionTemplate(transactionManager);
+    this.outsideTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+  }
+
+  <T> T read(Supplier<T> query) {
+    return outsideTransaction.execute(status -> query.get());
+  }
+
+  void run(Runnable query) {
+    outsideTransaction.executeWithoutResult(status -> query.run());
+  }
+}
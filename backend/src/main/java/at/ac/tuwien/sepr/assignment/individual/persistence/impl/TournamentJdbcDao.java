@@ -1,28 +1,37 @@
 package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Standing;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.StaleVersionException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataResetEvent;
 import at.ac.tuwien.sepr.assignment.individual.persistence.TournamentDao;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.invoke.MethodHandles;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public class TournamentJdbcDao implements TournamentDao {
@@ -38,39 +47,117 @@ public class TournamentJdbcDao implements TournamentDao {
 
     private static final String SQL_SELECT_BY_ID = "SELECT * FROM " + TABLE_NAME + " WHERE id = ?";
 
+    private static final String SQL_SELECT_VERSION = "SELECT version FROM " + TABLE_NAME + " WHERE id = ?";
+
     private static final String SQL_SELECT_SEARCH = "SELECT "
             + "    t.id as \"id\", t.name as \"name\", t.start_date as \"start_date\", t.end_date as \"end_date\""
+            + "    , t.version as \"version\""
             + " FROM " + TABLE_NAME + " t"
             + " WHERE "
-            + " (:name IS NULL OR UPPER(t.name) LIKE UPPER('%'||:name||'%'))"
-            + " AND ("
             + "   (:startDate IS NULL OR t.end_date >= :startDate)"
-            + "   AND (:endDate IS NULL OR t.start_date <= :endDate)"
-            + " )"
-            + " ORDER BY t.start_date DESC";
+            + "   AND (:endDate IS NULL OR t.start_date <= :endDate)";
+
+    // the name is filtered by ID, if the name index can answer the search, otherwise by LIKE
+    private static final String SQL_NAME_CLAUSE = " AND UPPER(t.name) LIKE UPPER('%'||:name||'%')";
+
+    private static final String SQL_IDS_CLAUSE = " AND t.id IN (:ids)";
+
+    private static final String SQL_SELECT_ALL_NAMES = "SELECT id, name FROM " + TABLE_NAME;
+
+    // written as a range on start_date, so that the index on (start_date DESC, id DESC) can seek to the cursor
+    private static final String SQL_AFTER_CURSOR_CLAUSE = " AND t.start_date <= :afterStartDate"
+            + " AND (t.start_date < :afterStartDate OR t.id < :afterId)";
+
+    private static final String SQL_ORDER_CLAUSE = " ORDER BY t.start_date DESC, t.id DESC";
+
+    private static final String SQL_LIMIT_CLAUSE = " LIMIT :limit";
 
     private static final String SQL_INSERT = "INSERT INTO " + TABLE_NAME + TABLE_COLUMNS + " VALUES (?, ?, ?)";
 
-    private static final String SQL_INSERT_PARTICIPATING_HORSES = "INSERT INTO tournament_horses (tournament_id, horse_id) VALUES (?, ?)";
+    private static final String PARTICIPANTS_FROM_STANDINGS = "SELECT"
+            + "    s.tournament_id as \"tournament_id\", s.horse_id as \"horse_id\", h.name as \"name\""
+            + "    , h.date_of_birth as \"date_of_birth\", s.entry_number as \"entry_number\", s.round_reached as \"round_reached\""
+            + " FROM " + STANDING_TABLE_NAME + " s JOIN horse h ON (s.horse_id = h.id)";
+
+    private static final String SQL_SELECT_PARTICIPANTS_BY_TOURNAMENT_ID = PARTICIPANTS_FROM_STANDINGS
+            + " WHERE s.tournament_id = ?"
+            + " ORDER BY s.entry_number, s.horse_id";
+
+    private static final String SQL_SELECT_RESULTS_BY_TOURNAMENT_ID = PARTICIPANTS_FROM_STANDINGS
+            + " WHERE s.tournament_id = ?"
+            + " ORDER BY s.round_reached DESC, s.entry_number, s.horse_id";
+
+    private static final String SQL_INSERT_STANDING = "INSERT INTO " + STANDING_TABLE_NAME + " (tournament_id, horse_id) VALUES (?, ?)";
+
+    private static final String SQL_UPDATE_STANDING = "UPDATE " + STANDING_TABLE_NAME
+            + " SET entry_number = ?, round_reached = ?, version = version + 1 WHERE tournament_id = ? AND horse_id = ?";
+
+    private static final String SQL_TOUCH_TOURNAMENT = "UPDATE " + TABLE_NAME + " SET version = version + 1 WHERE id = ?";
+
+    // the version is checked by the write itself, so no other write can come between the check and this one
+    private static final String SQL_TOUCH_TOURNAMENT_OF_VERSION = SQL_TOUCH_TOURNAMENT + " AND version = ?";
+
+    private static final String SQL_SELECT_STANDING_BY_ID = "SELECT * FROM " + STANDING_TABLE_NAME + " WHERE tournament_id = ? AND horse_id = ?";
+
+    private static final String SQL_SELECT_STANDING_IDS = "SELECT horse_id FROM " + STANDING_TABLE_NAME + " WHERE tournament_id = ?";
+
+    private static final String SQL_SELECT_TOURNAMENT_IDS_BY_HORSE_ID = "SELECT tournament_id FROM " + STANDING_TABLE_NAME + " WHERE horse_id = ?";
 
 
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate jdbcNamed;
+    private final TrigramIndex nameIndex;
+    private final PrimaryReads primaryReads;
 
 
     //constructor
-    public TournamentJdbcDao(NamedParameterJdbcTemplate jdbcNamed, JdbcTemplate jdbcTemplate) {
+    public TournamentJdbcDao(NamedParameterJdbcTemplate jdbcNamed, JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
         this.jdbcNamed = jdbcNamed;
+        this.primaryReads = new PrimaryReads(transactionManager);
+        this.nameIndex = new TrigramIndex(TABLE_NAME + ".name", this::loadAllNames);
+    }
+
+    @EventListener
+    public void onDataReset(DataResetEvent event) {
+        LOG.trace("onDataReset({})", event);
+        nameIndex.invalidate();
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Tournament> search(TournamentSearchDto searchParameters) {
         LOG.trace("search({})", searchParameters);
+        var cursor = searchParameters.cursor() != null ? PageCursor.decode(searchParameters.cursor()) : null;
         var query = SQL_SELECT_SEARCH;
-        var params = new BeanPropertySqlParameterSource(searchParameters);
-        LOG.info("params is {}", params);
+        var params = new MapSqlParameterSource();
+        if (searchParameters.name() != null) {
+            var ids = nameIndex.lookup(searchParameters.name());
+            if (ids.isEmpty()) {
+                query += SQL_NAME_CLAUSE;
+                params.addValue("name", searchParameters.name());
+            } else if (ids.get().isEmpty()) {
+                return List.of();
+            } else {
+                query += SQL_IDS_CLAUSE;
+                params.addValue("ids", ids.get());
+            }
+        }
+        if (cursor != null) {
+            query += SQL_AFTER_CURSOR_CLAUSE;
+        }
+        query += SQL_ORDER_CLAUSE;
+        if (searchParameters.limit() != null) {
+            query += SQL_LIMIT_CLAUSE;
+        }
+        params
+                .addValue("startDate", searchParameters.startDate())
+                .addValue("endDate", searchParameters.endDate())
+                .addValue("limit", searchParameters.limit())
+                .addValue("afterStartDate", cursor != null ? cursor.sortDate() : null)
+                .addValue("afterId", cursor != null ? cursor.id() : null);
 
         return jdbcNamed.query(query, params, this::mapRow);
     }
@@ -78,10 +165,9 @@ public class TournamentJdbcDao implements TournamentDao {
     @Override
     public Tournament create(TournamentCreateDto tournament) throws NotFoundException {
         LOG.trace("create({})", tournament);
-        String sql = "INSERT INTO " + TABLE_NAME + TABLE_COLUMNS + " VALUES (?, ?, ?)";
         GeneratedKeyHolder generatedKeyHolder = new GeneratedKeyHolder();
         jdbcTemplate.update(conn -> {
-            PreparedStatement preparedStatement = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            PreparedStatement preparedStatement = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS);
 
             preparedStatement.setString(1, tournament.name());
             preparedStatement.setObject(2, tournament.startDate());
@@ -94,6 +180,7 @@ public class TournamentJdbcDao implements TournamentDao {
         if (tournamentId == 0) {
             throw new FatalException("Error getting newly created tournament ID");
         }
+        AfterCommit.run(() -> nameIndex.put(tournamentId, tournament.name()));
 
         createTournamentStanding(tournament, tournamentId);
 
@@ -102,8 +189,7 @@ public class TournamentJdbcDao implements TournamentDao {
 
     public void createTournamentStanding(TournamentCreateDto tournament, Long tournamentId) {
         LOG.trace("createTournamentStanding({}, {})", tournament, tournamentId);
-        String sql = "INSERT INTO " + STANDING_TABLE_NAME + " (tournament_id, horse_id) VALUES (?, ?)";
-        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+        jdbcTemplate.batchUpdate(SQL_INSERT_STANDING, new BatchPreparedStatementSetter() {
             @Override
             public void setValues(PreparedStatement ps, int i) throws SQLException {
                 ps.setLong(1, tournamentId);
@@ -118,6 +204,50 @@ public class TournamentJdbcDao implements TournamentDao {
     }
 
     @Override
+    @Transactional(rollbackFor = {NotFoundException.class, StaleVersionException.class})
+    public long updateStandings(long tournamentId, Long expectedVersion, List<TournamentDetailParticipantDto> changed)
+            throws NotFoundException, StaleVersionException {
+        LOG.trace("updateStandings({}, {}, {})", tournamentId, expectedVersion, changed);
+        // the tournament is touched first, a stale version is found before anything is written
+        long version;
+        if (expectedVersion == null) {
+            if (jdbcTemplate.update(SQL_TOUCH_TOURNAMENT, tournamentId) == 0) {
+                throw new NotFoundException("No tournament with ID %d found".formatted(tournamentId));
+            }
+            // the row is locked by the update, no other write can have raised the version since
+            version = getVersion(tournamentId);
+        } else if (jdbcTemplate.update(SQL_TOUCH_TOURNAMENT_OF_VERSION, tournamentId, expectedVersion) == 0) {
+            throw new StaleVersionException("Tournament %d is at version %d, not %d"
+                    .formatted(tournamentId, getVersion(tournamentId), expectedVersion));
+        } else {
+            version = expectedVersion + 1;
+        }
+        int[] updated = jdbcTemplate.batchUpdate(SQL_UPDATE_STANDING, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TournamentDetailParticipantDto participant = changed.get(i);
+                ps.setObject(1, participant.entryNumber(), Types.INTEGER);
+                ps.setObject(2, participant.roundReached(), Types.INTEGER);
+                ps.setLong(3, tournamentId);
+                ps.setLong(4, participant.horseId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return changed.size();
+            }
+        });
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new NotFoundException("No tournament standing with tournament ID %d and horse ID %d found"
+                        .formatted(tournamentId, changed.get(i).horseId()));
+            }
+        }
+        return version;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Tournament getById(long tournamentId) throws NotFoundException {
         LOG.trace("getById({})", tournamentId);
 
@@ -132,10 +262,21 @@ public class TournamentJdbcDao implements TournamentDao {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public long getVersion(long tournamentId) throws NotFoundException {
+        LOG.trace("getVersion({})", tournamentId);
+        List<Long> versions = jdbcTemplate.queryForList(SQL_SELECT_VERSION, Long.class, tournamentId);
+        if (versions.isEmpty()) {
+            throw new NotFoundException("No tournament with ID %d found".formatted(tournamentId));
+        }
+        return versions.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Standing getStandingById(long tournamentId, long horseId) throws NotFoundException {
         LOG.trace("getStandingById({}, {})", tournamentId, horseId);
-        String query = "SELECT * FROM " + STANDING_TABLE_NAME + " WHERE tournament_id = ? AND horse_id = ?";
-        List<Standing> standings = jdbcTemplate.query(query, new Object[]{tournamentId, horseId}, this::mapRowStanding);
+        List<Standing> standings = jdbcTemplate.query(SQL_SELECT_STANDING_BY_ID, new Object[]{tournamentId, horseId}, this::mapRowStanding);
 
         if (standings.isEmpty()) {
             throw new NotFoundException("No tournament standing with tournament ID %d and horse ID %d found".formatted(tournamentId, horseId));
@@ -148,10 +289,10 @@ public class TournamentJdbcDao implements TournamentDao {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Long> getStandingIds(long tournamentId) throws NotFoundException {
         LOG.trace("getStandingIds({})", tournamentId);
-        String query = "SELECT * FROM " + STANDING_TABLE_NAME + " WHERE tournament_id = ?";
-        List<Long> resultIds = jdbcTemplate.query(query, new Object[]{tournamentId}, (rs, rowNum) -> rs.getLong("horse_id"));
+        List<Long> resultIds = jdbcTemplate.query(SQL_SELECT_STANDING_IDS, new Object[]{tournamentId}, (rs, rowNum) -> rs.getLong("horse_id"));
 
         if (resultIds.isEmpty()) {
             throw new NotFoundException("No tournament standings with tournament ID %d found".formatted(tournamentId));
@@ -161,12 +302,40 @@ public class TournamentJdbcDao implements TournamentDao {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Long> getAllTournamentIdsByHorseId(long horseId) {
         LOG.trace("getAllTournamentIdsByHorseId({})", horseId);
-        String query = "SELECT tournament_id FROM " + STANDING_TABLE_NAME + " WHERE horse_id = ?";
-        return jdbcTemplate.query(query, new Object[]{horseId}, (rs, rowNum) -> rs.getLong("tournament_id"));
+        return jdbcTemplate.query(SQL_SELECT_TOURNAMENT_IDS_BY_HORSE_ID, new Object[]{horseId}, (rs, rowNum) -> rs.getLong("tournament_id"));
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TournamentDetailParticipantDto> getParticipantsByTournamentId(long tournamentId) throws NotFoundException {
+        LOG.trace("getParticipantsByTournamentId({})", tournamentId);
+        List<TournamentDetailParticipantDto> participants =
+                jdbcTemplate.query(SQL_SELECT_PARTICIPANTS_BY_TOURNAMENT_ID, this::mapRowParticipant, tournamentId);
+
+        if (participants.isEmpty()) {
+            throw new NotFoundException("No tournament standings with tournament ID %d found".formatted(tournamentId));
+        }
+
+        return participants;
     }
 
+    @Override
+    public Stream<TournamentDetailParticipantDto> streamResultsByTournamentId(long tournamentId) {
+        LOG.trace("streamResultsByTournamentId({})", tournamentId);
+        return jdbcTemplate.queryForStream(SQL_SELECT_RESULTS_BY_TOURNAMENT_ID, this::mapRowParticipant, tournamentId);
+    }
+
+
+    private void loadAllNames(TrigramIndex.Rows names) {
+        LOG.trace("loadAllNames()");
+        primaryReads.run(() -> jdbcTemplate.query(SQL_SELECT_ALL_NAMES, rs -> {
+            names.add(rs.getLong("id"), rs.getString("name"));
+        }));
+    }
 
     private Tournament mapRow(ResultSet result, int rownum) throws SQLException {
         LOG.trace("mapRow({}, {})", result, rownum);
@@ -175,6 +344,7 @@ public class TournamentJdbcDao implements TournamentDao {
                 .setName(result.getString("name"))
                 .setStartDate(result.getDate("start_date").toLocalDate())
                 .setEndDate(result.getDate("end_date").toLocalDate())
+                .setVersion(result.getLong("version"))
                 ;
     }
 
@@ -186,4 +356,15 @@ public class TournamentJdbcDao implements TournamentDao {
                 .setEntryNumber(result.getLong("entry_number"))
                 .setRoundReached(result.getLong("round_reached"));
     }
+
+    private TournamentDetailParticipantDto mapRowParticipant(ResultSet result, int rowNum) throws SQLException {
+        LOG.trace("mapRowParticipant({}, {})", result, rowNum);
+        return new TournamentDetailParticipantDto(
+                result.getLong("horse_id"),
+                result.getString("name"),
+                result.getDate("date_of_birth").toLocalDate(),
+                result.getLong("entry_number"),
+                result.getLong("round_reached")
+        );
+    }
 }
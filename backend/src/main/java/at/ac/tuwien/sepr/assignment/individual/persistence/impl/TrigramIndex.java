@@ -0,0 +1,355 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of the trigrams (substrings of three characters) of a name column.
+ * It answers the case-insensitive substring search, that the DAOs otherwise do with {@code UPPER(name) LIKE UPPER('%'||:name||'%')}
+ * and that no index of the database can serve.
+ * The IDs of the rows containing a search string are found by intersecting the posting lists of its trigrams.
+ *
+ * <p>The index is built from the database on first use, into sorted arrays of primitives, without blocking lookups.
+ * The DAO owning it passes every committed write; rows changed since the build are kept aside and searched by their new text,
+ * until there are so many of them, that the index is built anew.
+ * Data written past the DAO, like the test data scripts, has to be followed by {@link #invalidate()}.
+ */
+public class TrigramIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final int GRAM_LENGTH = 3;
+
+  /**
+   * Searches matching more rows than this are left to the database; an {@code IN} list of that size is no gain over a scan.
+   */
+  static final int MAX_CANDIDATES = 1000;
+
+  /**
+   * The index is built anew, once more rows than this, or than a sixteenth of the rows, changed since it was built.
+   */
+  static final int MIN_CHANGES_BEFORE_REBUILD = 10_000;
+
+  private final String name;
+  private final Consumer<Rows> loader;
+  private final ReentrantLock loading = new ReentrantLock();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // guarded by lock
+  private Snapshot snapshot;
+  // the new text of the rows changed since the snapshot was built, null for removed rows
+  private Map<Long, String> changes = new HashMap<>();
+  // the rows changed while the snapshot is (re)built, they might be missing from what the loader read
+  private Map<Long, String> changesWhileLoading;
+  private long generation;
+
+  /**
+   * The rows of the index as read from the database: their IDs, and their texts one after the other in {@code chars},
+   * each ending before the offset in {@code ends} at the same position.
+   * A posting list holds the positions of the rows containing a trigram, in ascending order.
+   */
+  private record Snapshot(long[] ids, char[] chars, int[] ends, Map<Long, int[]> postings) {
+    int size() {
+      return ids.length;
+    }
+
+    boolean contains(int position, String needle) {
+      int start = position == 0 ? 0 : ends[position - 1];
+      int last = ends[position] - needle.length();
+      for (int from = start; from <= last; from++) {
+        int i = 0;
+        while (i < needle.length() && chars[from + i] == needle.charAt(i)) {
+          i++;
+        }
+        if (i == needle.length()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Collects the rows given by the loader, whenever the index is (re)built.
+   */
+  public static final class Rows {
+    private long[] ids = new long[1024];
+    private int[] ends = new int[1024];
+    private char[] chars = new char[8 * 1024];
+    private int size;
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    private Rows() {
+    }
+
+    /**
+     * Add a row to the index being built.
+     *
+     * @param id the ID of the row
+     * @param text the indexed text of the row, rows without text are left out
+     */
+    public void add(long id, String text) {
+      if (text == null) {
+        return;
+      }
+      String normalized = normalize(text);
+      int start = size == 0 ? 0 : ends[size - 1];
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, 2 * size);
+        ends = Arrays.copyOf(ends, 2 * size);
+      }
+      if (start + normalized.length() > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(2 * chars.length, start + normalized.length()));
+      }
+      normalized.getChars(0, normalized.length(), chars, start);
+      ids[size] = id;
+      ends[size] = start + normalized.length();
+      for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+        // a trigram repeated within the text is added once, as the positions only grow
+        postings.computeIfAbsent(gram(normalized, i), g -> new Postings()).addOnce(size);
+      }
+      size++;
+    }
+
+    private Snapshot build() {
+      Map<Long, int[]> lists = new HashMap<>(postings.size() * 4 / 3 + 1);
+      postings.forEach((gram, list) -> lists.put(gram, Arrays.copyOf(list.positions, list.size)));
+      int length = size == 0 ? 0 : ends[size - 1];
+      return new Snapshot(Arrays.copyOf(ids, size), Arrays.copyOf(chars, length), Arrays.copyOf(ends, size), lists);
+    }
+  }
+
+  private static final class Postings {
+    private int[] positions = new int[4];
+    private int size;
+
+    void addOnce(int position) {
+      if (size > 0 && positions[size - 1] == position) {
+        return;
+      }
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, 2 * size);
+      }
+      positions[size++] = position;
+    }
+  }
+
+  /**
+   * Create an empty index.
+   *
+   * @param name the name of the indexed column, for logging
+   * @param loader passes the text of every row to {@link Rows#add(long, String)}, whenever the index is (re)built
+   */
+  public TrigramIndex(String name, Consumer<Rows> loader) {
+    this.name = name;
+    this.loader = loader;
+  }
+
+  /**
+   * Find the IDs of all rows, whose text contains {@code substring}, ignoring case.
+   * The index can not answer every search: strings shorter than three characters have no trigram,
+   * and {@code %} or {@code _} are wildcards to {@code LIKE}, but would be taken literally here.
+   * Searches matching too many rows are not answered either.
+   *
+   * @param substring the string to search for
+   * @return the IDs of the matching rows, or nothing if the search has to be done by the database
+   */
+  public Optional<Set<Long>> lookup(String substring) {
+    LOG.trace("lookup({})", substring);
+    if (substring.length() < GRAM_LENGTH || substring.indexOf('%') >= 0 || substring.indexOf('_') >= 0) {
+      return Optional.empty();
+    }
+    ensureLoaded();
+    String needle = normalize(substring);
+    lock.readLock().lock();
+    try {
+      if (snapshot == null) {
+        // invalidated while it was loaded
+        return Optional.empty();
+      }
+      Set<Long> matches = new HashSet<>();
+      for (var change : changes.entrySet()) {
+        if (change.getValue() != null && change.getValue().contains(needle)) {
+          if (matches.size() == MAX_CANDIDATES) {
+            return Optional.empty();
+          }
+          matches.add(change.getKey());
+        }
+      }
+      int[][] lists = new int[needle.length() - GRAM_LENGTH + 1][];
+      for (int i = 0; i < lists.length; i++) {
+        lists[i] = snapshot.postings().get(gram(needle, i));
+        if (lists[i] == null) {
+          return Optional.of(matches);
+        }
+      }
+      // walk the shortest list, the others are only probed
+      Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+      for (int position : lists[0]) {
+        long id = snapshot.ids()[position];
+        if (containedInAll(position, lists) && !changes.containsKey(id) && snapshot.contains(position, needle)) {
+          if (matches.size() == MAX_CANDIDATES) {
+            return Optional.empty();
+          }
+          matches.add(id);
+        }
+      }
+      return Optional.of(matches);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Add a row to the index, or replace the text of a row already in it.
+   * Only committed writes may be passed, a rolled back one would stay in the index.
+   *
+   * @param id the ID of the row
+   * @param text the indexed text of the row
+   */
+  public void put(long id, String text) {
+    LOG.trace("put({}, {})", id, text);
+    change(id, text != null ? normalize(text) : null);
+  }
+
+  /**
+   * Remove a row from the index.
+   * Only committed deletes may be passed.
+   *
+   * @param id the ID of the row
+   */
+  public void remove(long id) {
+    LOG.trace("remove({})", id);
+    change(id, null);
+  }
+
+  /**
+   * Drop the content of the index, it is loaded again on the next lookup.
+   */
+  public void invalidate() {
+    LOG.trace("invalidate()");
+    lock.writeLock().lock();
+    try {
+      generation++;
+      snapshot = null;
+      changes = new HashMap<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void change(long id, String normalized) {
+    lock.writeLock().lock();
+    try {
+      // before the first load, the loader will read the row from the database
+      if (snapshot != null) {
+        changes.put(id, normalized);
+      }
+      if (changesWhileLoading != null) {
+        changesWhileLoading.put(id, normalized);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void ensureLoaded() {
+    boolean rebuild;
+    lock.readLock().lock();
+    try {
+      if (snapshot == null) {
+        rebuild = false;
+      } else if (changes.size() > Math.max(MIN_CHANGES_BEFORE_REBUILD, snapshot.size() / 16)) {
+        rebuild = true;
+      } else {
+        return;
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (rebuild) {
+      // the current snapshot still answers correctly, lookups do not wait for the rebuild
+      if (loading.tryLock()) {
+        try {
+          load();
+        } finally {
+          loading.unlock();
+        }
+      }
+      return;
+    }
+    loading.lock();
+    try {
+      lock.readLock().lock();
+      try {
+        if (snapshot != null) {
+          return;
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+      load();
+    } finally {
+      loading.unlock();
+    }
+  }
+
+  private void load() {
+    long started;
+    lock.writeLock().lock();
+    try {
+      started = generation;
+      changesWhileLoading = new HashMap<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    Snapshot built = null;
+    try {
+      var rows = new Rows();
+      loader.accept(rows);
+      built = rows.build();
+    } finally {
+      lock.writeLock().lock();
+      try {
+        if (built != null && generation == started) {
+          snapshot = built;
+          changes = changesWhileLoading;
+          LOG.debug("Loaded trigram index of {} with {} rows and {} trigrams", name, built.size(), built.postings().size());
+        }
+        changesWhileLoading = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  private static boolean containedInAll(int position, int[][] lists) {
+    for (int i = 1; i < lists.length; i++) {
+      if (Arrays.binarySearch(lists[i], position) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String normalize(String text) {
+    return text.toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * The trigram of {@code text} starting at {@code i}, packed into a long of three 16 bit characters.
+   */
+  private static long gram(String text, int i) {
+    return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+  }
+}
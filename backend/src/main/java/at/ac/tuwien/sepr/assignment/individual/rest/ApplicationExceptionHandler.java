@@ -3,11 +3,13 @@ package at.ac.tuwien.sepr.assignment.individual.rest;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.StaleVersionException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import java.lang.invoke.MethodHandles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,9 +25,12 @@ public class ApplicationExceptionHandler {
   @ExceptionHandler
   @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
   @ResponseBody
-  public ValidationErrorRestDto handleValidationException(ValidationException e) {
+  public ResponseEntity<ValidationErrorRestDto> handleValidationException(ValidationException e) {
     LOG.warn("Terminating request processing with status 422 due to {}: {}", e.getClass().getSimpleName(), e.getMessage());
-    return new ValidationErrorRestDto(e.summary(), e.errors());
+    // always JSON, also for requests that only accept another format, like the streamed horse search
+    return ResponseEntity.unprocessableEntity()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ValidationErrorRestDto(e.summary(), e.errors()));
   }
 
   @ExceptionHandler
@@ -52,6 +57,14 @@ public class ApplicationExceptionHandler {
     return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
   }
 
+  @ExceptionHandler
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  @ResponseBody
+  public ResponseEntity<Object> handleStaleVersionException(StaleVersionException e) {
+    LOG.warn("Terminating request processing with status 412 due to {}: {}", e.getClass().getSimpleName(), e.getMessage());
+    return new ResponseEntity<>(e.getMessage(), HttpStatus.PRECONDITION_FAILED);
+  }
+
   @ExceptionHandler
   @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
   @ResponseBody
@@ -1,13 +1,16 @@
 package at.ac.tuwien.sepr.assignment.individual.rest;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedCacheStatisticsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.service.BreedService;
+import at.ac.tuwien.sepr.assignment.individual.service.CachingBreedService;
 import java.lang.invoke.MethodHandles;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -18,9 +21,11 @@ public class BreedEndpoint {
   public static final String BASE_PATH = "/breeds";
 
   private final BreedService service;
+  private final CachingBreedService cache;
 
-  public BreedEndpoint(BreedService service) {
+  public BreedEndpoint(BreedService service, CachingBreedService cache) {
     this.service = service;
+    this.cache = cache;
   }
 
   @GetMapping
@@ -29,4 +34,17 @@ public class BreedEndpoint {
     LOG.debug("Request Params: {}", searchParams);
     return service.search(searchParams);
   }
+
+  @GetMapping("cache")
+  public BreedCacheStatisticsDto cacheStatistics() {
+    LOG.info("GET " + BASE_PATH + "/cache");
+    return cache.statistics();
+  }
+
+  @PostMapping("cache/refresh")
+  public BreedCacheStatisticsDto refreshCache() {
+    LOG.info("POST " + BASE_PATH + "/cache/refresh");
+    cache.refresh();
+    return cache.statistics();
+  }
 }
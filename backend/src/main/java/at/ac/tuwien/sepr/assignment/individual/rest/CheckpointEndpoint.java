@@ -0,0 +1,39 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.CheckpointStatusDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DatabaseCheckpointer;
+import java.lang.invoke.MethodHandles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Profile("inmemory")
+@RequestMapping(path = CheckpointEndpoint.BASE_PATH)
+public class CheckpointEndpoint {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  public static final String BASE_PATH = "/admin/checkpoint";
+
+  private final DatabaseCheckpointer checkpointer;
+
+  public CheckpointEndpoint(DatabaseCheckpointer checkpointer) {
+    this.checkpointer = checkpointer;
+  }
+
+  @GetMapping
+  public CheckpointStatusDto status() {
+    LOG.info("GET " + BASE_PATH);
+    return checkpointer.status();
+  }
+
+  @PostMapping
+  public CheckpointStatusDto checkpoint() {
+    LOG.info("POST " + BASE_PATH);
+    checkpointer.checkpoint();
+    return checkpointer.status();
+  }
+}
@@ -0,0 +1,80 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes a stream of rows as CSV file download, while the rows are read.
+ * Rows are only buffered by the writer and the response, so the memory used does not depend on the number of rows.
+ */
+final class CsvExport {
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(HorseEndpoint.TEXT_CSV_VALUE);
+  private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+  // flushing is left to the response buffer, and the response stream is closed by the servlet container
+  private static final ObjectWriter CSV_WRITER = new CsvMapper().writer()
+      .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+      .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+  private CsvExport() {
+  }
+
+  /**
+   * Create the response for a CSV download.
+   *
+   * @param fileName the name of the file to download, without extension
+   * @param gzip whether to compress the file; it is then sent as {@code .csv.gz}
+   * @param columns the names of the columns, written as header line
+   * @param rows the rows to write, closed after writing
+   * @param toColumns gives the values of a row, in the order of {@code columns}
+   * @param <T> the type of the rows
+   * @return the response writing the file
+   */
+  static <T> ResponseEntity<StreamingResponseBody> download(String fileName, boolean gzip, List<String> columns,
+                                                            Stream<T> rows, Function<T, Object[]> toColumns) {
+    var schema = CsvSchema.builder().addColumns(columns, CsvSchema.ColumnType.STRING).build().withHeader();
+    StreamingResponseBody body = out -> {
+      OutputStream target = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : out;
+      try (rows; var writer = CSV_WRITER.with(schema).writeValues(target)) {
+        for (var iterator = rows.iterator(); iterator.hasNext(); ) {
+          writer.write(text(toColumns.apply(iterator.next())));
+        }
+      }
+      if (target instanceof GZIPOutputStream gzipStream) {
+        gzipStream.finish();
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(gzip ? APPLICATION_GZIP : TEXT_CSV)
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename(fileName + (gzip ? ".csv.gz" : ".csv"))
+            .build()
+            .toString())
+        .body(body);
+  }
+
+  /**
+   * Dates, enums and numbers are written as given by {@code toString()}, in the same form they are read by the import.
+   */
+  private static String[] text(Object[] values) {
+    String[] text = new String[values.length];
+    for (int i = 0; i < values.length; i++) {
+      text[i] = values[i] != null ? values[i].toString() : null;
+    }
+    return text;
+  }
+}
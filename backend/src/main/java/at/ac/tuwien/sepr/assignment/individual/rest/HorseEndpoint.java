@@ -1,44 +1,172 @@
 package at.ac.tuwien.sepr.assignment.individual.rest;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.LeaderboardEntryDto;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.service.HorseImportService;
 import at.ac.tuwien.sepr.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepr.assignment.individual.service.LeaderboardService;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.invoke.MethodHandles;
-import java.util.stream.Stream;
+import java.util.List;
+import java.util.Locale;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping(path = HorseEndpoint.BASE_PATH)
 public class HorseEndpoint {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   static final String BASE_PATH = "/horses";
+  static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+  static final String TEXT_CSV_VALUE = "text/csv";
+  /**
+   * Streaming all horses reads the breeds, and one chunk of {@code app.horses.stream.chunk-size} horses per statement;
+   * this allows for a catalogue of 100 chunks.
+   */
+  private static final int STREAM_QUERY_BUDGET = 101;
+  private static final List<String> EXPORT_COLUMNS = List.of("id", "name", "sex", "dateOfBirth", "height", "weight", "breedId", "breed");
 
   private final HorseService service;
+  private final HorseImportService importService;
+  private final LeaderboardService leaderboardService;
+  private final Paging paging;
+  private final ObjectWriter lineWriter;
 
-  public HorseEndpoint(HorseService service) {
+  public HorseEndpoint(HorseService service, HorseImportService importService, LeaderboardService leaderboardService,
+                       Paging paging, ObjectMapper objectMapper) {
     this.service = service;
+    this.importService = importService;
+    this.leaderboardService = leaderboardService;
+    this.paging = paging;
+    // flushing is left to the response buffer, flushing every line would send a chunk per horse;
+    // the response stream is closed by the servlet container, not by the generator
+    this.lineWriter = objectMapper.writerFor(HorseListDto.class)
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
   }
 
+  /**
+   * Search horses, sorted by ID, one page at a time, see {@link Paging}.
+   * If the page is full, the cursor of the next page is returned in the {@value Paging#NEXT_CURSOR_HEADER} header.
+   */
   @GetMapping
-  public Stream<HorseListDto> searchHorses(HorseSearchDto searchParameters) throws ValidationException {
+  @QueryBudget(2)
+  public ResponseEntity<List<HorseListDto>> searchHorses(HorseSearchDto searchParameters) throws ValidationException {
     LOG.info("GET " + BASE_PATH);
     LOG.debug("request parameters: {}", searchParameters);
-    return service.search(searchParameters);
+    var page = searchParameters.withLimit(paging.size(searchParameters.limit()));
+    List<HorseListDto> horses = service.search(page).toList();
+
+    var response = ResponseEntity.ok();
+    if (!horses.isEmpty() && horses.size() == page.limit()) {
+      response.header(Paging.NEXT_CURSOR_HEADER, PageCursor.afterId(horses.get(horses.size() - 1).id()).encode());
+    }
+    return response.body(horses);
+  }
+
+  /**
+   * Search horses like {@link #searchHorses(HorseSearchDto)}, but write one horse per line,
+   * while the horses are read from the database. The result is not paged, unless a limit is given.
+   * The memory used does not depend on the size of the result, which allows to export all horses at once.
+   */
+  @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+  @QueryBudget(STREAM_QUERY_BUDGET)
+  public ResponseEntity<StreamingResponseBody> streamHorses(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + " as " + APPLICATION_NDJSON_VALUE);
+    LOG.debug("request parameters: {}", searchParameters);
+    // the search is validated here, so that invalid parameters are still answered with an error status;
+    // the horses are only read while the body is written
+    var horses = service.streamSearch(searchParameters);
+    StreamingResponseBody body = out -> {
+      try (horses; var generator = lineWriter.createGenerator(out)) {
+        generator.setRootValueSeparator(null);
+        var first = true;
+        for (var iterator = horses.iterator(); iterator.hasNext(); ) {
+          lineWriter.writeValue(generator, iterator.next());
+          generator.writeRaw('\n');
+          if (first) {
+            // send the first line right away, the rest is sent whenever the response buffer is full
+            generator.flush();
+            first = false;
+          }
+        }
+      }
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+        .body(body);
+  }
+
+  /**
+   * Export the horses matching the search parameters as CSV file, sorted by ID.
+   * The columns are those read by the CSV import, with ID and breed name added.
+   * The file is written while the horses are read from the database, so that all horses can be exported at once.
+   */
+  @GetMapping("export")
+  @QueryBudget(STREAM_QUERY_BUDGET)
+  public ResponseEntity<StreamingResponseBody> export(HorseSearchDto searchParameters,
+                                                      @RequestParam(defaultValue = "false") boolean gzip) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + "/export");
+    LOG.debug("request parameters: {}, gzip: {}", searchParameters, gzip);
+    var horses = service.streamDetails(searchParameters);
+    return CsvExport.download("horses", gzip, EXPORT_COLUMNS, horses, horse -> new Object[] {
+        horse.id(),
+        horse.name(),
+        horse.sex(),
+        horse.dateOfBirth(),
+        horse.height(),
+        horse.weight(),
+        horse.breed() != null ? horse.breed().id() : null,
+        horse.breed() != null ? horse.breed().name() : null
+    });
+  }
+
+  /**
+   * Get the horses with the most points from the tournaments of the last months, best first.
+   * The limit is capped like the page size of the searches.
+   */
+  @GetMapping("leaderboard")
+  @QueryBudget(2)
+  public List<LeaderboardEntryDto> leaderboard(@RequestParam(defaultValue = "10") int limit) throws ValidationException {
+    LOG.info("GET " + BASE_PATH + "/leaderboard");
+    LOG.debug("limit: {}", limit);
+    return leaderboardService.top(paging.size(limit));
   }
 
+  /**
+   * Get the details of a horse.
+   * The ETag is the version of the horse; if it matches {@code If-None-Match}, 304 Not Modified is returned instead.
+   */
   @GetMapping("{id}")
-  public HorseDetailDto getById(@PathVariable long id) {
+  public HorseDetailDto getById(@PathVariable long id, WebRequest request) {
     LOG.info("GET " + BASE_PATH + "/{}", id);
     try {
+      if (request.checkNotModified(String.valueOf(service.getVersion(id)))) {
+        return null;
+      }
       return service.getById(id);
     } catch (NotFoundException e) {
       HttpStatus status = HttpStatus.NOT_FOUND;
@@ -47,6 +175,15 @@ public class HorseEndpoint {
     }
   }
 
+  /**
+   * Get the tournaments a horse entered, latest first, with the counters over its whole career.
+   */
+  @GetMapping("{id}/career")
+  @QueryBudget(3)
+  public HorseCareerDto getCareer(@PathVariable long id) throws NotFoundException {
+    LOG.info("GET " + BASE_PATH + "/{}/career", id);
+    return service.getCareer(id);
+  }
 
   @PutMapping("{id}")
   public HorseDetailDto update(@PathVariable long id, @RequestBody HorseDetailDto toUpdate) throws ValidationException, ConflictException {
@@ -70,6 +207,40 @@ public class HorseEndpoint {
     return service.create(horseCreateDto);
   }
 
+  /**
+   * Create many horses at once, from a JSON array of horses to create.
+   * Each row is validated on its own; the response reports for every row the ID of the created horse or why it was rejected.
+   */
+  @PostMapping(path = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public HorseImportResultDto bulkCreateFromJson(InputStream body) throws IOException {
+    LOG.info("POST " + BASE_PATH + "/bulk as JSON");
+    return importService.importHorses(body, ImportFormat.JSON);
+  }
+
+  /**
+   * Create many horses at once, from CSV with the header {@code name,sex,dateOfBirth,height,weight,breedId}.
+   */
+  @PostMapping(path = "bulk", consumes = TEXT_CSV_VALUE)
+  public HorseImportResultDto bulkCreateFromCsv(InputStream body) throws IOException {
+    LOG.info("POST " + BASE_PATH + "/bulk as CSV");
+    return importService.importHorses(body, ImportFormat.CSV);
+  }
+
+  /**
+   * Create many horses at once, from an uploaded file.
+   * Files named {@code *.csv} are read as CSV, all others as JSON.
+   */
+  @PostMapping(path = "bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public HorseImportResultDto bulkCreateFromFile(@RequestParam("file") MultipartFile file) throws IOException {
+    LOG.info("POST " + BASE_PATH + "/bulk with file {}", file.getOriginalFilename());
+    var format = file.getOriginalFilename() != null && file.getOriginalFilename().toLowerCase(Locale.ROOT).endsWith(".csv")
+        ? ImportFormat.CSV
+        : ImportFormat.JSON;
+    try (var in = file.getInputStream()) {
+      return importService.importHorses(in, format);
+    }
+  }
+
   @ResponseStatus(HttpStatus.OK)
   @DeleteMapping("{id}")
   public void delete(@PathVariable long id) {
@@ -0,0 +1,29 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import at.ac.tuwien.sepr.assignment.individual.config.RequestMetrics;
+import java.lang.invoke.MethodHandles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = MetricsEndpoint.BASE_PATH)
+public class MetricsEndpoint {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  public static final String BASE_PATH = "/metrics";
+  public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final RequestMetrics metrics;
+
+  public MetricsEndpoint(RequestMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @GetMapping(produces = PROMETHEUS_TEXT)
+  public String scrape() {
+    LOG.debug("GET " + BASE_PATH);
+    return metrics.toPrometheusText();
+  }
+}
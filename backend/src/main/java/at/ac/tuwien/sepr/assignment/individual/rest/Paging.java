@@ -0,0 +1,42 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The paging of the search endpoints.
+ * A search answers one page at a time, so that no request reads the whole table;
+ * the cursor of the next page is returned in the {@value #NEXT_CURSOR_HEADER} header, if the page is full.
+ */
+@Component
+public class Paging {
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private final int defaultSize;
+  private final int maxSize;
+
+  public Paging(@Value("${app.search.page-size:100}") int defaultSize,
+                @Value("${app.search.max-page-size:1000}") int maxSize) {
+    this.defaultSize = defaultSize;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * The number of results of the requested page.
+   *
+   * @param limit the limit requested by the client, or {@code null} if none is given
+   * @return the limit, or the default page size if none is given
+   * @throws ValidationException if the limit is larger than the largest page
+   */
+  int size(Integer limit) throws ValidationException {
+    if (limit == null) {
+      return defaultSize;
+    }
+    if (limit > maxSize) {
+      throw new ValidationException("Validation of page size failed", List.of("Limit must be at most %d".formatted(maxSize)));
+    }
+    return limit;
+  }
+}
@@ -0,0 +1,19 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The number of SQL statements a request to the annotated endpoint method is expected to send at most.
+ * A request sending more is logged as a warning, with its correlation ID; it is not failed.
+ * Endpoint methods without this annotation have the budget {@code app.queries.default-budget}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+  int value();
+}
@@ -0,0 +1,30 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.QueryStatisticsDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.QueryStatistics;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = QueryStatisticsEndpoint.BASE_PATH)
+public class QueryStatisticsEndpoint {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  public static final String BASE_PATH = "/admin/queries";
+
+  private final QueryStatistics statistics;
+
+  public QueryStatisticsEndpoint(QueryStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @GetMapping
+  public List<QueryStatisticsDto> statistics() {
+    LOG.info("GET " + BASE_PATH);
+    return statistics.snapshot();
+  }
+}
@@ -4,15 +4,21 @@ package at.ac.tuwien.sepr.assignment.individual.rest;
 import at.ac.tuwien.sepr.assignment.individual.dto.*;
 import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.StaleVersionException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import at.ac.tuwien.sepr.assignment.individual.service.TournamentService;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.lang.invoke.MethodHandles;
-import java.util.stream.Stream;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = TournamentEndpoint.BASE_PATH)
@@ -22,17 +28,34 @@ public class TournamentEndpoint {
 
     static final String BASE_PATH = "/tournaments";
 
+    private static final List<String> RESULT_EXPORT_COLUMNS = List.of("horseId", "name", "dateOfBirth", "entryNumber", "roundReached");
+
     private final TournamentService service;
 
-    public TournamentEndpoint(TournamentService service) {
+    private final Paging paging;
+
+    public TournamentEndpoint(TournamentService service, Paging paging) {
         this.service = service;
+        this.paging = paging;
     }
 
+    /**
+     * Search tournaments, sorted by start date (newest first), one page at a time, see {@link Paging}.
+     * If the page is full, the cursor of the next page is returned in the {@value Paging#NEXT_CURSOR_HEADER} header.
+     */
     @GetMapping
-    public Stream<TournamentListDto> searchTournament(TournamentSearchDto searchParameters) {
+    public ResponseEntity<List<TournamentListDto>> searchTournament(TournamentSearchDto searchParameters) throws ValidationException {
         LOG.info("GET " + BASE_PATH);
         LOG.debug("request parameters: {}", searchParameters);
-        return service.search(searchParameters);
+        var page = searchParameters.withLimit(paging.size(searchParameters.limit()));
+        List<TournamentListDto> tournaments = service.search(page).toList();
+
+        var response = ResponseEntity.ok();
+        if (!tournaments.isEmpty() && tournaments.size() == page.limit()) {
+            var last = tournaments.get(tournaments.size() - 1);
+            response.header(Paging.NEXT_CURSOR_HEADER, PageCursor.after(last.startDate(), last.id()).encode());
+        }
+        return response.body(tournaments);
     }
 
     @ResponseStatus(HttpStatus.CREATED)
@@ -43,15 +66,88 @@ public class TournamentEndpoint {
         return service.create(tournamentCreateDto);
     }
 
+    /**
+     * Get the details of a tournament.
+     * The ETag is the version of the tournament; if it matches {@code If-None-Match}, 304 Not Modified is returned
+     * without reading the participants.
+     */
     @GetMapping("{id}")
-    public TournamentDetailDto getTournamentById(@PathVariable long id) throws NotFoundException, ValidationException {
+    @QueryBudget(3)
+    public TournamentDetailDto getTournamentById(@PathVariable long id, WebRequest request) throws NotFoundException, ValidationException {
         LOG.info("GET " + BASE_PATH + "/{}", id);
+        if (request.checkNotModified(String.valueOf(service.getVersion(id)))) {
+            return null;
+        }
         return service.getTournamentDetailById(id);
     }
 
+    /**
+     * Get the standings of a tournament, with the same ETag handling as {@link #getTournamentById(long, WebRequest)}.
+     */
     @GetMapping("{id}/standings")
-    public TournamentStandingsDto getTournamentStandingById(@PathVariable long id) throws NotFoundException, ValidationException {
-        LOG.info("GET " + BASE_PATH + "/{}", id);
-        return service.getTournamentStandingById(id);
+    @QueryBudget(4)
+    public TournamentStandingsDto getTournamentStandingById(@PathVariable long id, WebRequest request) throws NotFoundException, ValidationException {
+        LOG.info("GET " + BASE_PATH + "/{}/standings", id);
+        long version = service.getVersion(id);
+        if (request.checkNotModified(String.valueOf(version))) {
+            return null;
+        }
+        return service.getTournamentStandingById(id, version);
+    }
+
+    /**
+     * Replace the standings of a tournament with the bracket in the tree of the body; only changed rows are written.
+     * With an {@code If-Match} header, that does not match the current version of the tournament,
+     * nothing is written and 412 Precondition Failed is returned.
+     * The ETag of the response is the version after the update.
+     */
+    @PutMapping("{id}/standings")
+    public ResponseEntity<TournamentStandingsDto> updateTournamentStandings(@PathVariable long id, @RequestBody TournamentStandingsDto standings,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws NotFoundException, ValidationException, ConflictException, StaleVersionException {
+        LOG.info("PUT " + BASE_PATH + "/{}/standings", id);
+        LOG.debug("Body of request:\n{}", standings);
+        var updated = service.updateStandings(id, expectedVersion(ifMatch), standings);
+        return ResponseEntity.ok().eTag(String.valueOf(updated.version())).body(updated.value());
+    }
+
+    /**
+     * The version an {@code If-Match} header asks for, {@code null} if any version will do.
+     * A tag, that is no version of this endpoint, can not match.
+     */
+    private static Long expectedVersion(String ifMatch) throws StaleVersionException {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new StaleVersionException("If-Match %s matches no version".formatted(ifMatch));
+        }
+    }
+
+    /**
+     * Export the results of a tournament as CSV file, best placed participant first.
+     */
+    @GetMapping("{id}/results/export")
+    @QueryBudget(2)
+    public ResponseEntity<StreamingResponseBody> exportResults(@PathVariable long id, @RequestParam(defaultValue = "false") boolean gzip)
+            throws NotFoundException, ValidationException {
+        LOG.info("GET " + BASE_PATH + "/{}/results/export", id);
+        var results = service.streamResults(id);
+        return CsvExport.download("tournament-" + id + "-results", gzip, RESULT_EXPORT_COLUMNS, results, participant -> new Object[] {
+                participant.horseId(),
+                participant.name(),
+                participant.dateOfBirth(),
+                participant.entryNumber(),
+                participant.roundReached()
+        });
     }
 }
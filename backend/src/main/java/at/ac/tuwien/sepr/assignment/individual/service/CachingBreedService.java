@@ -0,0 +1,164 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedCacheStatisticsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataResetEvent;
+import java.lang.invoke.MethodHandles;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Breed service, that loads the breed table once and answers from an immutable snapshot of it.
+ * Breeds are reference data, they are not changed by the application,
+ * so the snapshot is only replaced on {@link #refresh()} or when the data store was reset.
+ * IDs not in the snapshot are read through from {@link BreedServiceImpl}, and cause the next lookup to load the table again.
+ */
+@Service
+@Primary
+public class CachingBreedService implements BreedService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private final BreedServiceImpl delegate;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private volatile Snapshot snapshot;
+
+  /**
+   * The breeds in the order of the table, with the upper case names to search in.
+   */
+  private record Snapshot(List<BreedDto> breeds, List<String> upperCaseNames, Map<Long, BreedDto> byId, Instant loadedAt) {
+  }
+
+  public CachingBreedService(BreedServiceImpl delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Stream<BreedDto> allBreeds() {
+    LOG.trace("allBreeds()");
+    var breeds = snapshot().breeds();
+    hits.increment();
+    return breeds.stream();
+  }
+
+  @Override
+  public Stream<BreedDto> findBreedsByIds(Set<Long> breedIds) {
+    LOG.trace("findBreedsByIds({})", breedIds);
+    var byId = snapshot().byId();
+    List<BreedDto> found = new ArrayList<>();
+    Set<Long> unknown = new HashSet<>();
+    for (Long id : breedIds) {
+      // horses without a breed ask for null
+      if (id == null) {
+        continue;
+      }
+      var breed = byId.get(id);
+      if (breed != null) {
+        found.add(breed);
+      } else {
+        unknown.add(id);
+      }
+    }
+    if (unknown.isEmpty()) {
+      hits.increment();
+      return found.stream();
+    }
+    misses.increment();
+    var loaded = delegate.findBreedsByIds(unknown).toList();
+    if (!loaded.isEmpty()) {
+      // breeds were added past the application, the next lookup loads the table again
+      snapshot = null;
+    }
+    return Stream.concat(found.stream(), loaded.stream());
+  }
+
+  @Override
+  public Stream<BreedDto> search(BreedSearchDto searchParams) {
+    LOG.trace("search({})", searchParams);
+    String name = searchParams.name();
+    if (name == null || name.indexOf('%') >= 0 || name.indexOf('_') >= 0) {
+      // no name matches null, and LIKE wildcards are left to the database
+      misses.increment();
+      return delegate.search(searchParams);
+    }
+    var current = snapshot();
+    hits.increment();
+    String needle = name.toUpperCase(Locale.ROOT);
+    var matches = IntStream.range(0, current.breeds().size())
+        .filter(i -> current.upperCaseNames().get(i).contains(needle))
+        .mapToObj(current.breeds()::get);
+    return searchParams.limit() != null ? matches.limit(searchParams.limit()) : matches;
+  }
+
+  /**
+   * Load the breed table again, to pick up breeds changed past the application.
+   */
+  public void refresh() {
+    LOG.trace("refresh()");
+    snapshot = load();
+  }
+
+  /**
+   * Get the counters of this cache.
+   *
+   * @return the current counters
+   */
+  public BreedCacheStatisticsDto statistics() {
+    LOG.trace("statistics()");
+    var current = snapshot;
+    return new BreedCacheStatisticsDto(
+        current != null ? current.breeds().size() : 0,
+        hits.sum(),
+        misses.sum(),
+        loads.sum(),
+        current != null ? current.loadedAt() : null);
+  }
+
+  @EventListener
+  public void onDataReset(DataResetEvent event) {
+    LOG.trace("onDataReset({})", event);
+    snapshot = null;
+  }
+
+  private Snapshot snapshot() {
+    var current = snapshot;
+    if (current == null) {
+      synchronized (this) {
+        current = snapshot;
+        if (current == null) {
+          current = load();
+          snapshot = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  private Snapshot load() {
+    var breeds = delegate.allBreeds().toList();
+    loads.increment();
+    LOG.debug("Loaded {} breeds into the cache", breeds.size());
+    return new Snapshot(
+        breeds,
+        breeds.stream().map(breed -> breed.name().toUpperCase(Locale.ROOT)).toList(),
+        breeds.stream().collect(Collectors.toUnmodifiableMap(BreedDto::id, Function.identity())),
+        Instant.now());
+  }
+}
@@ -0,0 +1,10 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+/**
+ * Published, when a horse was deleted, and with it its standings and points.
+ * Listeners, that keep state derived from the standings, drop what they hold of the horse.
+ *
+ * @param horseId the ID of the deleted horse
+ */
+public record HorseDeletedEvent(long horseId) {
+}
@@ -0,0 +1,26 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service for creating many horses at once.
+ */
+public interface HorseImportService {
+  /**
+   * Create a horse for every valid row of the given upload.
+   * Rows are checked like a single horse to create, and rejected on their own;
+   * the other rows are still created.
+   * The horses are stored in chunks, each in its own transaction,
+   * so rows of chunks already stored remain, if a later chunk fails.
+   * If the upload can not be read any further, the import stops with that row.
+   *
+   * @param upload the horses, in the given format
+   * @param format the format of {@code upload}
+   * @return the outcome of every row
+   * @throws IOException if reading the upload fails
+   */
+  HorseImportResultDto importHorses(InputStream upload, ImportFormat format) throws IOException;
+}
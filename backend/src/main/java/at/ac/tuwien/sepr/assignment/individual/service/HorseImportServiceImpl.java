@@ -0,0 +1,272 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.FieldErrorDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportRowDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.type.ImportFormat;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class HorseImportServiceImpl implements HorseImportService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final CsvSchema CSV_WITH_HEADER = CsvSchema.emptySchema().withHeader();
+
+  private final HorseDao dao;
+  private final HorseValidator validator;
+  private final BreedService breedService;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final CsvMapper csvMapper = new CsvMapper();
+  private final int batchSize;
+  private final int chunkSize;
+
+  /**
+   * A row of the upload, with the horse read from it, or the errors why it could not be read.
+   */
+  private static final class Row {
+    private final int number;
+    private final HorseCreateDto horse;
+    private final List<String> errors = new ArrayList<>();
+    private final List<FieldErrorDto> fieldErrors = new ArrayList<>();
+    private Long id;
+
+    Row(int number, HorseCreateDto horse) {
+      this.number = number;
+      this.horse = horse;
+    }
+
+    static Row rejected(int number, String error) {
+      Row row = new Row(number, null);
+      row.reject(error);
+      return row;
+    }
+
+    void reject(String error) {
+      errors.add(error);
+    }
+
+    void reject(FieldErrorDto error) {
+      errors.add(error.message());
+      fieldErrors.add(error);
+    }
+
+    HorseImportRowDto toDto() {
+      return new HorseImportRowDto(number, id, List.copyOf(errors), List.copyOf(fieldErrors));
+    }
+  }
+
+  public HorseImportServiceImpl(HorseDao dao, HorseValidator validator, BreedService breedService,
+                                TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                @Value("${app.horses.import.batch-size:500}") int batchSize,
+                                @Value("${app.horses.import.chunk-size:5000}") int chunkSize) {
+    this.dao = dao;
+    this.validator = validator;
+    this.breedService = breedService;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public HorseImportResultDto importHorses(InputStream upload, ImportFormat format) throws IOException {
+    LOG.trace("importHorses({}, {})", upload, format);
+    List<HorseImportRowDto> report = new ArrayList<>();
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    int created = 0;
+    int number = 0;
+
+    try (MappingIterator<?> rows = openRows(upload, format)) {
+      while (true) {
+        number++;
+        Row row;
+        try {
+          if (!rows.hasNextValue()) {
+            break;
+          }
+          Object value = rows.nextValue();
+          row = format == ImportFormat.JSON ? fromJson(number, (JsonNode) value) : fromCsv(number, (Map<?, ?>) value);
+        } catch (JsonProcessingException e) {
+          // the rest of the upload can not be told apart into rows any more
+          chunk.add(Row.rejected(number, "Row could not be read, import stopped: " + e.getOriginalMessage()));
+          break;
+        }
+        chunk.add(row);
+        if (chunk.size() == chunkSize) {
+          created += store(chunk, report);
+          chunk.clear();
+        }
+      }
+      created += store(chunk, report);
+    }
+
+    LOG.info("Imported {} of {} horses", created, report.size());
+    return new HorseImportResultDto(report.size(), created, report.size() - created, report);
+  }
+
+  private MappingIterator<?> openRows(InputStream upload, ImportFormat format) throws IOException {
+    return switch (format) {
+      // an array at the root is read element by element, not as a whole
+      case JSON -> objectMapper.readerFor(JsonNode.class).readValues(upload);
+      case CSV -> csvMapper.readerFor(Map.class).with(CSV_WITH_HEADER).readValues(upload);
+    };
+  }
+
+  /**
+   * Validate the rows of a chunk, and create the horses of the valid ones in one transaction.
+   *
+   * @return the number of created horses
+   */
+  private int store(List<Row> chunk, List<HorseImportRowDto> report) {
+    LOG.trace("store({} rows)", chunk.size());
+    List<Row> read = chunk.stream().filter(row -> row.horse != null).toList();
+    List<List<FieldErrorDto>> errors = validator.createErrors(read.stream().map(row -> row.horse).toList());
+    for (int i = 0; i < read.size(); i++) {
+      errors.get(i).forEach(read.get(i)::reject);
+    }
+    rejectUnknownBreeds(chunk);
+
+    List<Row> valid = chunk.stream().filter(row -> row.errors.isEmpty()).toList();
+    if (!valid.isEmpty()) {
+      try {
+        List<Long> ids = transactionTemplate.execute(status ->
+            dao.createAll(valid.stream().map(row -> row.horse).toList(), batchSize));
+        for (int i = 0; i < valid.size(); i++) {
+          valid.get(i).id = ids.get(i);
+        }
+      } catch (DataAccessException e) {
+        LOG.warn("Storing rows {} to {} of horse import failed: {}", chunk.get(0).number, chunk.get(chunk.size() - 1).number, e.getMessage());
+        valid.forEach(row -> row.reject("Horse could not be stored, no horse of this chunk was created"));
+      }
+    }
+
+    chunk.forEach(row -> report.add(row.toDto()));
+    return (int) chunk.stream().filter(row -> row.id != null).count();
+  }
+
+  private void rejectUnknownBreeds(List<Row> chunk) {
+    Set<Long> breedIds = chunk.stream()
+        .filter(row -> row.errors.isEmpty() && row.horse.breed() != null)
+        .map(row -> row.horse.breed().id())
+        .collect(Collectors.toSet());
+    if (breedIds.isEmpty()) {
+      return;
+    }
+    Set<Long> known = breedService.findBreedsByIds(breedIds)
+        .map(BreedDto::id)
+        .collect(Collectors.toSet());
+    for (Row row : chunk) {
+      if (row.errors.isEmpty() && row.horse.breed() != null && !known.contains(row.horse.breed().id())) {
+        row.reject(new FieldErrorDto("breed", "Breed with ID %d does not exist".formatted(row.horse.breed().id())));
+      }
+    }
+  }
+
+  private Row fromJson(int number, JsonNode node) {
+    try {
+      return new Row(number, objectMapper.treeToValue(node, HorseCreateDto.class));
+    } catch (JsonProcessingException e) {
+      return Row.rejected(number, "Row is not a valid horse: " + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * Read a CSV row with the columns {@code name, sex, dateOfBirth, height, weight, breedId}.
+   * Every column is checked, so that all errors of the row are reported at once, each with its column.
+   */
+  private Row fromCsv(int number, Map<?, ?> columns) {
+    List<FieldErrorDto> errors = new ArrayList<>();
+    final String name = column(columns, "name");
+
+    Sex sex = null;
+    String sexValue = column(columns, "sex");
+    if (sexValue != null) {
+      try {
+        sex = Sex.valueOf(sexValue.toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        errors.add(new FieldErrorDto("sex", "Sex must be MALE or FEMALE"));
+      }
+    }
+
+    LocalDate dateOfBirth = null;
+    String dateOfBirthValue = column(columns, "dateOfBirth");
+    if (dateOfBirthValue != null) {
+      try {
+        dateOfBirth = LocalDate.parse(dateOfBirthValue);
+      } catch (DateTimeParseException e) {
+        errors.add(new FieldErrorDto("dateOfBirth", "Date of birth must be given as yyyy-mm-dd"));
+      }
+    }
+
+    float height = number(columns, "height", "Height", errors);
+    float weight = number(columns, "weight", "Weight", errors);
+
+    BreedDto breed = null;
+    String breedValue = column(columns, "breedId");
+    if (breedValue != null) {
+      try {
+        breed = new BreedDto(Long.parseLong(breedValue), null);
+      } catch (NumberFormatException e) {
+        errors.add(new FieldErrorDto("breedId", "Breed ID must be a number"));
+      }
+    }
+
+    if (!errors.isEmpty()) {
+      Row row = new Row(number, null);
+      errors.forEach(row::reject);
+      return row;
+    }
+    return new Row(number, new HorseCreateDto(name, sex, dateOfBirth, height, weight, breed));
+  }
+
+  private static float number(Map<?, ?> columns, String column, String label, List<FieldErrorDto> errors) {
+    String value = column(columns, column);
+    if (value == null) {
+      return 0;
+    }
+    try {
+      return Float.parseFloat(value);
+    } catch (NumberFormatException e) {
+      errors.add(new FieldErrorDto(column, label + " must be a number"));
+      return 0;
+    }
+  }
+
+  /**
+   * The value of a column, or {@code null} if the column is missing or empty.
+   */
+  private static String column(Map<?, ?> columns, String column) {
+    Object value = columns.get(column);
+    if (value == null || Objects.toString(value).isBlank()) {
+      return null;
+    }
+    return Objects.toString(value).strip();
+  }
+}
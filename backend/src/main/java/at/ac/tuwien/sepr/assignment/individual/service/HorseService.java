@@ -1,5 +1,6 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
@@ -23,6 +24,27 @@ public interface HorseService {
    */
   Stream<HorseListDto> search(HorseSearchDto searchParameters) throws ValidationException;
 
+  /**
+   * Search for horses like {@link #search(HorseSearchDto)}, but read them from the persistent data store
+   * only while the returned stream is consumed, so that memory does not grow with the size of the result.
+   * Nothing is read before the stream is consumed. The stream must be closed after use.
+   *
+   * @param searchParameters the search parameters to use in filtering.
+   * @return the horses where the given fields match.
+   * @throws ValidationException if the search parameters are invalid
+   */
+  Stream<HorseListDto> streamSearch(HorseSearchDto searchParameters) throws ValidationException;
+
+  /**
+   * Search for horses like {@link #streamSearch(HorseSearchDto)}, but with all details of each horse, for exporting them.
+   * The stream must be closed after use.
+   *
+   * @param searchParameters the search parameters to use in filtering.
+   * @return the horses where the given fields match.
+   * @throws ValidationException if the search parameters are invalid
+   */
+  Stream<HorseDetailDto> streamDetails(HorseSearchDto searchParameters) throws ValidationException;
+
   /**
    * Updates the horse with the ID given in {@code horse}
    * with the data given in {@code horse}
@@ -48,6 +70,25 @@ public interface HorseService {
    */
   HorseDetailDto getById(long id) throws NotFoundException;
 
+  /**
+   * Get the tournaments the horse with the given ID entered, latest first, with the counters over all of them.
+   *
+   * @param id the ID of the horse
+   * @return the career of the horse
+   * @throws NotFoundException if the horse with the given ID does not exist in the persistent data store
+   */
+  HorseCareerDto getCareer(long id) throws NotFoundException;
+
+  /**
+   * Get the version of the horse with given ID.
+   * It changes whenever the details returned by {@link #getById(long)} do, and is much cheaper to get.
+   *
+   * @param id the ID of the horse
+   * @return the version of the horse
+   * @throws NotFoundException if the horse with the given ID does not exist in the persistent data store
+   */
+  long getVersion(long id) throws NotFoundException;
+
   /**
    * Create a horse for the given DTO.
    *
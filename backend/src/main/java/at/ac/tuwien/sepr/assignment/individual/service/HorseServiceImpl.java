@@ -6,6 +6,7 @@ import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import at.ac.tuwien.sepr.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseCareerDao;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
 import java.lang.invoke.MethodHandles;
 import java.util.Collections;
@@ -17,7 +18,9 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class HorseServiceImpl implements HorseService {
@@ -26,17 +29,23 @@ public class HorseServiceImpl implements HorseService {
   private final HorseMapper mapper;
   private final HorseValidator validator;
   private final BreedService breedService;
+  private final HorseCareerDao careerDao;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public HorseServiceImpl(HorseDao dao, HorseMapper mapper, HorseValidator validator, BreedService breedService) {
+  public HorseServiceImpl(HorseDao dao, HorseMapper mapper, HorseValidator validator, BreedService breedService, HorseCareerDao careerDao,
+                          ApplicationEventPublisher eventPublisher) {
     this.dao = dao;
     this.mapper = mapper;
     this.validator = validator;
     this.breedService = breedService;
+    this.careerDao = careerDao;
+    this.eventPublisher = eventPublisher;
   }
 
   @Override
-  public Stream<HorseListDto> search(HorseSearchDto searchParameters) {
+  public Stream<HorseListDto> search(HorseSearchDto searchParameters) throws ValidationException {
     LOG.trace("search({})", searchParameters);
+    validator.validateSearch(searchParameters);
     var horses = dao.search(searchParameters);
     // First get all breed ids…
     var breeds = horses.stream()
@@ -50,6 +59,24 @@ public class HorseServiceImpl implements HorseService {
         .map(horse -> mapper.entityToListDto(horse, breedsPerId));
   }
 
+  @Override
+  public Stream<HorseListDto> streamSearch(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.trace("streamSearch({})", searchParameters);
+    validator.validateSearch(searchParameters);
+    var breedsPerId = allBreeds();
+    return dao.streamSearch(searchParameters)
+        .map(horse -> mapper.entityToListDto(horse, breedsPerId));
+  }
+
+  @Override
+  public Stream<HorseDetailDto> streamDetails(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.trace("streamDetails({})", searchParameters);
+    validator.validateSearch(searchParameters);
+    var breedsPerId = allBreeds();
+    return dao.streamSearch(searchParameters)
+        .map(horse -> mapper.entityToDetailDto(horse, breedsPerId));
+  }
+
 
   @Override
   public HorseDetailDto update(HorseDetailDto horse) throws NotFoundException, ValidationException, ConflictException {
@@ -69,6 +96,20 @@ public class HorseServiceImpl implements HorseService {
     return mapper.entityToDetailDto(horse, breeds);
   }
 
+  @Override
+  @Transactional(readOnly = true)
+  public HorseCareerDto getCareer(long id) throws NotFoundException {
+    LOG.trace("getCareer({})", id);
+    Horse horse = dao.getById(id);
+    return new HorseCareerDto(horse.getId(), horse.getName(), careerDao.getStats(id), careerDao.getEntries(id));
+  }
+
+  @Override
+  public long getVersion(long id) throws NotFoundException {
+    LOG.trace("getVersion({})", id);
+    return dao.getVersion(id);
+  }
+
   @Override
   public HorseDetailDto create(HorseCreateDto horseToCreate) throws NotFoundException, ValidationException {
     LOG.trace("create({})", horseToCreate);
@@ -83,6 +124,16 @@ public class HorseServiceImpl implements HorseService {
   public void delete(Long id) throws NotFoundException {
     LOG.trace("delete({})", id);
     dao.delete(id);
+    // the standings and points of the horse are deleted with it
+    eventPublisher.publishEvent(new HorseDeletedEvent(id));
+  }
+
+  /**
+   * The breeds of streamed horses are not known in advance, so all breeds are mapped; there are only a few of them.
+   */
+  private Map<Long, BreedDto> allBreeds() {
+    return breedService.allBreeds()
+        .collect(Collectors.toUnmodifiableMap(BreedDto::id, Function.identity()));
   }
 
   private Map<Long, BreedDto> breedMapForSingleHorse(Horse horse) {
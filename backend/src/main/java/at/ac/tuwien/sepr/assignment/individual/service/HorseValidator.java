@@ -1,19 +1,78 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.dto.FieldErrorDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseData;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
 import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Checks the horses sent to the backend.
+ * A horse to create and a horse to update are checked by the same rules, each of one field,
+ * set up once for all horses; a horse to update also needs its ID.
+ * The API checks one horse and rejects it as a whole, the bulk import checks many at once,
+ * and reports the errors of each of them field by field.
+ */
 @Component
 public class HorseValidator {
   private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z]+");
+  private static final int MAX_NAME_LENGTH = 255;
+
+  /**
+   * A check of one field of a horse.
+   *
+   * @param field the name of the field
+   * @param message the error, if the horse violates the rule
+   * @param violatedBy whether a horse violates the rule, given today's date
+   */
+  private record Rule(String field, String message, BiPredicate<HorseData, LocalDate> violatedBy) {
+  }
+
+  // in the order their errors are reported
+  private static final List<Rule> RULES = List.of(
+      new Rule("name", "No name given",
+          (horse, today) -> horse.name() == null || horse.name().isBlank()),
+      new Rule("name", "Length of name must not exceed %d characters".formatted(MAX_NAME_LENGTH),
+          (horse, today) -> horse.name() != null && !horse.name().isBlank() && horse.name().length() > MAX_NAME_LENGTH),
+      new Rule("name", "Only letters and spaces allowed in name",
+          (horse, today) -> horse.name() != null && !horse.name().isBlank() && !NAME.matcher(horse.name()).matches()),
+      new Rule("sex", "No sex given",
+          (horse, today) -> horse.sex() == null),
+      new Rule("dateOfBirth", "No date of birth given",
+          (horse, today) -> horse.dateOfBirth() == null),
+      new Rule("dateOfBirth", "Date of birth cannot be in the future",
+          (horse, today) -> horse.dateOfBirth() != null && horse.dateOfBirth().isAfter(today)),
+      new Rule("height", "Height must be between 0 and 3",
+          (horse, today) -> horse.height() <= 0 || horse.height() >= 3),
+      new Rule("weight", "Weight must be between 30 and 1000",
+          (horse, today) -> horse.weight() <= 30 || horse.weight() >= 1000),
+      new Rule("breed", "No breed ID given",
+          (horse, today) -> horse.breed() != null && horse.breed().id() == 0));
+
+  private final int parallelThreshold;
+
+  /**
+   * Create the validator.
+   *
+   * @param parallelThreshold the number of horses checked at once, from which they are spread over the common fork-join pool
+   */
+  public HorseValidator(@Value("${app.horses.validation.parallel-threshold:2048}") int parallelThreshold) {
+    this.parallelThreshold = parallelThreshold;
+  }
 
   /**
    * Validation function for updating existing horses
@@ -23,57 +82,10 @@ public class HorseValidator {
    */
   public void validateForUpdate(HorseDetailDto horse) throws ValidationException {
     LOG.trace("validateForUpdate({})", horse);
-    List<String> validationErrors = new ArrayList<>();
-
-    //check if id is given
-    if (horse.id() == null) {
-      validationErrors.add("No ID given");
-    }
-
-    //check name
-    if (horse.name() == null || horse.name().isBlank()) {
-      validationErrors.add("No name given");
-    } else {
-      if (horse.name().length() > 255) {
-        validationErrors.add("Length of name must not exceed 255 characters");
-      }
-      if (!horse.name().matches("[a-zA-Z]+")) {
-        validationErrors.add("Only letters and spaces allowed in name");
-      }
-    }
-
-
-    //check if sex is given
-    if (horse.sex() == null) {
-      validationErrors.add("No sex given");
-    }
-
-    //check date of birth
-    if (horse.dateOfBirth() == null) {
-      validationErrors.add("No date of birth given");
-    } else if (horse.dateOfBirth().isAfter(LocalDate.now())) {
-      validationErrors.add("Date of birth cannot be in the future");
-    }
-
-    //check height
-    if (horse.height() <= 0 || horse.height() >= 3) {
-      validationErrors.add("Height must be between 0 and 3");
-    }
-
-    //check weight
-    if (horse.weight() <= 30 || horse.weight() >= 1000) {
-      validationErrors.add("Weight must be between 30 and 1000");
-    }
-
-    //check if breed is given
-    if (horse.breed() != null) {
-      if (horse.breed().id() == 0) {
-        validationErrors.add("No breed Id given");
-      }
-    }
+    List<FieldErrorDto> validationErrors = updateErrors(horse, LocalDate.now());
 
     if (!validationErrors.isEmpty()) {
-      throw new ValidationException("Update validation of horse failed", validationErrors);
+      throw new ValidationException("Update validation of horse failed", messages(validationErrors));
     }
   }
 
@@ -85,46 +97,105 @@ public class HorseValidator {
    */
   public void validateCreate(HorseCreateDto horse) throws ValidationException {
     LOG.trace("validateForCreate({})", horse);
-    List<String> validationErrors = new ArrayList<>();
+    List<FieldErrorDto> validationErrors = createErrors(horse, LocalDate.now());
 
-    if (horse.name() == null || horse.name().isBlank()) {
-      validationErrors.add("No name given");
-    } else {
-      if (horse.name().length() > 255) {
-        validationErrors.add("Length of name must not exceed 255 characters");
-      }
-      if (!horse.name().matches("[a-zA-Z]+")) {
-        validationErrors.add("Only letters and spaces allowed in name");
-      }
+    if (!validationErrors.isEmpty()) {
+      throw new ValidationException("Validation of horse for create failed", messages(validationErrors));
     }
+  }
+
+  /**
+   * Check the data of many horses to create, without throwing.
+   * Used where many horses are checked at once, and each one is reported on its own.
+   *
+   * @param horses whos data needs to be checked
+   * @return the validation errors of each horse, in the order of {@code horses}; empty for a horse that is okay
+   */
+  public List<List<FieldErrorDto>> createErrors(List<HorseCreateDto> horses) {
+    LOG.trace("createErrors({} horses)", horses.size());
+    return errorsOf(horses, HorseValidator::createErrors);
+  }
+
+  /**
+   * Check the new data of many existing horses, without throwing.
+   *
+   * @param horses whos new data needs to be checked
+   * @return the validation errors of each horse, in the order of {@code horses}; empty for a horse that is okay
+   */
+  public List<List<FieldErrorDto>> updateErrors(List<HorseDetailDto> horses) {
+    LOG.trace("updateErrors({} horses)", horses.size());
+    return errorsOf(horses, HorseValidator::updateErrors);
+  }
 
-    if (horse.sex() == null) {
-      validationErrors.add("No sex given");
+  private <H> List<List<FieldErrorDto>> errorsOf(List<H> horses, BiFunction<H, LocalDate, List<FieldErrorDto>> check) {
+    // one date for all, so that a batch checked around midnight is not judged by two different days
+    LocalDate today = LocalDate.now();
+    if (horses.size() < parallelThreshold) {
+      return horses.stream().map(horse -> check.apply(horse, today)).toList();
     }
+    // the rules share no state, so the horses are checked in any order; toList keeps the order of the horses
+    return horses.parallelStream().map(horse -> check.apply(horse, today)).toList();
+  }
+
+  private static List<FieldErrorDto> createErrors(HorseCreateDto horse, LocalDate today) {
+    return check(horse, today, null);
+  }
 
-    if (horse.dateOfBirth() == null) {
-      validationErrors.add("No date of birth given");
-    } else if (horse.dateOfBirth().isAfter(LocalDate.now())) {
-      validationErrors.add("Date of birth cannot be in the future");
+  private static List<FieldErrorDto> updateErrors(HorseDetailDto horse, LocalDate today) {
+    List<FieldErrorDto> errors = null;
+    if (horse.id() == null) {
+      errors = new ArrayList<>();
+      errors.add(new FieldErrorDto("id", "No ID given"));
     }
+    return check(horse, today, errors);
+  }
 
-    if (horse.height() <= 0 || horse.height() >= 3) {
-      validationErrors.add("Height must be between 0 and 3");
+  /**
+   * Check a horse against all rules.
+   * A valid horse, the common case, gets the same empty list, nothing is allocated for it.
+   *
+   * @param errors the errors found so far, or {@code null} if there are none
+   */
+  private static List<FieldErrorDto> check(HorseData horse, LocalDate today, List<FieldErrorDto> errors) {
+    for (Rule rule : RULES) {
+      if (rule.violatedBy().test(horse, today)) {
+        if (errors == null) {
+          errors = new ArrayList<>();
+        }
+        errors.add(new FieldErrorDto(rule.field(), rule.message()));
+      }
     }
+    return errors == null ? List.of() : errors;
+  }
 
-    if (horse.weight() <= 30 || horse.weight() >= 1000) {
-      validationErrors.add("Weight must be between 30 and 1000");
+  private static List<String> messages(List<FieldErrorDto> errors) {
+    return errors.stream().map(FieldErrorDto::message).toList();
+  }
+
+  /**
+   * Validation function for the paging parameters of a horse search
+   *
+   * @param searchParameters the search parameters to check
+   * @throws ValidationException if the limit or the cursor is not usable
+   */
+  public void validateSearch(HorseSearchDto searchParameters) throws ValidationException {
+    LOG.trace("validateSearch({})", searchParameters);
+    List<String> validationErrors = new ArrayList<>();
+
+    if (searchParameters.limit() != null && searchParameters.limit() < 1) {
+      validationErrors.add("Limit must be at least 1");
     }
 
-    if (horse.breed() != null) {
-      if (horse.breed().id() == 0) {
-        validationErrors.add("No breed ID given");
+    if (searchParameters.cursor() != null) {
+      try {
+        PageCursor.decode(searchParameters.cursor());
+      } catch (IllegalArgumentException e) {
+        validationErrors.add("Cursor is not valid, use the one returned with the previous page");
       }
     }
 
     if (!validationErrors.isEmpty()) {
-      throw new ValidationException("Validation of horse for update failed", validationErrors);
+      throw new ValidationException("Validation of horse search parameters failed", validationErrors);
     }
   }
-
 }
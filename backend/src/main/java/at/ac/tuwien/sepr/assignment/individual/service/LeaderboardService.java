@@ -0,0 +1,21 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.LeaderboardEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import java.util.List;
+
+/**
+ * Service for the ranking of the horses by the points they earned in the tournaments of a trailing date window.
+ */
+public interface LeaderboardService {
+
+  /**
+   * Get the best ranked horses, most points first and by ID within the same points.
+   * Horses without points in the window are not ranked.
+   *
+   * @param limit the number of horses to get
+   * @return at most {@code limit} horses with their rank and points
+   * @throws ValidationException if the limit is not positive
+   */
+  List<LeaderboardEntryDto> top(int limit) throws ValidationException;
+}
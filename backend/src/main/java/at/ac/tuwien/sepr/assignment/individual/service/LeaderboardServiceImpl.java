@@ -0,0 +1,167 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.LeaderboardEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataResetEvent;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
+import java.lang.invoke.MethodHandles;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Leaderboard, that keeps the points of every ranked horse in memory, ordered by points.
+ * It is loaded from the stored points once per day, when the window moves on,
+ * and updated for the horses of a {@link StandingsChangedEvent} or {@link HorseDeletedEvent} in between;
+ * a top-N request reads the first N entries of the ordered set.
+ */
+@Service
+public class LeaderboardServiceImpl implements LeaderboardService {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  private static final Comparator<Ranked> RANKING = Comparator.comparingLong(Ranked::points).reversed()
+      .thenComparingLong(Ranked::horseId);
+
+  private final HorsePointsDao pointsDao;
+  private final HorseDao horseDao;
+  private final Period window;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Board board;
+
+  private record Ranked(long horseId, long points) {
+  }
+
+  /**
+   * The points of the horses in the window starting at {@code from}, by horse and in the order of the ranking.
+   */
+  private record Board(LocalDate from, Map<Long, Long> points, NavigableSet<Ranked> ranking) {
+  }
+
+  public LeaderboardServiceImpl(HorsePointsDao pointsDao, HorseDao horseDao, @Value("${app.leaderboard.window:P12M}") Period window) {
+    this.pointsDao = pointsDao;
+    this.horseDao = horseDao;
+    this.window = window;
+  }
+
+  @Override
+  public List<LeaderboardEntryDto> top(int limit) throws ValidationException {
+    LOG.trace("top({})", limit);
+    if (limit < 1) {
+      throw new ValidationException("Validation of leaderboard parameters failed", List.of("Limit must be at least 1"));
+    }
+
+    List<Ranked> top = null;
+    lock.readLock().lock();
+    try {
+      if (board != null && board.from().equals(windowStart())) {
+        top = board.ranking().stream().limit(limit).toList();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (top == null) {
+      top = reloadAndGetTop(limit);
+    }
+
+    Map<Long, String> names = horseDao.findNamesByIds(top.stream().map(Ranked::horseId).toList());
+    List<LeaderboardEntryDto> entries = new ArrayList<>(top.size());
+    for (Ranked ranked : top) {
+      // horses deleted after the ranking was read; their points went with them
+      String name = names.get(ranked.horseId());
+      if (name == null) {
+        continue;
+      }
+      long rank = !entries.isEmpty() && entries.get(entries.size() - 1).points() == ranked.points()
+          ? entries.get(entries.size() - 1).rank()
+          : entries.size() + 1;
+      entries.add(new LeaderboardEntryDto(rank, ranked.horseId(), name, ranked.points()));
+    }
+    return entries;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStandingsChanged(StandingsChangedEvent event) {
+    LOG.trace("onStandingsChanged({})", event);
+    lock.writeLock().lock();
+    try {
+      if (board == null) {
+        return;
+      }
+      var points = pointsDao.getPointsSince(board.from(), event.horseIds());
+      for (Long horseId : event.horseIds()) {
+        update(board, horseId, points.getOrDefault(horseId, 0L));
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHorseDeleted(HorseDeletedEvent event) {
+    LOG.trace("onHorseDeleted({})", event);
+    lock.writeLock().lock();
+    try {
+      if (board != null) {
+        update(board, event.horseId(), 0);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @EventListener
+  public void onDataReset(DataResetEvent event) {
+    LOG.trace("onDataReset({})", event);
+    lock.writeLock().lock();
+    try {
+      board = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private List<Ranked> reloadAndGetTop(int limit) {
+    lock.writeLock().lock();
+    try {
+      LocalDate from = windowStart();
+      if (board == null || !board.from().equals(from)) {
+        var current = new Board(from, new HashMap<>(), new TreeSet<>(RANKING));
+        pointsDao.getPointsSince(from).forEach((horseId, points) -> update(current, horseId, points));
+        LOG.debug("Loaded {} ranked horses for the window from {}", current.points().size(), from);
+        board = current;
+      }
+      return board.ranking().stream().limit(limit).toList();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static void update(Board board, long horseId, long points) {
+    Long previous = points > 0 ? board.points().put(horseId, points) : board.points().remove(horseId);
+    if (previous != null) {
+      board.ranking().remove(new Ranked(horseId, previous));
+    }
+    if (points > 0) {
+      board.ranking().add(new Ranked(horseId, points));
+    }
+  }
+
+  private LocalDate windowStart() {
+    return LocalDate.now().minus(window);
+  }
+}
@@ -0,0 +1,13 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import java.util.Set;
+
+/**
+ * Published, when the standings of participants of a tournament were written.
+ * Listeners, that keep state derived from the standings, update it for the given horses.
+ *
+ * @param tournamentId the ID of the tournament
+ * @param horseIds the IDs of the participants, whose standing changed
+ */
+public record StandingsChangedEvent(long tournamentId, Set<Long> horseIds) {
+}
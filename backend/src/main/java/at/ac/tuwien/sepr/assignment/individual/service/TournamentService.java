@@ -1,8 +1,11 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
 import at.ac.tuwien.sepr.assignment.individual.dto.*;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.StaleVersionException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.Versioned;
 
 import java.util.stream.Stream;
 
@@ -19,8 +22,9 @@ public interface TournamentService {
      *
      * @param searchParameters the search parameters to use in filtering.
      * @return the tournaments where the given fields match.
+     * @throws ValidationException if the limit or the cursor of the page to get is not valid
      */
-    Stream<TournamentListDto> search(TournamentSearchDto searchParameters);
+    Stream<TournamentListDto> search(TournamentSearchDto searchParameters) throws ValidationException;
 
     /**
      * Create a tournament for the given DTO.
@@ -46,5 +50,59 @@ public interface TournamentService {
      * @return the tournament with ID {@code id}.
      * @throws NotFoundException if the given id does not exist
      */
-    TournamentStandingsDto getTournamentStandingById(long id) throws NotFoundException, ValidationException;
+    default TournamentStandingsDto getTournamentStandingById(long id) throws NotFoundException, ValidationException {
+        return getTournamentStandingById(id, getVersion(id));
+    }
+
+    /**
+     * Get the standings of a tournament like {@link #getTournamentStandingById(long)},
+     * when its version has already been read, e.g. for the ETag.
+     * Standings of that version, that are still cached, are returned without reading anything.
+     *
+     * @param id of the tournament
+     * @param version the version of the tournament, as read by {@link #getVersion(long)}
+     * @return the tournament with ID {@code id}.
+     * @throws NotFoundException if the given id does not exist
+     */
+    TournamentStandingsDto getTournamentStandingById(long id, long version) throws NotFoundException, ValidationException;
+
+    /**
+     * Replace the standings of a tournament with the given bracket.
+     * The bracket is compared with the stored standings, and only the participants whose entry number
+     * or reached round changed are written. Participants missing from the bracket are no longer placed.
+     * With an expected version, nothing is written unless the tournament still is at that version when it is written.
+     *
+     * @param id the ID of the tournament
+     * @param expectedVersion the version the standings were based on, e.g. from {@code If-Match}, or {@code null} to overwrite any version
+     * @param standings the standings, of which only the tree is used
+     * @return the standings of the tournament after the update, with the version of the tournament after it
+     * @throws NotFoundException if no tournament with the given ID exists
+     * @throws ValidationException if the tree is not a possible course of the tournament
+     * @throws ConflictException if the tree contains horses, that do not participate in the tournament
+     * @throws StaleVersionException if the tournament is not at the expected version
+     */
+    Versioned<TournamentStandingsDto> updateStandings(long id, Long expectedVersion, TournamentStandingsDto standings)
+            throws NotFoundException, ValidationException, ConflictException, StaleVersionException;
+
+    /**
+     * Get the version of the tournament with the given ID.
+     * It changes whenever the details or standings of the tournament do, and is much cheaper to get than those.
+     *
+     * @param id the ID of the tournament
+     * @return the version of the tournament
+     * @throws NotFoundException if no tournament with the given ID exists
+     * @throws ValidationException if the ID is not valid
+     */
+    long getVersion(long id) throws NotFoundException, ValidationException;
+
+    /**
+     * Get the results of the tournament with the given ID, best placed participant first.
+     * The results are read while the returned stream is consumed, nothing before; it must be closed after use.
+     *
+     * @param id the ID of the tournament
+     * @return the participants of the tournament with the round they reached
+     * @throws NotFoundException if no tournament with the given ID exists
+     * @throws ValidationException if the ID is not valid
+     */
+    Stream<TournamentDetailParticipantDto> streamResults(long id) throws NotFoundException, ValidationException;
 }
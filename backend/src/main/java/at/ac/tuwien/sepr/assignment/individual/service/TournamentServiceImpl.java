@@ -1,42 +1,90 @@
 package at.ac.tuwien.sepr.assignment.individual.service;
 
+import at.ac.tuwien.sepr.assignment.individual.config.QueryExecutor;
 import at.ac.tuwien.sepr.assignment.individual.dto.*;
 import at.ac.tuwien.sepr.assignment.individual.entity.Tournament;
+import at.ac.tuwien.sepr.assignment.individual.exception.ConflictException;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.exception.StaleVersionException;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
 import at.ac.tuwien.sepr.assignment.individual.mapper.TournamentMapper;
+import at.ac.tuwien.sepr.assignment.individual.persistence.DataResetEvent;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseCareerDao;
 import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorsePointsDao;
 import at.ac.tuwien.sepr.assignment.individual.persistence.TournamentDao;
+import at.ac.tuwien.sepr.assignment.individual.type.TournamentBracket;
+import at.ac.tuwien.sepr.assignment.individual.type.Versioned;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class TournamentServiceImpl implements TournamentService{
 
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Bound of the standings cache; it is emptied when full, polled tournaments are back in it with their next request.
+     */
+    private static final int MAX_CACHED_STANDINGS = 1000;
     private final TournamentDao dao;
 
     private final HorseDao horseDao;
+    private final HorsePointsDao pointsDao;
+    private final HorseCareerDao careerDao;
     private final TournamentMapper mapper;
 
     private final TournamentValidator validator;
 
-    public TournamentServiceImpl(TournamentDao dao, HorseDao horseDao, TournamentMapper mapper, TournamentValidator validator) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final QueryExecutor queries;
+
+    /**
+     * The standings last built per tournament, with the version of the tournament they were built from.
+     * Any change of the standings raises the version, so an entry is used only as long as it matches.
+     */
+    private final Map<Long, CachedStandings> standingsCache = new ConcurrentHashMap<>();
+
+    private record CachedStandings(long version, TournamentStandingsDto standings) {
+    }
+
+    private record VersionedParticipants(long version, TournamentDetailParticipantDto[] participants) {
+    }
+
+    public TournamentServiceImpl(TournamentDao dao, HorseDao horseDao, HorsePointsDao pointsDao, HorseCareerDao careerDao,
+                                 TournamentMapper mapper, TournamentValidator validator, ApplicationEventPublisher eventPublisher,
+                                 QueryExecutor queries) {
         this.dao = dao;
         this.horseDao = horseDao;
+        this.pointsDao = pointsDao;
+        this.careerDao = careerDao;
         this.mapper = mapper;
         this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.queries = queries;
     }
 
 
     @Override
-    public Stream<TournamentListDto> search(TournamentSearchDto searchParameters) {
+    public Stream<TournamentListDto> search(TournamentSearchDto searchParameters) throws ValidationException {
         LOG.trace("search({})", searchParameters);
+        validator.validateSearch(searchParameters);
         var tournaments = dao.search(searchParameters);
 
         return tournaments.stream()
@@ -44,12 +92,19 @@ public class TournamentServiceImpl implements TournamentService{
     }
 
     @Override
+    @Transactional(rollbackFor = NotFoundException.class)
     public TournamentDetailDto create(TournamentCreateDto tournamentCreateDto) throws NotFoundException, ValidationException {
         LOG.trace("create({})", tournamentCreateDto);
-        List<Long> allHorseIds = horseDao.getAllHorseIDs();
-        validator.validateCreate(tournamentCreateDto, allHorseIds);
+        Set<Long> existingHorseIds = tournamentCreateDto.participants() == null
+                ? Set.of()
+                : horseDao.findExistingIds(Arrays.stream(tournamentCreateDto.participants())
+                        .filter(Objects::nonNull)
+                        .map(HorseSelectionDto::id)
+                        .toList());
+        validator.validateCreate(tournamentCreateDto, existingHorseIds);
 
         Tournament tournament = dao.create(tournamentCreateDto);
+        careerDao.refresh(existingHorseIds);
         return mapper.entityToDetailDto(tournament, getDetailParticipantList(tournament.getId()));
     }
 
@@ -58,16 +113,108 @@ public class TournamentServiceImpl implements TournamentService{
         LOG.trace("getTournamentDetailById({})", id);
         validator.validateForID(id);
 
-        return mapper.entityToDetailDto(dao.getById(id), getDetailParticipantList(id));
+        var tournament = queries.submit(() -> dao.getById(id));
+        var participants = queries.submit(() -> participantArray(dao.getParticipantsByTournamentId(id)));
+        return mapper.entityToDetailDto(QueryExecutor.await(tournament), QueryExecutor.await(participants));
+    }
+
+    @Override
+    public TournamentStandingsDto getTournamentStandingById(long id, long version) throws NotFoundException, ValidationException {
+        LOG.trace("getTournamentStandingById({}, {})", id, version);
+        validator.validateForID(id);
+
+        var cached = standingsCache.get(id);
+        if (cached != null && cached.version() == version) {
+            return cached.standings();
+        }
+
+        var tournament = queries.submit(() -> dao.getById(id));
+        // the version is read before the participants, so that they are never cached under a later version than their own
+        var participants = queries.submit(() -> {
+            long current = dao.getVersion(id);
+            return new VersionedParticipants(current, participantArray(dao.getParticipantsByTournamentId(id)));
+        });
+        var versioned = QueryExecutor.await(participants);
+        TournamentStandingsDto standings = mapper.detailToStandingDto(
+                mapper.entityToDetailDto(QueryExecutor.await(tournament), versioned.participants()));
+        if (standingsCache.size() >= MAX_CACHED_STANDINGS) {
+            standingsCache.clear();
+        }
+        standingsCache.put(id, new CachedStandings(versioned.version(), standings));
+        return standings;
+    }
+
+    @Override
+    @Transactional(rollbackFor = {NotFoundException.class, StaleVersionException.class})
+    public Versioned<TournamentStandingsDto> updateStandings(long id, Long expectedVersion, TournamentStandingsDto standings)
+            throws NotFoundException, ValidationException, ConflictException, StaleVersionException {
+        LOG.trace("updateStandings({}, {}, {})", id, expectedVersion, standings);
+        validator.validateForID(id);
+        TournamentBracket bracket = validator.validateStandings(standings);
+
+        Map<Long, TournamentBracket.Placement> placements = bracket.placements();
+        List<TournamentDetailParticipantDto> stored = dao.getParticipantsByTournamentId(id);
+        Set<Long> participantIds = stored.stream().map(TournamentDetailParticipantDto::horseId).collect(Collectors.toSet());
+        List<String> conflicts = placements.keySet().stream()
+                .filter(horseId -> !participantIds.contains(horseId))
+                .map(horseId -> "Horse %d does not participate in the tournament".formatted(horseId))
+                .toList();
+        if (!conflicts.isEmpty()) {
+            throw new ConflictException("Standings do not match the participants of the tournament", conflicts);
+        }
+
+        // an entry number or round that is not set is read as 0
+        List<TournamentDetailParticipantDto> changed = new ArrayList<>();
+        for (TournamentDetailParticipantDto participant : stored) {
+            var placement = placements.get(participant.horseId());
+            long entryNumber = placement == null ? 0 : placement.entryNumber();
+            long roundReached = placement == null ? 0 : placement.roundReached();
+            if (!Objects.equals(participant.entryNumber(), entryNumber) || !Objects.equals(participant.roundReached(), roundReached)) {
+                changed.add(new TournamentDetailParticipantDto(participant.horseId(), participant.name(), participant.dateOfBirth(),
+                        placement == null ? null : entryNumber, placement == null ? null : roundReached));
+            }
+        }
+        LOG.debug("{} of {} standings of tournament {} changed", changed.size(), stored.size(), id);
+        long version;
+        if (!changed.isEmpty()) {
+            // the points are derived from the standings in the same transaction, the listeners get the event after the commit
+            Set<Long> changedHorseIds = changed.stream().map(TournamentDetailParticipantDto::horseId).collect(Collectors.toSet());
+            version = dao.updateStandings(id, expectedVersion, changed);
+            pointsDao.refresh(id, changedHorseIds);
+            careerDao.refresh(changedHorseIds);
+            eventPublisher.publishEvent(new StandingsChangedEvent(id, changedHorseIds));
+        } else {
+            // nothing is written, so nothing can be lost
+            version = dao.getVersion(id);
+            if (expectedVersion != null && version != expectedVersion) {
+                throw new StaleVersionException("Tournament %d is at version %d, not %d".formatted(id, version, expectedVersion));
+            }
+        }
+        // read on this thread, the pool threads would not see the uncommitted standings
+        return new Versioned<>(version, mapper.detailToStandingDto(mapper.entityToDetailDto(dao.getById(id), getDetailParticipantList(id))));
+    }
+
+    @EventListener
+    public void onDataReset(DataResetEvent event) {
+        LOG.trace("onDataReset({})", event);
+        standingsCache.clear();
     }
 
     @Override
-    public TournamentStandingsDto getTournamentStandingById(long id) throws NotFoundException, ValidationException {
-        LOG.trace("getTournamentStandingById({})", id);
+    public long getVersion(long id) throws NotFoundException, ValidationException {
+        LOG.trace("getVersion({})", id);
         validator.validateForID(id);
+        return dao.getVersion(id);
+    }
 
-        TournamentDetailDto tournamentDetailDto = mapper.entityToDetailDto(dao.getById(id), getDetailParticipantList(id));
-        return mapper.detailToStandingDto(tournamentDetailDto);
+    @Override
+    public Stream<TournamentDetailParticipantDto> streamResults(long id) throws NotFoundException, ValidationException {
+        LOG.trace("streamResults({})", id);
+        validator.validateForID(id);
+        // checked first, an unknown tournament just has no results
+        dao.getById(id);
+        // the results, and their connection, are only opened once the stream is consumed, and closed by flatMap
+        return Stream.of(id).flatMap(dao::streamResultsByTournamentId);
     }
 
     /**
@@ -81,18 +228,10 @@ public class TournamentServiceImpl implements TournamentService{
         LOG.trace("getDetailParticipantList({})", tournamentId);
         validator.validateForID(tournamentId);
 
-        var horseIdList = dao.getStandingIds(tournamentId);
-        var participants = new TournamentDetailParticipantDto[8];
-
-        for (int i = 0; i < horseIdList.size(); i++) {
-            participants[i] = new TournamentDetailParticipantDto(
-                    dao.getStandingById(tournamentId, horseIdList.get(i)).getHorseId(),
-                    horseDao.getById(horseIdList.get(i)).getName(),
-                    horseDao.getById(horseIdList.get(i)).getDateOfBirth(),
-                    dao.getStandingById(tournamentId, horseIdList.get(i)).getEntryNumber(),
-                    dao.getStandingById(tournamentId, horseIdList.get(i)).getRoundReached()
-            );
-        }
-        return participants;
+        return participantArray(dao.getParticipantsByTournamentId(tournamentId));
+    }
+
+    private static TournamentDetailParticipantDto[] participantArray(List<TournamentDetailParticipantDto> participants) {
+        return participants.toArray(new TournamentDetailParticipantDto[8]);
     }
 }
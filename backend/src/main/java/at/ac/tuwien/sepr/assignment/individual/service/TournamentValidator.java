@@ -4,7 +4,11 @@ import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
 import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
+import at.ac.tuwien.sepr.assignment.individual.type.TournamentBracket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -13,6 +17,7 @@ import java.lang.invoke.MethodHandles;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Component
 public class TournamentValidator {
@@ -23,9 +28,10 @@ public class TournamentValidator {
      * Validation function for creating new tournaments
      *
      * @param tournamentCreateDto whos data needs to be checked
+     * @param existingHorseIds the IDs of the participants, that belong to an existing horse
      * @throws ValidationException if horses parameters are not okay
      */
-    public void validateCreate(TournamentCreateDto tournamentCreateDto, List<Long> horseIds) throws ValidationException {
+    public void validateCreate(TournamentCreateDto tournamentCreateDto, Set<Long> existingHorseIds) throws ValidationException {
         LOG.trace("validateForCreate({})", tournamentCreateDto);
         List<String> validationErrors = new ArrayList<>();
 
@@ -51,7 +57,7 @@ public class TournamentValidator {
         if (tournamentCreateDto.participants() == null) {
             validationErrors.add("No participants given");
         } else {
-            if (!allHorseIdsExist(tournamentCreateDto.participants(), horseIds)) {
+            if (!allHorseIdsExist(tournamentCreateDto.participants(), existingHorseIds)) {
                 validationErrors.add("One or more of the participants have invalid horse IDs - Make sure the ID is spelled 'id' and the horse actually exists already");
             }
         }
@@ -66,30 +72,70 @@ public class TournamentValidator {
      * Function for checking if every horse Id of the participants does exist
      *
      * @param participants of the tournament
-     * @param horseIds list with all existing horse Ids
+     * @param existingHorseIds the IDs of the participants, that belong to an existing horse
      * @return true if every Id is existing
      */
-    private boolean allHorseIdsExist(HorseSelectionDto[] participants, List<Long> horseIds) {
+    private boolean allHorseIdsExist(HorseSelectionDto[] participants, Set<Long> existingHorseIds) {
         LOG.trace("allHorseIDsExist({})", participants);
 
         for (HorseSelectionDto participant : participants) {
             if (participant != null) {
-                if (participant.id() == 0) {
+                if (participant.id() == 0 || !existingHorseIds.contains(participant.id())) {
                     return false;
                 }
-                int counter = 0;
+            }
+        }
+        return true;
+    }
 
-                for (Long horseId : horseIds) {
-                    if (participant.id() == horseId) {
-                        counter++;
-                    }
-                }
-                if (counter == 0) {
-                    return false;
+    /**
+     * Validation function for the paging parameters of a tournament search
+     *
+     * @param searchParameters the search parameters to check
+     * @throws ValidationException if the limit or the cursor is not usable
+     */
+    public void validateSearch(TournamentSearchDto searchParameters) throws ValidationException {
+        LOG.trace("validateSearch({})", searchParameters);
+        List<String> validationErrors = new ArrayList<>();
+
+        if (searchParameters.limit() != null && searchParameters.limit() < 1) {
+            validationErrors.add("Limit must be at least 1");
+        }
+
+        if (searchParameters.cursor() != null) {
+            try {
+                if (PageCursor.decode(searchParameters.cursor()).sortDate() == null) {
+                    validationErrors.add("Cursor is not valid, use the one returned with the previous page");
                 }
+            } catch (IllegalArgumentException e) {
+                validationErrors.add("Cursor is not valid, use the one returned with the previous page");
             }
         }
-        return true;
+
+        if (!validationErrors.isEmpty()) {
+            throw new ValidationException("Validation of tournament search parameters failed", validationErrors);
+        }
+    }
+
+    /**
+     * Validation function for the standings of a tournament sent as a whole bracket
+     *
+     * @param standings the standings with the tree of the bracket to check
+     * @return the bracket read from the tree
+     * @throws ValidationException if there is no tree, or it is not a possible course of the tournament
+     */
+    public TournamentBracket validateStandings(TournamentStandingsDto standings) throws ValidationException {
+        LOG.trace("validateStandings({})", standings);
+        if (standings == null || standings.tree() == null) {
+            throw new ValidationException("Validation of tournament standings failed", List.of("No standings tree given"));
+        }
+
+        TournamentBracket bracket = TournamentBracket.fromTree(standings.tree());
+        List<String> validationErrors = bracket.errors();
+        if (!validationErrors.isEmpty()) {
+            throw new ValidationException("Validation of tournament standings failed", validationErrors);
+        }
+        return bracket;
     }
 
     public void validateForID(long id) throws ValidationException {
@@ -0,0 +1,15 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+/**
+ * Formats, that data can be imported from.
+ */
+public enum ImportFormat {
+  /**
+   * A JSON array of objects.
+   */
+  JSON,
+  /**
+   * Comma separated values, with a header line naming the columns.
+   */
+  CSV
+}
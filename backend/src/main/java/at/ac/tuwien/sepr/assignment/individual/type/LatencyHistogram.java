@@ -0,0 +1,104 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in microseconds with a bounded relative error, in the manner of an HDR histogram.
+ * Durations below 32 µs have a bucket each; above, every power of two is split into 16 buckets of equal width,
+ * so that a value read back is at most 1/16 above the recorded one. Durations above about 25 days are recorded as that.
+ * Recording only increments atomic counters, it neither locks nor allocates; reading is not atomic over all buckets,
+ * values recorded meanwhile may be missing from the result.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final int MAX_MAGNITUDE = 40;
+  private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(bucketIndex(MAX_VALUE) + 1);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a duration.
+   *
+   * @param micros the duration in microseconds, negative values are recorded as 0
+   */
+  public void record(long micros) {
+    long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+    counts.incrementAndGet(bucketIndex(value));
+    count.increment();
+    sum.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * The number of recorded durations.
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * The sum of the recorded durations in microseconds.
+   */
+  public long sum() {
+    return sum.sum();
+  }
+
+  /**
+   * The longest recorded duration in microseconds.
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Get the duration, that the given share of the recorded durations does not exceed.
+   *
+   * @param quantile the share, between 0 and 1
+   * @return the highest value of the bucket the quantile falls into, not more than the longest recorded duration;
+   *     0 if nothing was recorded
+   */
+  public long valueAtQuantile(double quantile) {
+    long[] snapshot = new long[counts.length()];
+    long total = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), max());
+      }
+    }
+    return max();
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  static long highestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / HALF_SUB_BUCKETS - 1;
+    long subBucket = index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
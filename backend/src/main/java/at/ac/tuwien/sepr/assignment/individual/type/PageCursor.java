@@ -0,0 +1,62 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a keyset paginated search result.
+ * The cursor holds the sort key of the last element of a page;
+ * the next page starts with the first element that sorts after it.
+ * Clients only see the {@link #encode() encoded} form and pass it back unchanged.
+ *
+ * @param sortDate the date the result is sorted by, or {@code null} if it is sorted by ID only
+ * @param id the ID of the last element of the page, breaking ties between equal dates
+ */
+public record PageCursor(
+    LocalDate sortDate,
+    long id
+) {
+  private static final char SEPARATOR = '|';
+
+  public static PageCursor afterId(long id) {
+    return new PageCursor(null, id);
+  }
+
+  public static PageCursor after(LocalDate sortDate, long id) {
+    return new PageCursor(sortDate, id);
+  }
+
+  /**
+   * Encode this cursor into an opaque, URL safe token.
+   *
+   * @return the token to hand out to clients
+   */
+  public String encode() {
+    String plain = sortDate == null
+        ? Long.toString(id)
+        : sortDate.toString() + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a token, that was created by {@link #encode()}.
+   *
+   * @param token the token given by the client
+   * @return the decoded cursor
+   * @throws IllegalArgumentException if the token was not created by {@link #encode()}
+   */
+  public static PageCursor decode(String token) {
+    try {
+      String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = plain.indexOf(SEPARATOR);
+      if (separator < 0) {
+        return afterId(Long.parseLong(plain));
+      }
+      return after(LocalDate.parse(plain.substring(0, separator)), Long.parseLong(plain.substring(separator + 1)));
+    } catch (NumberFormatException | DateTimeParseException e) {
+      throw new IllegalArgumentException("Malformed page cursor: " + token, e);
+    }
+  }
+}
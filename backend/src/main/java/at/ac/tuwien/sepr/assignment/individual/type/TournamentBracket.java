@@ -0,0 +1,209 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The knockout bracket of a tournament of eight, stored like a binary heap in an array of 15 slots.
+ * Slot 0 holds the winner of the final, the children of slot {@code i} are the slots {@code 2i + 1} and {@code 2i + 2},
+ * and the eight first round entries are the leaves, slots 7 to 14 in the order of their entry number.
+ * A slot of a later round holds the participant, that won the match between its two children;
+ * it is empty, as long as that match is not decided.
+ */
+public final class TournamentBracket {
+  private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+  public static final int ENTRIES = 8;
+  public static final int ROUNDS = 4;
+  private static final int SLOTS = 2 * ENTRIES - 1;
+  private static final int FIRST_LEAF = ENTRIES - 1;
+
+  private final TournamentDetailParticipantDto[] slots;
+
+  /**
+   * Where a horse was entered into the bracket, and how far it got.
+   *
+   * @param entryNumber the position of the horse in the first round, 1 to 8
+   * @param roundReached the last round the horse took part in, 4 for the winner of the final
+   */
+  public record Placement(long entryNumber, long roundReached) {
+  }
+
+  private TournamentBracket(TournamentDetailParticipantDto[] slots) {
+    this.slots = slots;
+  }
+
+  /**
+   * Fill the bracket in one pass over the participants.
+   * A participant entered as number {@code e} starts in leaf {@code 6 + e}
+   * and, having reached round {@code r}, holds the {@code r - 1} slots above it.
+   * Participants without a valid entry number are left out, as they have no place in the bracket yet.
+   *
+   * @param participants the participants of the tournament, may contain {@code null} elements
+   * @return the bracket
+   */
+  public static TournamentBracket of(TournamentDetailParticipantDto[] participants) {
+    LOG.trace("of({})", (Object) participants);
+    var slots = new TournamentDetailParticipantDto[SLOTS];
+    for (TournamentDetailParticipantDto participant : participants) {
+      if (participant == null) {
+        continue;
+      }
+      Long entry = participant.entryNumber();
+      if (entry == null || entry < 1 || entry > ENTRIES) {
+        LOG.debug("Participant {} has no place in the bracket", participant.horseId());
+        continue;
+      }
+      long round = participant.roundReached() == null ? 1 : Math.min(Math.max(participant.roundReached(), 1), ROUNDS);
+      int slot = FIRST_LEAF + (int) (entry - 1);
+      for (int r = 1; r <= round; r++) {
+        if (slots[slot] != null) {
+          LOG.warn("Slot {} of the bracket is held by {} and {}, keeping the first", slot, slots[slot].horseId(), participant.horseId());
+          break;
+        }
+        slots[slot] = participant;
+        slot = (slot - 1) / 2;
+      }
+    }
+    return new TournamentBracket(slots);
+  }
+
+  /**
+   * Read the bracket from a standings tree, as built by {@link #toTree()}.
+   * Missing branches leave their slots empty, branches below the first round are ignored.
+   *
+   * @param root the root of the tree, the winner of the final
+   * @return the bracket
+   */
+  public static TournamentBracket fromTree(TournamentStandingsTreeDto root) {
+    LOG.trace("fromTree({})", root);
+    var slots = new TournamentDetailParticipantDto[SLOTS];
+    fill(slots, 0, root);
+    return new TournamentBracket(slots);
+  }
+
+  private static void fill(TournamentDetailParticipantDto[] slots, int slot, TournamentStandingsTreeDto node) {
+    if (node == null) {
+      return;
+    }
+    slots[slot] = node.thisParticipant();
+    if (slot < FIRST_LEAF && node.branches() != null && node.branches().length == 2) {
+      fill(slots, 2 * slot + 1, node.branches()[0]);
+      fill(slots, 2 * slot + 2, node.branches()[1]);
+    }
+  }
+
+  /**
+   * Check that the bracket describes a possible course of the tournament:
+   * every participant is given by its horse ID, no horse is entered twice,
+   * and the winner of each match is one of its two participants.
+   * Participants without a horse ID are reported alone, the other checks need the IDs.
+   *
+   * @return a description of every inconsistency, empty if there is none
+   */
+  public List<String> errors() {
+    LOG.trace("errors()");
+    List<String> errors = new ArrayList<>();
+    for (int slot = 0; slot < SLOTS; slot++) {
+      if (slots[slot] != null && slots[slot].horseId() == null) {
+        errors.add(slot < FIRST_LEAF
+            ? "The winner of %s has no horse ID".formatted(match(slot))
+            : "Entry %d has no horse ID".formatted(slot - FIRST_LEAF + 1));
+      }
+    }
+    if (!errors.isEmpty()) {
+      return errors;
+    }
+    Set<Long> entered = new HashSet<>();
+    for (int slot = FIRST_LEAF; slot < SLOTS; slot++) {
+      if (slots[slot] != null && !entered.add(slots[slot].horseId())) {
+        errors.add("Horse %d is entered more than once".formatted(slots[slot].horseId()));
+      }
+    }
+    for (int slot = 0; slot < FIRST_LEAF; slot++) {
+      var winner = slots[slot];
+      if (winner == null) {
+        continue;
+      }
+      var first = slots[2 * slot + 1];
+      var second = slots[2 * slot + 2];
+      String match = match(slot);
+      if (first == null || second == null) {
+        errors.add("The winner of %s is set before both of its participants are known".formatted(match));
+      } else if (!winner.horseId().equals(first.horseId()) && !winner.horseId().equals(second.horseId())) {
+        errors.add("The winner of %s, horse %d, did not take part in it".formatted(match, winner.horseId()));
+      }
+    }
+    return errors;
+  }
+
+  private static String match(int slot) {
+    int depth = 31 - Integer.numberOfLeadingZeros(slot + 1);
+    return "match %d of round %d".formatted(slot + 2 - (1 << depth), ROUNDS - 1 - depth);
+  }
+
+  /**
+   * The placement of every horse in the bracket, derived from the first round slot it starts in
+   * and the number of slots above it, that it holds.
+   *
+   * @return the placements by horse ID
+   */
+  public Map<Long, Placement> placements() {
+    LOG.trace("placements()");
+    Map<Long, Placement> placements = new HashMap<>();
+    for (int leaf = FIRST_LEAF; leaf < SLOTS; leaf++) {
+      var participant = slots[leaf];
+      if (participant == null) {
+        continue;
+      }
+      int round = 1;
+      int slot = leaf;
+      while (slot > 0 && slots[(slot - 1) / 2] != null && participant.horseId().equals(slots[(slot - 1) / 2].horseId())) {
+        round++;
+        slot = (slot - 1) / 2;
+      }
+      placements.putIfAbsent(participant.horseId(), new Placement(leaf - FIRST_LEAF + 1, round));
+    }
+    return placements;
+  }
+
+  /**
+   * The participant in a slot of the bracket.
+   *
+   * @param slot the index of the slot, 0 being the winner of the final
+   * @return the participant, or {@code null} if the slot is empty
+   */
+  public TournamentDetailParticipantDto participantAt(int slot) {
+    return slots[slot];
+  }
+
+  /**
+   * Build the tree of the standings from the bracket, the winner of the final at its root.
+   * The first round entries are the leaves, and have no branches.
+   *
+   * @return the root of the tree
+   */
+  public TournamentStandingsTreeDto toTree() {
+    LOG.trace("toTree()");
+    return subtree(0);
+  }
+
+  private TournamentStandingsTreeDto subtree(int slot) {
+    if (slot >= FIRST_LEAF) {
+      return new TournamentStandingsTreeDto(slots[slot], null);
+    }
+    return new TournamentStandingsTreeDto(slots[slot], new TournamentStandingsTreeDto[] {
+        subtree(2 * slot + 1),
+        subtree(2 * slot + 2)
+    });
+  }
+}
@@ -0,0 +1,13 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+/**
+ * A value together with the version of the resource it was read from, or written to.
+ *
+ * @param version the version, e.g. for the ETag of a response
+ * @param value the value of that version
+ */
+public record Versioned<T>(
+    long version,
+    T value
+) {
+}
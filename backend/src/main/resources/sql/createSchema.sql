@@ -1,3 +1,14 @@
+-- The schema is versioned: every change adds a row to schema_version below
+-- and must be written so that it can be re-run against a database of any previous version.
+-- The script runs for every new connection of the pool, so a change already made must cost next to nothing when re-run:
+-- no statement may read a table, unless the database is still of a version before that change.
+CREATE TABLE IF NOT EXISTS schema_version
+(
+  version INT PRIMARY KEY,
+  description VARCHAR(255) NOT NULL,
+  installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
 CREATE TABLE IF NOT EXISTS breed
 (
   id BIGINT PRIMARY KEY,
@@ -27,8 +38,97 @@ CREATE TABLE IF NOT EXISTS tournament
 
 CREATE TABLE IF NOT EXISTS standings
 (
-    tournament_id BIGINT REFERENCES tournament(id) ON DELETE CASCADE,
-    horse_id BIGINT REFERENCES horse(id) ON DELETE CASCADE,
+    tournament_id BIGINT NOT NULL REFERENCES tournament(id) ON DELETE CASCADE,
+    horse_id BIGINT NOT NULL REFERENCES horse(id) ON DELETE CASCADE,
     entry_number INT CHECK (entry_number IS NULL OR entry_number BETWEEN 0 AND 8),
-    round_reached INT CHECK (round_reached IS NULL OR round_reached BETWEEN 0 AND 4)
+    round_reached INT CHECK (round_reached IS NULL OR round_reached BETWEEN 0 AND 4),
+    CONSTRAINT pk_standings PRIMARY KEY (tournament_id, horse_id)
     );
+
+MERGE INTO schema_version (version, description) KEY (version)
+VALUES (1, 'breed, horse, tournament and standings tables');
+
+-- version 2: primary key for standings and indexes for the lookups done on every request
+-- only in databases created before version 2 are these columns nullable; H2 skips the statements for a column
+-- that is NOT NULL already, without reading the table
+ALTER TABLE standings ALTER COLUMN tournament_id SET NOT NULL;
+ALTER TABLE standings ALTER COLUMN horse_id SET NOT NULL;
+-- databases created before version 2 lack the primary key; it is looked up by its name, the table is not read if it exists
+ALTER TABLE standings ADD CONSTRAINT IF NOT EXISTS pk_standings PRIMARY KEY (tournament_id, horse_id);
+-- covers getAllTournamentIdsByHorseId without touching the table
+CREATE INDEX IF NOT EXISTS idx_standings_horse_tournament ON standings (horse_id, tournament_id);
+-- horse(breed_id) is not listed, H2 already creates an index for every foreign key
+CREATE INDEX IF NOT EXISTS idx_horse_date_of_birth ON horse (date_of_birth);
+CREATE INDEX IF NOT EXISTS idx_tournament_dates ON tournament (start_date, end_date);
+
+MERGE INTO schema_version (version, description) KEY (version)
+VALUES (2, 'standings primary key, indexes on standings, horse and tournament');
+
+-- version 3: keyset pagination of the tournament search
+CREATE INDEX IF NOT EXISTS idx_tournament_start_date_id ON tournament (start_date DESC, id DESC);
+
+MERGE INTO schema_version (version, description) KEY (version)
+VALUES (3, 'index for the sort order of the tournament search');
+
+-- version 4: row versions, raised on every change, for the ETags of horses, tournaments and standings
+ALTER TABLE horse ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE tournament ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE standings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+MERGE INTO schema_version (version, description) KEY (version)
+VALUES (4, 'row versions of horse, tournament and standings');
+
+-- version 5: points of every standing, and of every horse per tournament, kept up to date with the standings, for the leaderboard
+-- the points of a standing, for the round reached, are the only place the points rule is written down, everything else reads them;
+-- the column is looked up by its name, the table is not read if it exists
+ALTER TABLE standings ADD COLUMN IF NOT EXISTS points INT
+    GENERATED ALWAYS AS (CASE round_reached WHEN 4 THEN 5 WHEN 3 THEN 3 WHEN 2 THEN 1 ELSE 0 END);
+-- the points of every horse per tournament, as the standings give them; the table below is filled, and kept up to date, from this view.
+-- The tournament ID is taken from the tournament, so that a range of them is found by its primary key
+CREATE OR REPLACE VIEW horse_points_of_standings (horse_id, tournament_id, tournament_date, points)
+AS SELECT s.horse_id, t.id, t.end_date, s.points
+FROM standings s JOIN tournament t ON t.id = s.tournament_id;
+-- filled from the standings when the table is created; the query is not run if the table exists
+CREATE TABLE IF NOT EXISTS horse_points
+(
+    horse_id BIGINT NOT NULL REFERENCES horse(id) ON DELETE CASCADE,
+    tournament_id BIGINT NOT NULL REFERENCES tournament(id) ON DELETE CASCADE,
+    -- the end date of the tournament, the points count from then on
+    tournament_date DATE NOT NULL,
+    points INT NOT NULL,
+    CONSTRAINT pk_horse_points PRIMARY KEY (horse_id, tournament_id)
+    )
+AS SELECT * FROM horse_points_of_standings;
+-- covers the sum of the points in a date window without touching the table
+CREATE INDEX IF NOT EXISTS idx_horse_points_date ON horse_points (tournament_date, horse_id, points);
+
+MERGE INTO schema_version (version, description) KEY (version)
+VALUES (5, 'points of every standing and of every horse per tournament');
+
+-- version 6: career counters of every horse that entered a tournament, kept up to date with the standings
+-- the counters of every horse, as the standings give them; the table below is filled, and kept up to date, from this view
+CREATE OR REPLACE VIEW horse_career_of_standings (horse_id, tournaments, semi_finals, finals, wins, best_round, points)
+AS SELECT s.horse_id, COUNT(*),
+       COUNT(CASE WHEN s.round_reached >= 2 THEN 1 END),
+       COUNT(CASE WHEN s.round_reached >= 3 THEN 1 END),
+       COUNT(CASE WHEN s.round_reached = 4 THEN 1 END),
+       COALESCE(MAX(s.round_reached), 0),
+       SUM(s.points)
+FROM standings s
+GROUP BY s.horse_id;
+-- filled from the standings in one pass when the table is created; the query is not run if the table exists
+CREATE TABLE IF NOT EXISTS horse_career
+(
+    horse_id BIGINT PRIMARY KEY REFERENCES horse(id) ON DELETE CASCADE,
+    tournaments INT NOT NULL,
+    -- tournaments in which the horse reached at least the semi-finals, the final, and won
+    semi_finals INT NOT NULL,
+    finals INT NOT NULL,
+    wins INT NOT NULL,
+    best_round INT NOT NULL,
+    points INT NOT NULL
+    )
+AS SELECT * FROM horse_career_of_standings;
+
+MERGE INTO schema_version (version, description) KEY (version)
+VALUES (6, 'career counters of every horse');
@@ -1,3 +1,5 @@
+DELETE FROM horse_career;
+DELETE FROM horse_points;
 DELETE FROM standings;
 DELETE FROM horse;
 DELETE FROM breed;
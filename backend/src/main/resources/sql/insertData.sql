@@ -2,7 +2,9 @@
 -- the IDs are hardcoded to enable references between further test data
 -- negative IDs are used to not interfere with user-entered data and allow clean deletion of test data
 
-DELETE FROM standings WHERE horse_id < 0
+DELETE FROM horse_career WHERE horse_id < 0;
+DELETE FROM horse_points WHERE horse_id < 0;
+DELETE FROM standings WHERE horse_id < 0;
 DELETE FROM horse WHERE id < 0;
 DELETE  FROM breed WHERE id < 0;
 DELETE FROM tournament WHERE id < 0;
@@ -154,4 +156,13 @@ VALUES
     (-9, -5, 0, 0),
     (-9, -6, 0, 0),
     (-9, -7, 0, 0),
-    (-9, -8, 0, 0);
\ No newline at end of file
+    (-9, -8, 0, 0);
+
+-- the points and careers of the test data, as they would have been stored with the standings
+INSERT INTO horse_points (horse_id, tournament_id, tournament_date, points)
+SELECT * FROM horse_points_of_standings
+WHERE horse_id < 0;
+
+INSERT INTO horse_career (horse_id, tournaments, semi_finals, finals, wins, best_round, points)
+SELECT * FROM horse_career_of_standings
+WHERE horse_id < 0;
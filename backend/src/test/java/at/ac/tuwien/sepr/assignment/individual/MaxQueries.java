@@ -0,0 +1,22 @@
+package at.ac.tuwien.sepr.assignment.individual;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Fails the annotated test, if it sends more SQL statements than this through the {@code JdbcTemplate}.
+ * The statements are counted like those of a request, see {@link MaxQueriesExtension};
+ * the test data, written by {@link TestBase} before the test, is not counted.
+ * Meant for tests, that perform a single API call, so that the limit is the query budget of that call.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@ExtendWith(MaxQueriesExtension.class)
+public @interface MaxQueries {
+  int value();
+}
@@ -0,0 +1,43 @@
+package at.ac.tuwien.sepr.assignment.individual;
+
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+import org.slf4j.MDC;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Counts the SQL statements of a test annotated with {@link MaxQueries}, as if the test was a request:
+ * the test gets a correlation ID of its own in the MDC entry {@code r}, for the time the test method runs.
+ * Requests performed by {@code MockMvc} without the {@code LogFilter} run on the thread of the test, and keep that ID.
+ */
+public class MaxQueriesExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+  private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(MaxQueriesExtension.class);
+
+  @Override
+  public void beforeTestExecution(ExtensionContext context) {
+    var requestId = "test-" + Integer.toHexString(context.getUniqueId().hashCode());
+    counter(context).begin(requestId);
+    MDC.put("r", requestId);
+    context.getStore(NAMESPACE).put("r", requestId);
+  }
+
+  @Override
+  public void afterTestExecution(ExtensionContext context) {
+    var requestId = context.getStore(NAMESPACE).remove("r", String.class);
+    MDC.remove("r");
+    long queries = counter(context).end(requestId);
+    int max = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), MaxQueries.class).orElseThrow().value();
+    if (context.getExecutionException().isEmpty() && queries > max) {
+      throw new AssertionFailedError("%s sent %d SQL statements, at most %d are allowed"
+          .formatted(context.getDisplayName(), queries, max), max, queries);
+    }
+  }
+
+  private static RequestQueryCounter counter(ExtensionContext context) {
+    return SpringExtension.getApplicationContext(context).getBean(RequestQueryCounter.class);
+  }
+}
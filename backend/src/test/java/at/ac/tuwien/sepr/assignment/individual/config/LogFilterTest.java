@@ -0,0 +1,107 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class LogFilterTest {
+  private final Logger logger = (Logger) LoggerFactory.getLogger(LogFilter.class);
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private Level previousLevel;
+
+  @BeforeEach
+  public void captureLog() {
+    previousLevel = logger.getLevel();
+    logger.setLevel(Level.INFO);
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  public void releaseLog() {
+    logger.detachAppender(appender);
+    logger.setLevel(previousLevel);
+  }
+
+  private List<String> serve(double sampleRate, int status) throws Exception {
+    var filter = new LogFilter(new RequestMetrics(), new RequestQueryCounter(), 10, sampleRate);
+    var request = new MockHttpServletRequest("GET", "/horses");
+    request.setQueryString("name=Wendy");
+    List<String> requestIds = new ArrayList<>();
+    filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+      requestIds.add(MDC.get("r"));
+      ((HttpServletResponse) res).setStatus(status);
+    });
+    assertThat(requestIds.get(0)).matches("[0-9a-f]{12}");
+    assertThat(MDC.get("r")).isNull();
+    return appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+  }
+
+  @Test
+  public void everyRequestIsLoggedWithoutSampling() throws Exception {
+    assertThat(serve(1.0, 200))
+        .hasSize(2)
+        .satisfies(lines -> assertThat(lines.get(0)).isEqualTo(">>> GET /horses?name=Wendy"))
+        .satisfies(lines -> assertThat(lines.get(1)).matches("<<< GET /horses\\?name=Wendy status=200 time=[0-9.]+ms queries=0"));
+  }
+
+  @Test
+  public void unsampledSuccessfulRequestsAreNotLogged() throws Exception {
+    assertThat(serve(0.0, 200)).isEmpty();
+    assertThat(serve(0.0, 304)).isEmpty();
+  }
+
+  @Test
+  public void failedRequestsAreLoggedEvenIfNotSampled() throws Exception {
+    assertThat(serve(0.0, 404)).singleElement().asString().startsWith("<<< GET /horses?name=Wendy status=404 time=");
+    assertThat(appender.list.get(0).getLevel()).isEqualTo(Level.WARN);
+  }
+
+  @Test
+  public void textWrittenToTheWriterIsPassedOnAndCountedWithoutFlushing() throws Exception {
+    var response = new MockHttpServletResponse();
+    response.setCharacterEncoding("UTF-8");
+    var countingResponse = new ByteCountingResponseWrapper(response);
+
+    var writer = countingResponse.getWriter();
+    writer.print("Grüße ");
+    // a surrogate pair split between two writes
+    String horse = "🐎";
+    writer.print(horse.charAt(0));
+    writer.print(horse.charAt(1));
+
+    assertThat(response.getContentAsString()).isEqualTo("Grüße 🐎");
+    assertThat(countingResponse.getByteCount()).isEqualTo(response.getContentAsByteArray().length);
+  }
+
+  @Test
+  public void durationsHaveUpToThreeDecimals() {
+    for (long[] nanosAndExpected : new long[][] {{12_345_678, 12345}, {5_000_000, 5000}, {50_000, 50}, {7_000, 7}, {120_900_000, 120900}}) {
+      var b = new StringBuilder();
+      LogFilter.appendMillis(b, nanosAndExpected[0]);
+      assertThat(Double.parseDouble(b.toString())).isEqualTo(nanosAndExpected[1] / 1000.0);
+      assertThat(b.toString()).doesNotEndWith("0.").doesNotMatch(".*\\..*0");
+    }
+  }
+
+  @Test
+  public void requestIdsAreTwelveHexDigits() {
+    var id = LogFilter.generateRequestId();
+    assertThat(id).matches("[0-9a-f]{12}");
+    assertThat(LogFilter.generateRequestId()).isNotEqualTo(id);
+  }
+}
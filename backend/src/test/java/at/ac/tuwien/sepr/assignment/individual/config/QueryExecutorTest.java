@@ -0,0 +1,98 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import at.ac.tuwien.sepr.assignment.individual.exception.FatalException;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+public class QueryExecutorTest {
+  private final QueryExecutor queries = new QueryExecutor(2, 1, Duration.ofMillis(200));
+
+  @AfterEach
+  public void shutdown() {
+    queries.destroy();
+    MDC.clear();
+  }
+
+  @Test
+  public void queriesRunConcurrentlyWithTheLoggingContextOfTheRequest() throws Exception {
+    MDC.put("r", "request-1");
+    var bothStarted = new CountDownLatch(2);
+    QueryExecutor.Query<String> query = () -> {
+      bothStarted.countDown();
+      try {
+        // only completes if the other query runs at the same time
+        assertThat(bothStarted.await(1, TimeUnit.SECONDS)).isTrue();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return MDC.get("r") + "@" + Thread.currentThread().getName();
+    };
+
+    var first = queries.submit(query);
+    var second = queries.submit(query);
+
+    assertThat(QueryExecutor.await(first)).startsWith("request-1@query-");
+    assertThat(QueryExecutor.await(second)).startsWith("request-1@query-");
+  }
+
+  @Test
+  public void notFoundIsThrownAsItIs() {
+    var future = queries.submit(() -> {
+      throw new NotFoundException("No tournament with ID -999 found");
+    });
+
+    assertThatThrownBy(() -> QueryExecutor.await(future))
+        .isInstanceOf(NotFoundException.class)
+        .hasMessage("No tournament with ID -999 found");
+  }
+
+  @Test
+  public void slowQueryFailsAfterTheTimeout() {
+    var release = new CountDownLatch(1);
+    var future = queries.submit(() -> {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "late";
+    });
+
+    long start = System.nanoTime();
+    assertThatThrownBy(() -> QueryExecutor.await(future)).isInstanceOf(FatalException.class);
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    release.countDown();
+  }
+
+  @Test
+  public void queryRunOnTheRequestThreadLeavesItsContextAsItWas() throws Exception {
+    var release = new CountDownLatch(1);
+    QueryExecutor.Query<String> blocking = () -> {
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "done";
+    };
+    // two threads and the queue taken, the next query runs on this thread
+    queries.submit(blocking);
+    queries.submit(blocking);
+    queries.submit(blocking);
+
+    MDC.put("r", "request-2");
+    var callerRuns = queries.submit(() -> Thread.currentThread().getName());
+
+    assertThat(QueryExecutor.await(callerRuns)).isEqualTo(Thread.currentThread().getName());
+    assertThat(MDC.get("r")).isEqualTo("request-2");
+    release.countDown();
+  }
+}
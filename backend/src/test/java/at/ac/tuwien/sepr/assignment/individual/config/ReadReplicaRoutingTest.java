@@ -0,0 +1,173 @@
+package at.ac.tuwien.sepr.assignment.individual.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Breed;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import at.ac.tuwien.sepr.assignment.individual.persistence.BreedDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Runs against two separate in-memory databases; the "replica" is never written by the application,
+ * so anything found in it was read from it.
+ */
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest(properties = {
+    "app.datasource.replica.url=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:sql/createSchema.sql'",
+    "app.datasource.replica.max-lag=0s"
+})
+public class ReadReplicaRoutingTest extends TestBase {
+  private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+  @Autowired
+  BreedDao breedDao;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  @Qualifier("primaryDataSource")
+  DataSource primary;
+
+  @Autowired
+  @Qualifier("replicaDataSource")
+  DataSource replica;
+
+  @AfterEach
+  public void clearReplica() {
+    new JdbcTemplate(replica).update("DELETE FROM breed");
+  }
+
+  @Test
+  public void readOnlyDaoMethodsReadFromTheReplica() {
+    new JdbcTemplate(replica).update("INSERT INTO breed (id, name) VALUES (-100, 'Replica Only')");
+
+    assertThat(breedDao.findBreedsById(Set.of(-1L, -100L)))
+        .extracting(Breed::getName)
+        .containsExactly("Replica Only");
+    assertThatThrownBy(() -> horseDao.getById(-1))
+        .isInstanceOf(NotFoundException.class);
+  }
+
+  @Test
+  public void writesGoToThePrimary() throws NotFoundException {
+    horseDao.delete(-1L);
+
+    assertThat(new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM horse WHERE id = -1", Integer.class))
+        .isZero();
+    assertThat(new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM horse", Integer.class))
+        .isEqualTo(31);
+  }
+
+  @Test
+  public void readsShortlyAfterAWriteStayOnThePrimary() throws SQLException {
+    var clock = new AtomicLong();
+    var routing = new ReadReplicaRoutingDataSource(
+        inMemory("routingPrimary"), inMemory("routingReplica"), Duration.ofSeconds(1), Duration.ofSeconds(30), clock::get);
+
+    assertThat(readOnlyConnectionTo(routing)).contains("routingReplica");
+    assertThat(connectionTo(routing)).contains("routingPrimary");
+    clock.addAndGet(SECOND / 2);
+    assertThat(readOnlyConnectionTo(routing)).contains("routingPrimary");
+    clock.addAndGet(SECOND);
+    assertThat(readOnlyConnectionTo(routing)).contains("routingReplica");
+  }
+
+  @Test
+  public void readsShortlyAfterTheCommitOfALongTransactionStayOnThePrimary() throws SQLException {
+    var clock = new AtomicLong();
+    var routing = new ReadReplicaRoutingDataSource(
+        inMemory("longPrimary"), inMemory("longReplica"), Duration.ofSeconds(1), Duration.ofSeconds(30), clock::get);
+
+    try (Connection connection = routing.getConnection()) {
+      connection.setAutoCommit(false);
+      clock.addAndGet(5 * SECOND);
+      connection.commit();
+      clock.addAndGet(SECOND / 2);
+      assertThat(readOnlyConnectionTo(routing)).contains("longPrimary");
+    }
+    clock.addAndGet(2 * SECOND);
+    assertThat(readOnlyConnectionTo(routing)).contains("longReplica");
+  }
+
+  @Test
+  public void nameIndexIsLoadedFromThePrimary() {
+    new JdbcTemplate(replica).update("INSERT INTO breed (id, name) VALUES (-8, 'Haflinger'), (-100, 'Replica Only')");
+
+    // the search reads from the replica, but only the breeds that the index found in the primary
+    assertThat(breedDao.search(new BreedSearchDto("Replica", null))).isEmpty();
+    assertThat(breedDao.search(new BreedSearchDto("haflinger", null)))
+        .extracting(Breed::getId)
+        .containsExactly(-8L);
+  }
+
+  @Test
+  public void unreachableReplicaIsSkippedUntilRetry() throws SQLException {
+    var clock = new AtomicLong();
+    var replica = new UnreachableDataSource(inMemory("flakyReplica"));
+    var routing = new ReadReplicaRoutingDataSource(
+        inMemory("fallbackPrimary"), replica, Duration.ZERO, Duration.ofSeconds(30), clock::get);
+
+    replica.reachable = false;
+    assertThat(readOnlyConnectionTo(routing)).contains("fallbackPrimary");
+    replica.reachable = true;
+    clock.addAndGet(10 * SECOND);
+    assertThat(readOnlyConnectionTo(routing)).contains("fallbackPrimary");
+    clock.addAndGet(30 * SECOND);
+    assertThat(readOnlyConnectionTo(routing)).contains("flakyReplica");
+  }
+
+  private static DataSource inMemory(String name) {
+    return new DriverManagerDataSource("jdbc:h2:mem:" + name);
+  }
+
+  private static String readOnlyConnectionTo(DataSource dataSource) throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    try {
+      return connectionTo(dataSource);
+    } finally {
+      TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+  }
+
+  private static String connectionTo(DataSource dataSource) throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      return connection.getMetaData().getURL();
+    }
+  }
+
+  private static class UnreachableDataSource extends DelegatingDataSource {
+    volatile boolean reachable = true;
+
+    UnreachableDataSource(DataSource target) {
+      super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      if (!reachable) {
+        throw new SQLException("Connection refused");
+      }
+      return super.getConnection();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@ActiveProfiles({"test", "datagen", "inmemory"}) // "inmemory" replaces the test database URL with its own in-memory database
+@SpringBootTest
+public class DatabaseCheckpointerTest extends TestBase {
+  private static final Path CHECKPOINT = Path.of("target", "checkpoint-" + UUID.randomUUID() + ".sql.gz");
+
+  @DynamicPropertySource
+  static void checkpointFile(DynamicPropertyRegistry registry) {
+    registry.add("app.checkpoint.file", CHECKPOINT::toString);
+    registry.add("app.checkpoint.interval", () -> "PT1H");
+  }
+
+  @Autowired
+  DatabaseCheckpointer checkpointer;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void statusReportsTheRowsWrittenSinceTheCheckpoint() {
+    checkpointer.checkpoint();
+    var status = checkpointer.status();
+    assertThat(status.checkpointAt()).isNotNull();
+    assertThat(status.checkpointBytes()).isPositive();
+    assertThat(status.secondsAtRisk()).isBetween(0L, 5L);
+    assertThat(status.rowDeltaSinceCheckpoint()).containsEntry("horse", 0L).containsEntry("standings", 0L);
+    assertThat(status.lastError()).isNull();
+
+    jdbcTemplate.update("INSERT INTO breed (id, name) VALUES (-99, 'Noriker')");
+    jdbcTemplate.update("DELETE FROM horse WHERE id IN (-31, -32)");
+
+    assertThat(checkpointer.status().rowDeltaSinceCheckpoint())
+        .containsEntry("breed", 1L)
+        .containsEntry("horse", -2L);
+  }
+
+  @Test
+  public void checkpointRestoresIntoAFreshDatabase() {
+    jdbcTemplate.update("DELETE FROM horse WHERE id = -1");
+    checkpointer.checkpoint();
+    assertThat(Files.exists(CHECKPOINT)).isTrue();
+    assertThat(Files.exists(CHECKPOINT.resolveSibling(CHECKPOINT.getFileName() + ".tmp"))).isFalse();
+
+    var fresh = new DriverManagerDataSource(
+        "jdbc:h2:mem:restored;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:sql/createSchema.sql'");
+    DatabaseCheckpointer.restore(fresh, CHECKPOINT);
+
+    var restored = new JdbcTemplate(fresh);
+    assertThat(restored.queryForObject("SELECT COUNT(*) FROM horse", Integer.class)).isEqualTo(31);
+    assertThat(restored.queryForObject("SELECT name FROM horse WHERE id = -7", String.class)).isEqualTo("Sophie");
+    assertThat(restored.queryForObject("SELECT MAX(version) FROM schema_version", Integer.class))
+        .isEqualTo(jdbcTemplate.queryForObject("SELECT MAX(version) FROM schema_version", Integer.class));
+    restored.execute("SHUTDOWN");
+  }
+}
@@ -5,11 +5,13 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import at.ac.tuwien.sepr.assignment.individual.TestBase;
 import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseSearchDto;
 import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
 import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
 import at.ac.tuwien.sepr.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepr.assignment.individual.type.PageCursor;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import java.time.LocalDate;
 import java.util.Collections;
@@ -26,6 +28,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
@@ -41,9 +44,12 @@ public class HorseDaoTest extends TestBase {
   @Autowired
   HorseMapper horseMapper;
 
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
   @Test
   public void searchByBreedWelFindsThreeHorses() {
-    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null);
+    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null, null);
     var horses = horseDao.search(searchDto);
     assertNotNull(horses);
     assertThat(horses)
@@ -80,7 +86,7 @@ public class HorseDaoTest extends TestBase {
     var searchDto = new HorseSearchDto(null, null,
         LocalDate.of(2017, 3, 5),
         LocalDate.of(2018, 10, 10),
-        null, null);
+        null, null, null);
     var horses = horseDao.search(searchDto);
     assertNotNull(horses);
     assertThat(horses)
@@ -121,6 +127,95 @@ public class HorseDaoTest extends TestBase {
                 .setBreedId(-19L));
   }
 
+  @Test
+  public void searchByNameSeesCreatedAndDeletedHorses() throws NotFoundException {
+    var searchDto = new HorseSearchDto("una", null, null, null, null, null, null);
+    assertThat(horseDao.search(searchDto))
+        .extracting(Horse::getId)
+        .containsExactlyInAnyOrder(-5L, -32L);
+
+    Horse created = horseDao.create(new HorseCreateDto("Lunatic", Sex.MALE, LocalDate.of(2020, 1, 1), 1.5f, 500, new BreedDto(-1L, null)));
+    assertThat(horseDao.search(searchDto))
+        .extracting(Horse::getId)
+        .containsExactlyInAnyOrder(-5L, -32L, created.getId());
+
+    horseDao.delete(created.getId());
+    assertThat(horseDao.search(searchDto))
+        .extracting(Horse::getId)
+        .containsExactlyInAnyOrder(-5L, -32L);
+  }
+
+  @Test
+  public void searchByNameIgnoresRolledBackUpdates() {
+    transactionTemplate.executeWithoutResult(status -> {
+      try {
+        horseDao.update(new HorseDetailDto(-5L, "Zephyrine", Sex.FEMALE, LocalDate.of(2019, 1, 1), 1.5f, 500, new BreedDto(-1L, null)));
+      } catch (NotFoundException e) {
+        throw new IllegalStateException(e);
+      }
+      status.setRollbackOnly();
+    });
+
+    assertThat(horseDao.search(new HorseSearchDto("zephyr", null, null, null, null, null, null))).isEmpty();
+    assertThat(horseDao.search(new HorseSearchDto("una", null, null, null, null, null, null)))
+        .extracting(Horse::getId)
+        .containsExactlyInAnyOrder(-5L, -32L);
+  }
+
+  @Test
+  public void searchByNameIgnoresRolledBackBatchInserts() {
+    var searchDto = new HorseSearchDto("zephyr", null, null, null, null, null, null);
+    assertThat(horseDao.search(searchDto)).isEmpty();
+
+    transactionTemplate.executeWithoutResult(status -> {
+      horseDao.createAll(List.of(
+          new HorseCreateDto("Zephyrine", Sex.FEMALE, LocalDate.of(2019, 1, 1), 1.5f, 500, new BreedDto(-1L, null)),
+          new HorseCreateDto("Zephyrus", Sex.MALE, LocalDate.of(2019, 1, 1), 1.5f, 500, new BreedDto(-1L, null))), 1);
+      status.setRollbackOnly();
+    });
+    assertThat(horseDao.search(searchDto)).isEmpty();
+
+    var committed = transactionTemplate.execute(status -> horseDao.createAll(List.of(
+        new HorseCreateDto("Zephyrine", Sex.FEMALE, LocalDate.of(2019, 1, 1), 1.5f, 500, new BreedDto(-1L, null))), 1));
+    assertThat(horseDao.search(searchDto)).extracting(Horse::getId).isEqualTo(committed);
+  }
+
+  @Test
+  public void searchByShortNameIsDoneByTheDatabase() {
+    var searchDto = new HorseSearchDto("lu", null, null, null, null, null, null);
+    assertThat(horseDao.search(searchDto))
+        .extracting(Horse::getName)
+        .containsExactlyInAnyOrder("Luna", "Lucky", "Luna");
+  }
+
+  @Test
+  public void streamSearchReadsInChunksLikeTheSearch() {
+    var all = new HorseSearchDto(null, null, null, null, null, null, null);
+    List<Long> ids = horseDao.search(all).stream().map(Horse::getId).toList();
+    try (var horses = horseDao.streamSearch(all)) {
+      assertThat(horses.map(Horse::getId)).containsExactlyElementsOf(ids);
+    }
+
+    var page = new HorseSearchDto(null, null, null, null, null, 7, PageCursor.afterId(ids.get(2)).encode());
+    try (var horses = horseDao.streamSearch(page)) {
+      assertThat(horses.map(Horse::getId)).containsExactlyElementsOf(ids.subList(3, 10));
+    }
+  }
+
+  @Test
+  public void findExistingIdsReturnsOnlyTheIdsOfStoredHorses() throws NotFoundException {
+    assertThat(horseDao.findExistingIds(List.of(-1L, -32L, -33L, 0L)))
+        .containsExactlyInAnyOrder(-1L, -32L);
+    assertThat(horseDao.findExistingIds(List.of(-999L))).isEmpty();
+
+    Horse created = horseDao.create(new HorseCreateDto("Comet", Sex.MALE, LocalDate.of(2020, 1, 1), 1.5f, 500, new BreedDto(-1L, null)));
+    assertThat(horseDao.findExistingIds(List.of(created.getId(), -1L)))
+        .containsExactlyInAnyOrder(created.getId(), -1L);
+
+    horseDao.delete(created.getId());
+    assertThat(horseDao.findExistingIds(List.of(created.getId()))).isEmpty();
+  }
+
   @Test
   public void getByIdPositive() throws NotFoundException {
     Horse horse = horseDao.getById(-1L);
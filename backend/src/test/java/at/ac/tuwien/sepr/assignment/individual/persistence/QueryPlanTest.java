@@ -0,0 +1,158 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.BreedJdbcDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.HorseCareerJdbcDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.HorseJdbcDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.HorsePointsJdbcDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.TournamentJdbcDao;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Runs H2 {@code EXPLAIN} on every SQL constant of the JDBC DAOs
+ * and fails if a query, that is not expected to read the whole table, is executed as a table scan.
+ */
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class QueryPlanTest extends TestBase {
+  private static final List<Class<?>> DAO_CLASSES = List.of(
+      BreedJdbcDao.class, HorseCareerJdbcDao.class, HorseJdbcDao.class, HorsePointsJdbcDao.class, TournamentJdbcDao.class);
+
+  /**
+   * Statements that read the whole table by design, or filter by a substring of the name, which no B-tree index can serve.
+   */
+  private static final Set<String> TABLE_SCAN_ALLOWED = Set.of(
+      "BreedJdbcDao.SQL_ALL",
+      "BreedJdbcDao.SQL_SEARCH",
+      "BreedJdbcDao.SQL_SELECT_ALL_NAMES",
+      "HorseJdbcDao.SQL_SELECT_ALL_IDS",
+      "HorseJdbcDao.SQL_SELECT_ALL_NAMES",
+      "HorseJdbcDao.SQL_SELECT_SEARCH",
+      "TournamentJdbcDao.SQL_SELECT_ALL_NAMES",
+      "TournamentJdbcDao.SQL_SELECT_SEARCH"
+  );
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcNamed;
+
+  record SqlConstant(String name, String sql) {
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  static Stream<SqlConstant> sqlConstants() throws IllegalAccessException {
+    List<SqlConstant> constants = new ArrayList<>();
+    for (Class<?> dao : DAO_CLASSES) {
+      for (Field field : dao.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class || !field.getName().startsWith("SQL_")) {
+          continue;
+        }
+        field.setAccessible(true);
+        String sql = ((String) field.get(null)).strip();
+        // fragments like the LIMIT clause are only appended to other statements
+        if (sql.matches("(?is)^(SELECT|INSERT|UPDATE|DELETE|MERGE)\\b.*")) {
+          constants.add(new SqlConstant(dao.getSimpleName() + "." + field.getName(), sql));
+        }
+      }
+    }
+    return constants.stream();
+  }
+
+  @Test
+  public void everyDaoHasSqlConstantsToCheck() throws IllegalAccessException {
+    assertThat(sqlConstants().map(c -> c.name().substring(0, c.name().indexOf('.'))).distinct())
+        .containsExactlyInAnyOrder("BreedJdbcDao", "HorseCareerJdbcDao", "HorseJdbcDao", "HorsePointsJdbcDao", "TournamentJdbcDao");
+  }
+
+  @ParameterizedTest
+  @MethodSource("sqlConstants")
+  public void hotQueriesUseAnIndex(SqlConstant constant) {
+    String plan = explain(constant.sql());
+    assertThat(plan).as("plan of %s", constant.name()).isNotBlank();
+    if (!TABLE_SCAN_ALLOWED.contains(constant.name())) {
+      assertThat(plan)
+          .as("%s falls back to a table scan:%n%s", constant.name(), plan)
+          .doesNotContainIgnoringCase(".tableScan");
+    }
+  }
+
+  @Test
+  public void keysetPagesOfSearchesSeekIntoTheSortIndex() throws ReflectiveOperationException {
+    for (Class<?> dao : List.of(HorseJdbcDao.class, TournamentJdbcDao.class)) {
+      String sql = constant(dao, "SQL_SELECT_SEARCH") + constant(dao, "SQL_AFTER_CURSOR_CLAUSE")
+          + constant(dao, "SQL_ORDER_CLAUSE") + constant(dao, "SQL_LIMIT_CLAUSE");
+      assertThat(explain(sql))
+          .as("page after a cursor of %s", dao.getSimpleName())
+          .contains("index sorted");
+    }
+  }
+
+  @Test
+  public void nameSearchesAnsweredByTheTrigramIndexReadByPrimaryKey() throws ReflectiveOperationException {
+    for (Class<?> dao : List.of(HorseJdbcDao.class, TournamentJdbcDao.class)) {
+      String sql = constant(dao, "SQL_SELECT_SEARCH") + constant(dao, "SQL_IDS_CLAUSE");
+      assertThat(explain(sql))
+          .as("name search of %s by IDs from the trigram index", dao.getSimpleName())
+          .doesNotContainIgnoringCase(".tableScan");
+    }
+  }
+
+  private static String constant(Class<?> dao, String name) throws ReflectiveOperationException {
+    Field field = dao.getDeclaredField(name);
+    field.setAccessible(true);
+    return (String) field.get(null);
+  }
+
+  private String explain(String sql) {
+    String explain = "EXPLAIN " + sql;
+    if (explain.contains("?")) {
+      // the values are never compared, EXPLAIN only needs every parameter to be set
+      int parameterCount = (int) explain.chars().filter(c -> c == '?').count();
+      return String.join("\n", jdbcTemplate.query(explain, ps -> {
+        for (int i = 1; i <= parameterCount; i++) {
+          ps.setObject(i, 1);
+        }
+      }, (rs, rowNum) -> rs.getString(1)));
+    }
+    return String.join("\n", jdbcNamed.query(explain, sampleNamedParameters(), (rs, rowNum) -> rs.getString(1)));
+  }
+
+  private static MapSqlParameterSource sampleNamedParameters() {
+    return new MapSqlParameterSource()
+        .addValue("id", 1L)
+        .addValue("ids", List.of(1L, 2L))
+        .addValue("name", "a")
+        .addValue("sex", "MALE")
+        .addValue("bornEarliest", LocalDate.of(2000, 1, 1))
+        .addValue("bornLatest", LocalDate.of(2020, 1, 1))
+        .addValue("breed", "a")
+        .addValue("startDate", LocalDate.of(2023, 1, 1))
+        .addValue("endDate", LocalDate.of(2023, 12, 31))
+        .addValue("limit", 10)
+        .addValue("afterId", 1L)
+        .addValue("afterStartDate", LocalDate.of(2023, 6, 1))
+        .addValue("from", LocalDate.of(2023, 1, 1));
+  }
+}
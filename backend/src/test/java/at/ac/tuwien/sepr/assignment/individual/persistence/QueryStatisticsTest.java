@@ -0,0 +1,129 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.QueryStatisticsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentSearchDto;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+@WebAppConfiguration
+public class QueryStatisticsTest extends TestBase {
+
+  @DynamicPropertySource
+  static void everyStatementIsSlow(DynamicPropertyRegistry registry) {
+    registry.add("app.queries.slow-threshold", () -> "0s");
+  }
+
+  @Autowired
+  QueryStatistics statistics;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  TournamentDao tournamentDao;
+
+  @Autowired
+  WebApplicationContext webAppContext;
+
+  private QueryStatisticsDto statement(String sql) {
+    return statistics.snapshot().stream()
+        .filter(s -> s.sql().equals(sql))
+        .findFirst()
+        .orElse(null);
+  }
+
+  @Test
+  public void executionsAndRowsAreRecordedPerStatement() throws Exception {
+    var previous = statement("SELECT * FROM horse WHERE id = ?");
+    long before = previous == null ? 0 : previous.executions();
+    horseDao.getById(-1);
+    horseDao.getById(-2);
+
+    var byId = statement("SELECT * FROM horse WHERE id = ?");
+    assertThat(byId.executions()).isEqualTo(before + 2);
+    assertThat(byId.rows()).isGreaterThanOrEqualTo(2);
+    assertThat(byId.maxMillis()).isGreaterThanOrEqualTo(byId.meanMillis());
+    assertThat(byId.slowExecutions()).isEqualTo(byId.executions());
+  }
+
+  @Test
+  public void namedParameterStatementsAndUpdatesAreRecorded() {
+    tournamentDao.search(new TournamentSearchDto(null, null, null, null, null));
+    assertThat(statistics.snapshot()).anySatisfy(s -> assertThat(s.sql()).containsIgnoringCase("FROM tournament"));
+
+    jdbcTemplate.update("UPDATE horse SET name = name WHERE id < 0");
+    assertThat(statement("UPDATE horse SET name = name WHERE id < 0").rows()).isPositive();
+  }
+
+  @Test
+  public void listsOfAnyLengthShareOneStatement() {
+    String byIds = "SELECT id, name FROM horse WHERE id IN (?)";
+    var previous = statement(byIds);
+    final long before = previous == null ? 0 : previous.executions();
+    horseDao.findNamesByIds(List.of(-1L));
+    horseDao.findNamesByIds(List.of(-1L, -2L));
+    horseDao.findNamesByIds(List.of(-1L, -2L, -3L));
+
+    assertThat(statement(byIds).executions()).isEqualTo(before + 3);
+    assertThat(statistics.snapshot()).noneSatisfy(s -> assertThat(s.sql()).contains("IN (?, ?"));
+    assertThat(QueryStatistics.key("SELECT * FROM t WHERE a in (?,?) AND b = ? AND c IN ( ?, ? )"))
+        .isEqualTo("SELECT * FROM t WHERE a IN (?) AND b = ? AND c IN (?)");
+    assertThat(QueryStatistics.key("INSERT INTO t (a, b) VALUES (?, ?)")).isEqualTo("INSERT INTO t (a, b) VALUES (?, ?)");
+  }
+
+  @Test
+  public void statementsOfConnectionCallbacksAndStreamsAreRecorded() {
+    String update = "UPDATE horse SET name = name WHERE id = ? AND sex = sex";
+    jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+      try (var ps = con.prepareStatement(update)) {
+        ps.setLong(1, -1);
+        ps.executeUpdate();
+      }
+      return null;
+    });
+    assertThat(statement(update)).satisfies(s -> assertThat(s.rows()).isEqualTo(s.executions()));
+
+    String query = "SELECT name FROM horse WHERE id < ? AND sex = sex";
+    long horses;
+    try (var names = jdbcTemplate.queryForStream(query, (rs, rowNum) -> rs.getString(1), 0)) {
+      horses = names.count();
+    }
+    assertThat(horses).isPositive();
+    assertThat(statement(query)).satisfies(s -> assertThat(s.rows()).isEqualTo(s.executions() * horses));
+  }
+
+  @Test
+  public void slowQueriesCarryTheirPlan() throws Exception {
+    horseDao.getById(-1);
+
+    var plan = statement("SELECT * FROM horse WHERE id = ?").slowPlan();
+    assertThat(plan).containsIgnoringCase("PRIMARY_KEY").contains("scanCount");
+
+    MockMvcBuilders.webAppContextSetup(webAppContext).build()
+        .perform(MockMvcRequestBuilders.get("/admin/queries"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].sql").isString())
+        .andExpect(jsonPath("$[0].executions").isNumber());
+  }
+}
@@ -0,0 +1,117 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
+import at.ac.tuwien.sepr.assignment.individual.service.HorseValidator;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import at.ac.tuwien.sepr.assignment.individual.type.TournamentBracket;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+public class SyntheticDataGeneratorTest {
+  private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+  private static JdbcTemplate generate(long horses, long tournaments, int threads) throws Exception {
+    var dataSource = new DriverManagerDataSource("jdbc:h2:mem:datagen-" + UUID.randomUUID()
+        + ";DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:sql/createSchema.sql'");
+    try (var connection = dataSource.getConnection()) {
+      ScriptUtils.executeSqlScript(connection, new ClassPathResource("sql/insertData.sql"));
+    }
+    new SyntheticDataGenerator(dataSource, horses, tournaments, threads, 7, 42, TODAY).generate();
+    return new JdbcTemplate(dataSource);
+  }
+
+  @Test
+  public void generatesTheRequestedRowsAboveTheExistingIds() throws Exception {
+    var jdbc = generate(500, 120, 3);
+
+    assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM horse WHERE id > 0", Long.class)).isEqualTo(500);
+    assertThat(jdbc.queryForObject("SELECT MIN(id) FROM horse WHERE id > 0", Long.class)).isEqualTo(1);
+    assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM tournament WHERE id > 0", Long.class)).isEqualTo(120);
+    assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM standings WHERE tournament_id > 0", Long.class)).isEqualTo(960);
+    assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM tournament WHERE end_date > ? OR start_date >= end_date",
+        Long.class, TODAY)).isZero();
+
+    jdbc.update("INSERT INTO horse (name, sex, date_of_birth) VALUES ('After', 'MALE', '2020-01-01')");
+    assertThat(jdbc.queryForObject("SELECT id FROM horse WHERE name = 'After'", Long.class)).isEqualTo(501);
+    jdbc.execute("SHUTDOWN");
+  }
+
+  @Test
+  public void generatedHorsesPassTheValidation() throws Exception {
+    var jdbc = generate(2000, 0, 2);
+
+    List<HorseCreateDto> horses = jdbc.query("SELECT * FROM horse WHERE id > 0", (rs, rowNum) -> new HorseCreateDto(
+        rs.getString("name"),
+        Sex.valueOf(rs.getString("sex")),
+        rs.getDate("date_of_birth").toLocalDate(),
+        rs.getFloat("height"),
+        rs.getFloat("weight"),
+        rs.getObject("breed_id") == null ? null : new BreedDto(rs.getLong("breed_id"), null)));
+    assertThat(horses).hasSize(2000);
+    assertThat(new HorseValidator(Integer.MAX_VALUE).createErrors(horses)).allSatisfy(errors -> assertThat(errors).isEmpty());
+    jdbc.execute("SHUTDOWN");
+  }
+
+  @Test
+  public void everyTournamentHasACompleteBracket() throws Exception {
+    var jdbc = generate(200, 60, 2);
+
+    for (long tournamentId : jdbc.queryForList("SELECT id FROM tournament WHERE id > 0", Long.class)) {
+      List<TournamentDetailParticipantDto> participants = jdbc.query(
+          "SELECT h.id, h.name, h.date_of_birth, s.entry_number, s.round_reached"
+              + " FROM standings s JOIN horse h ON h.id = s.horse_id WHERE s.tournament_id = ?",
+          (rs, i) -> new TournamentDetailParticipantDto(rs.getLong(1), rs.getString(2), rs.getDate(3).toLocalDate(),
+              rs.getLong(4), rs.getLong(5)),
+          tournamentId);
+      var bracket = TournamentBracket.of(participants.toArray(TournamentDetailParticipantDto[]::new));
+
+      assertThat(bracket.errors()).isEmpty();
+      assertThat(participants).extracting(TournamentDetailParticipantDto::roundReached)
+          .containsExactlyInAnyOrder(1L, 1L, 1L, 1L, 2L, 2L, 3L, 4L);
+      for (var participant : participants) {
+        assertThat(bracket.placements().get(participant.horseId()))
+            .isEqualTo(new TournamentBracket.Placement(participant.entryNumber(), participant.roundReached()));
+      }
+    }
+  }
+
+  @Test
+  public void pointsAndCareersMatchTheStandings() throws Exception {
+    var jdbc = generate(200, 60, 2);
+
+    assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM standings s JOIN tournament t ON t.id = s.tournament_id"
+        + " LEFT JOIN horse_points p ON p.horse_id = s.horse_id AND p.tournament_id = s.tournament_id"
+        + " WHERE p.points IS NULL OR p.tournament_date <> t.end_date"
+        + " OR p.points <> CASE s.round_reached WHEN 4 THEN 5 WHEN 3 THEN 3 WHEN 2 THEN 1 ELSE 0 END", Long.class))
+        .isZero();
+    assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM horse_career c WHERE c.horse_id > 0 AND ("
+        + " c.tournaments <> (SELECT COUNT(*) FROM standings s WHERE s.horse_id = c.horse_id)"
+        + " OR c.wins <> (SELECT COUNT(*) FROM standings s WHERE s.horse_id = c.horse_id AND s.round_reached = 4)"
+        + " OR c.points <> (SELECT SUM(p.points) FROM horse_points p WHERE p.horse_id = c.horse_id))", Long.class))
+        .isZero();
+    assertThat(jdbc.queryForObject("SELECT COUNT(DISTINCT horse_id) FROM standings WHERE horse_id > 0", Long.class))
+        .isEqualTo(jdbc.queryForObject("SELECT COUNT(*) FROM horse_career WHERE horse_id > 0", Long.class));
+  }
+
+  @Test
+  public void sameSeedGivesTheSameDataOnAnyNumberOfThreads() throws Exception {
+    String horses = "SELECT CONCAT_WS(';', id, name, sex, date_of_birth, height, weight, breed_id) FROM horse ORDER BY id";
+    String standings = "SELECT CONCAT_WS(';', tournament_id, horse_id, entry_number, round_reached) FROM standings"
+        + " ORDER BY tournament_id, horse_id";
+    var single = generate(300, 40, 1);
+    var several = generate(300, 40, 4);
+
+    assertThat(several.queryForList(horses, String.class)).isEqualTo(single.queryForList(horses, String.class));
+    assertThat(several.queryForList(standings, String.class)).isEqualTo(single.queryForList(standings, String.class));
+  }
+}
@@ -0,0 +1,46 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.NotFoundException;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class TournamentDaoTest extends TestBase {
+
+  @Autowired
+  TournamentDao tournamentDao;
+
+  @Test
+  public void getParticipantsOfExistingTournamentReturnsAllEightJoinedWithHorse() throws NotFoundException {
+    var participants = tournamentDao.getParticipantsByTournamentId(-1L);
+    assertThat(participants)
+        .hasSize(8)
+        .extracting(TournamentDetailParticipantDto::horseId, TournamentDetailParticipantDto::name,
+            TournamentDetailParticipantDto::entryNumber, TournamentDetailParticipantDto::roundReached)
+        .containsExactly(
+            tuple(-1L, "Wendy", 1L, 1L),
+            tuple(-2L, "Hugo", 2L, 2L),
+            tuple(-3L, "Bella", 3L, 1L),
+            tuple(-4L, "Thunder", 4L, 3L),
+            tuple(-5L, "Luna", 5L, 1L),
+            tuple(-6L, "Apollo", 6L, 2L),
+            tuple(-7L, "Sophie", 7L, 4L),
+            tuple(-8L, "Max", 8L, 1L));
+    assertThat(participants.get(0).dateOfBirth()).isEqualTo(LocalDate.of(2019, 8, 5));
+  }
+
+  @Test
+  public void getParticipantsOfNonexistentTournamentThrowsNotFound() {
+    assertThrows(NotFoundException.class, () -> tournamentDao.getParticipantsByTournamentId(-999L));
+  }
+}
@@ -0,0 +1,91 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IdBloomFilterTest {
+  private final List<Long> rows = new ArrayList<>();
+  private final AtomicInteger loads = new AtomicInteger();
+  private IdBloomFilter filter;
+
+  @BeforeEach
+  public void setup() {
+    rows.clear();
+    LongStream.rangeClosed(1, 5000).forEach(rows::add);
+    loads.set(0);
+    filter = new IdBloomFilter("test", rows::size, ids -> {
+      loads.incrementAndGet();
+      rows.forEach(ids::accept);
+    });
+  }
+
+  @Test
+  public void everyLoadedIdMightBeContained() {
+    assertThat(LongStream.rangeClosed(1, 5000).allMatch(filter::mightContain)).isTrue();
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  public void mostMissingIdsAreRuledOut() {
+    long falsePositives = LongStream.rangeClosed(5001, 105_000).filter(filter::mightContain).count();
+    // ten bits per ID and seven hashes give about 1 %, half full even less
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+
+  @Test
+  public void addedIdsMightBeContained() {
+    filter.mightContain(1);
+    filter.add(-42);
+    assertThat(filter.mightContain(-42)).isTrue();
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  public void addingBeyondTheCapacityResizesTheFilter() {
+    filter.mightContain(1);
+    rows.add(-1L);
+    for (long id = 10_001; id <= 15_002; id++) {
+      rows.add(id);
+      filter.add(id);
+    }
+    assertThat(filter.mightContain(-1)).isTrue();
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  public void rowsCreatedAfterTheCountAreLoadedAndResizeTheFilter() {
+    filter = new IdBloomFilter("test", () -> 0, ids -> {
+      loads.incrementAndGet();
+      rows.forEach(ids::accept);
+    });
+    assertThat(filter.mightContain(5000)).isTrue();
+    // sized for no rows, it is full, and rebuilt on the next check
+    assertThat(filter.mightContain(1)).isTrue();
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  public void invalidateReloadsOnTheNextCheck() {
+    filter.mightContain(1);
+    rows.add(-7L);
+    filter.invalidate();
+    assertThat(filter.mightContain(-7)).isTrue();
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  public void addsDuringALoadAreKept() {
+    filter = new IdBloomFilter("test", rows::size, ids -> {
+      rows.forEach(ids::accept);
+      // committed after the IDs were read
+      filter.add(-99);
+    });
+    assertThat(filter.mightContain(-99)).isTrue();
+  }
+}
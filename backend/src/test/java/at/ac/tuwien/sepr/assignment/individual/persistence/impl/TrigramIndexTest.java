@@ -0,0 +1,108 @@
+package at.ac.tuwien.sepr.assignment.individual.persistence.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TrigramIndexTest {
+  private final Map<Long, String> rows = new HashMap<>();
+  private final AtomicInteger loads = new AtomicInteger();
+  private TrigramIndex index;
+
+  @BeforeEach
+  public void setup() {
+    rows.clear();
+    rows.put(1L, "Wendy");
+    rows.put(2L, "Luna");
+    rows.put(3L, "Lunatic");
+    rows.put(4L, "Apollo");
+    loads.set(0);
+    index = new TrigramIndex("test.name", names -> {
+      loads.incrementAndGet();
+      rows.forEach(names::add);
+    });
+  }
+
+  @Test
+  public void lookupFindsSubstringsIgnoringCase() {
+    assertThat(index.lookup("una")).hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder(2L, 3L));
+    assertThat(index.lookup("LUNAT")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(3L));
+    assertThat(index.lookup("wEnDy")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+  }
+
+  @Test
+  public void lookupChecksTheWholeStringNotOnlyItsTrigrams() {
+    // every trigram of "polpol" is in "Apollo", the string itself is not
+    assertThat(index.lookup("polpol")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    assertThat(index.lookup("xyz")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+  }
+
+  @Test
+  public void lookupLeavesShortStringsAndWildcardsToTheDatabase() {
+    assertThat(index.lookup("lu")).isEmpty();
+    assertThat(index.lookup("l%na")).isEmpty();
+    assertThat(index.lookup("lu_a")).isEmpty();
+  }
+
+  @Test
+  public void lookupLeavesSearchesWithTooManyMatchesToTheDatabase() {
+    for (long id = 10; id <= 10 + TrigramIndex.MAX_CANDIDATES; id++) {
+      rows.put(id, "Horse " + id);
+    }
+    assertThat(index.lookup("hors")).isEmpty();
+    assertThat(index.lookup("horse 10")).hasValueSatisfying(ids -> assertThat(ids).hasSize(22));
+  }
+
+  @Test
+  public void writesAreVisibleToTheNextLookup() {
+    assertThat(index.lookup("luna")).hasValueSatisfying(ids -> assertThat(ids).hasSize(2));
+    index.put(5L, "Lunaria");
+    index.put(2L, "Stella");
+    index.remove(3L);
+    assertThat(index.lookup("luna")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(5L));
+    assertThat(index.lookup("stel")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(2L));
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  public void invalidateReloadsOnTheNextLookup() {
+    assertThat(index.lookup("wendy")).isPresent();
+    rows.put(1L, "Thunder");
+    index.invalidate();
+    assertThat(index.lookup("wendy")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    assertThat(index.lookup("thunder")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  public void writesDuringALoadAreKept() {
+    index = new TrigramIndex("test.name", names -> {
+      rows.forEach(names::add);
+      // committed after the rows were read
+      index.put(5L, "Lunaria");
+      index.remove(2L);
+    });
+    assertThat(index.lookup("luna")).hasValueSatisfying(ids -> assertThat(ids).containsExactlyInAnyOrder(3L, 5L));
+  }
+
+  @Test
+  public void manyWritesRebuildTheIndex() {
+    assertThat(index.lookup("wendy")).isPresent();
+    for (long id = 10; id <= 10 + TrigramIndex.MIN_CHANGES_BEFORE_REBUILD; id++) {
+      rows.put(id, "Horse " + id);
+      index.put(id, "Horse " + id);
+    }
+    rows.put(1L, "Thunder");
+    index.put(1L, "Thunder");
+
+    assertThat(index.lookup("thunder")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(1L));
+    assertThat(loads).hasValue(2);
+    assertThat(index.lookup("horse 10000")).hasValueSatisfying(ids -> assertThat(ids).containsExactly(10000L));
+    assertThat(index.lookup("wendy")).hasValueSatisfying(ids -> assertThat(ids).isEmpty());
+    assertThat(loads).hasValue(2);
+  }
+}
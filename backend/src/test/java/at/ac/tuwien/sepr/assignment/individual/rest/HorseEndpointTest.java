@@ -3,22 +3,44 @@ package at.ac.tuwien.sepr.assignment.individual.rest;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import at.ac.tuwien.sepr.assignment.individual.MaxQueries;
 import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.FieldErrorDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCareerStatsDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportResultDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseImportRowDto;
 import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.LeaderboardEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import at.ac.tuwien.sepr.assignment.individual.service.HorseService;
+import at.ac.tuwien.sepr.assignment.individual.service.TournamentService;
 import at.ac.tuwien.sepr.assignment.individual.type.Sex;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.web.WebAppConfiguration;
@@ -41,6 +63,18 @@ public class HorseEndpointTest extends TestBase {
   @Autowired
   ObjectMapper objectMapper;
 
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  TournamentService tournamentService;
+
+  @Autowired
+  RequestQueryCounter queryCounter;
+
   @BeforeEach
   public void setup() {
     this.mockMvc = MockMvcBuilders.webAppContextSetup(webAppContext).build();
@@ -55,6 +89,7 @@ public class HorseEndpointTest extends TestBase {
   }
 
   @Test
+  @MaxQueries(2)
   public void gettingAllHorses() throws Exception {
     byte[] body = mockMvc
         .perform(MockMvcRequestBuilders
@@ -78,6 +113,7 @@ public class HorseEndpointTest extends TestBase {
   }
 
   @Test
+  @MaxQueries(2)
   public void searchByBreedWelFindsThreeHorses() throws Exception {
     var body = mockMvc
         .perform(MockMvcRequestBuilders
@@ -135,6 +171,256 @@ public class HorseEndpointTest extends TestBase {
                 "Welsh Cob"));
   }
 
+  @Test
+  public void pagingWithCursorReturnsEveryHorseExactlyOnce() throws Exception {
+    List<Long> ids = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      var request = MockMvcRequestBuilders
+          .get("/horses")
+          .queryParam("limit", "10")
+          .accept(MediaType.APPLICATION_JSON);
+      if (cursor != null) {
+        request.queryParam("cursor", cursor);
+      }
+      var response = mockMvc.perform(request)
+          .andExpect(status().isOk())
+          .andReturn().getResponse();
+
+      List<HorseListDto> page = objectMapper.readerFor(HorseListDto.class)
+          .<HorseListDto>readValues(response.getContentAsByteArray()).readAll();
+      page.forEach(horse -> ids.add(horse.id()));
+      cursor = response.getHeader("X-Next-Cursor");
+      pages++;
+    } while (cursor != null);
+
+    assertThat(pages).isEqualTo(4);
+    assertThat(ids).hasSize(32).doesNotHaveDuplicates().isSorted();
+  }
+
+  @Test
+  public void searchWithLimitAboveTheLargestPageReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("limit", "1001")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void searchWithMalformedCursorReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("cursor", "not a cursor")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void streamingAllHorsesWritesOneHorsePerLine() throws Exception {
+    var started = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .accept("application/x-ndjson"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String body = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-ndjson"))
+        .andReturn().getResponse().getContentAsString();
+
+    String[] lines = body.split("\n");
+    assertThat(body).endsWith("\n");
+    assertThat(lines).hasSize(32);
+    List<HorseListDto> horses = new ArrayList<>();
+    for (String line : lines) {
+      horses.add(objectMapper.readValue(line, HorseListDto.class));
+    }
+    assertThat(horses)
+        .extracting(HorseListDto::id)
+        .doesNotHaveDuplicates()
+        .isSorted();
+    assertThat(horses)
+        .filteredOn(horse -> horse.id() == -2L)
+        .singleElement()
+        .satisfies(horse -> assertThat(horse.breed().name()).isNotBlank());
+  }
+
+  @Test
+  public void statementsWritingTheStreamAreCountedForTheRequest() throws Exception {
+    queryCounter.begin("stream-horses");
+    MDC.put("r", "stream-horses");
+    try {
+      var started = mockMvc
+          .perform(MockMvcRequestBuilders
+              .get("/horses")
+              .accept("application/x-ndjson"))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+      mockMvc.perform(asyncDispatch(started))
+          .andExpect(status().isOk());
+    } finally {
+      MDC.remove("r");
+    }
+    // the 32 horses are read in chunks of 5 on the thread writing the body
+    assertThat(queryCounter.end("stream-horses")).isEqualTo(8);
+  }
+
+  @Test
+  public void streamingWithMalformedCursorReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("cursor", "not a cursor")
+            .accept("application/x-ndjson"))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void bulkCreateFromJsonCreatesValidRowsAndReportsTheOthers() throws Exception {
+    String horses = """
+        [
+          {"name": "Alpha", "sex": "MALE", "dateOfBirth": "2015-01-01", "height": 1.5, "weight": 500, "breed": {"id": -1}},
+          {"name": "B3lla", "sex": "FEMALE", "dateOfBirth": "2015-01-01", "height": 1.5, "weight": 500},
+          {"name": "Bravo", "sex": "FEMALE", "dateOfBirth": "2016-02-02", "height": 1.4, "weight": 450},
+          {"name": "Charlie", "sex": "MALE", "dateOfBirth": "2017-03-03", "height": 1.6, "weight": 550, "breed": {"id": -999}},
+          {"name": "Delta", "sex": "MALE", "dateOfBirth": "2018-04-04", "height": 1.7, "weight": 600, "breed": {"id": -3}}
+        ]
+        """;
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(horses))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    HorseImportResultDto result = objectMapper.readValue(body, HorseImportResultDto.class);
+
+    assertThat(result.received()).isEqualTo(5);
+    assertThat(result.created()).isEqualTo(3);
+    assertThat(result.rejected()).isEqualTo(2);
+    assertThat(result.rows()).extracting(HorseImportRowDto::row).containsExactly(1, 2, 3, 4, 5);
+    assertThat(result.rows()).extracting(row -> row.id() != null).containsExactly(true, false, true, false, true);
+    assertThat(result.rows().get(1).errors()).containsExactly("Only letters and spaces allowed in name");
+    assertThat(result.rows().get(1).fieldErrors()).extracting(FieldErrorDto::field).containsExactly("name");
+    assertThat(result.rows().get(3).errors()).containsExactly("Breed with ID -999 does not exist");
+    assertThat(result.rows().get(3).fieldErrors()).extracting(FieldErrorDto::field).containsExactly("breed");
+
+    byte[] found = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses")
+            .queryParam("bornEarliest", "2015-01-01")
+            .queryParam("bornLatest", "2018-12-31")
+            .queryParam("sex", "MALE")
+            .accept(MediaType.APPLICATION_JSON))
+        .andReturn().getResponse().getContentAsByteArray();
+    List<HorseListDto> males = objectMapper.readerFor(HorseListDto.class).<HorseListDto>readValues(found).readAll();
+    assertThat(males)
+        .extracting(HorseListDto::id)
+        .contains(result.rows().get(0).id(), result.rows().get(4).id());
+  }
+
+  @Test
+  public void bulkCreateFromCsvReportsEveryBrokenColumn() throws Exception {
+    String horses = """
+        name,sex,dateOfBirth,height,weight,breedId
+        Echo,female,2019-05-05,1.3,400,-2
+        Foxtrot,MARE,2019-13-01,tall,400,
+        Golf,MALE,2020-06-06,1.45,480,
+        """;
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/bulk")
+            .contentType("text/csv")
+            .content(horses))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    HorseImportResultDto result = objectMapper.readValue(body, HorseImportResultDto.class);
+
+    assertThat(result.created()).isEqualTo(2);
+    assertThat(result.rows().get(0).id()).isNotNull();
+    assertThat(result.rows().get(1).errors()).containsExactly(
+        "Sex must be MALE or FEMALE",
+        "Date of birth must be given as yyyy-mm-dd",
+        "Height must be a number");
+    assertThat(result.rows().get(1).fieldErrors()).extracting(FieldErrorDto::field).containsExactly("sex", "dateOfBirth", "height");
+    assertThat(result.rows().get(2).id()).isNotNull();
+  }
+
+  @Test
+  public void bulkCreateStopsAtUnreadableJson() throws Exception {
+    String horses = """
+        [
+          {"name": "Hotel", "sex": "MALE", "dateOfBirth": "2015-01-01", "height": 1.5, "weight": 500},
+          {"name": "India", "sex": "MALE", "dateOfBirth": "2015-01-01", "height": 1.5, "weight": 500},
+          {"name": "Juliett", "sex":
+        """;
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/bulk")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(horses))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    HorseImportResultDto result = objectMapper.readValue(body, HorseImportResultDto.class);
+
+    assertThat(result.received()).isEqualTo(3);
+    assertThat(result.created()).isEqualTo(2);
+    assertThat(result.rows().get(2).errors()).singleElement().asString().startsWith("Row could not be read");
+  }
+
+  @Test
+  public void exportWritesEveryHorseAsCsvLine() throws Exception {
+    var started = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/export"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String body = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv"))
+        .andReturn().getResponse().getContentAsString();
+
+    List<String> lines = body.lines().toList();
+    assertThat(lines).hasSize(33);
+    assertThat(lines.get(0)).isEqualTo("id,name,sex,dateOfBirth,height,weight,breedId,breed");
+    assertThat(lines).contains("-32,Luna,FEMALE,2018-10-10,1.62,670.0,-19,\"Welsh Cob\"");
+  }
+
+  @Test
+  public void exportCanBeImportedAgainAndCompressed() throws Exception {
+    var started = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/export")
+            .queryParam("name", "luna")
+            .queryParam("gzip", "true"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    var response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/gzip"))
+        .andReturn().getResponse();
+    assertThat(response.getHeader("Content-Disposition")).contains("horses.csv.gz");
+
+    byte[] csv;
+    try (var in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+      csv = in.readAllBytes();
+    }
+    byte[] imported = mockMvc
+        .perform(MockMvcRequestBuilders
+            .post("/horses/bulk")
+            .contentType("text/csv")
+            .content(csv))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    HorseImportResultDto result = objectMapper.readValue(imported, HorseImportResultDto.class);
+    assertThat(result.received()).isEqualTo(2);
+    assertThat(result.created()).isEqualTo(2);
+  }
+
   @Test
   public void getByIdPositive() throws Exception {
     byte[] body = mockMvc
@@ -242,4 +528,110 @@ public class HorseEndpointTest extends TestBase {
             .andExpect(status().isUnprocessableEntity());
   }
 
+  @Test
+  public void horseIsNotModifiedUntilItIsUpdated() throws Exception {
+    String etag = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/-1")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(etag).isNotBlank();
+
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/-1")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified());
+
+    horseDao.update(horseService.getById(-1));
+
+    String newEtag = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/-1")
+            .accept(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(newEtag).isNotEqualTo(etag);
+  }
+
+  @Test
+  @MaxQueries(2)
+  public void leaderboardListsTheBestHorsesFirst() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/leaderboard")
+            .param("limit", "3")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    List<LeaderboardEntryDto> entries = objectMapper.readerForListOf(LeaderboardEntryDto.class).readValue(body);
+    assertThat(entries).hasSize(3);
+    assertThat(entries).extracting(LeaderboardEntryDto::points).isSortedAccordingTo(Comparator.reverseOrder());
+    assertThat(entries.get(0).rank()).isEqualTo(1);
+  }
+
+  @Test
+  public void leaderboardWithoutPositiveLimitReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/leaderboard")
+            .param("limit", "0"))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  public void leaderboardAboveTheLargestPageReturns422() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/leaderboard")
+            .param("limit", "1001"))
+        .andExpect(status().isUnprocessableEntity());
+  }
+
+  @Test
+  @MaxQueries(3)
+  public void careerListsEveryTournamentLatestFirst() throws Exception {
+    var career = career(-7);
+
+    assertThat(career.name()).isEqualTo("Sophie");
+    assertThat(career.tournaments())
+        .extracting(HorseCareerEntryDto::tournamentId, HorseCareerEntryDto::roundReached)
+        .containsExactly(tuple(-5L, 2L), tuple(-9L, 0L), tuple(-1L, 4L));
+    assertThat(career.stats()).isEqualTo(new HorseCareerStatsDto(3, 2, 1, 1, 4, 6));
+  }
+
+  @Test
+  public void careerCountersFollowTheStandings() throws Exception {
+    // Thunder wins the final of tournament -1 instead of Sophie
+    var root = tournamentService.getTournamentStandingById(-1).tree();
+    var changed = new TournamentStandingsTreeDto(root.branches()[0].thisParticipant(), root.branches());
+    tournamentService.updateStandings(-1, null, new TournamentStandingsDto(-1, null, null, changed));
+
+    assertThat(career(-7).stats()).isEqualTo(new HorseCareerStatsDto(3, 2, 1, 0, 3, 4));
+    assertThat(career(-4).stats().wins()).isEqualTo(1);
+  }
+
+  @Test
+  @MaxQueries(1)
+  public void careerOfNonexistentHorseReturns404() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/-999/career")
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+  }
+
+  private HorseCareerDto career(long horseId) throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/horses/{id}/career", horseId)
+            .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    return objectMapper.readValue(body, HorseCareerDto.class);
+  }
 }
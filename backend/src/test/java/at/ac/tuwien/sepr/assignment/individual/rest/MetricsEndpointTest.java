@@ -0,0 +1,70 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.config.LogFilter;
+import at.ac.tuwien.sepr.assignment.individual.config.RequestMetrics;
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+@EnableWebMvc
+@WebAppConfiguration
+public class MetricsEndpointTest extends TestBase {
+
+  @Autowired
+  private WebApplicationContext webAppContext;
+  private MockMvc mockMvc;
+
+  @Autowired
+  RequestMetrics metrics;
+
+  @Autowired
+  RequestQueryCounter queryCounter;
+
+  @BeforeEach
+  public void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(webAppContext)
+        .addFilters(new LogFilter(metrics, queryCounter, 10, 1.0))
+        .build();
+  }
+
+  @Test
+  public void requestsAreRecordedByRouteTemplate() throws Exception {
+    mockMvc.perform(MockMvcRequestBuilders.get("/horses/-1")).andExpect(status().isOk());
+    mockMvc.perform(MockMvcRequestBuilders.get("/horses/-2")).andExpect(status().isOk());
+    mockMvc.perform(MockMvcRequestBuilders.get("/horses/-9999/career")).andExpect(status().isNotFound());
+
+    String body = mockMvc.perform(MockMvcRequestBuilders.get("/metrics"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MetricsEndpoint.PROMETHEUS_TEXT))
+        .andReturn().getResponse().getContentAsString();
+
+    String route = "method=\"GET\",route=\"/horses/{id}\"";
+    assertThat(body)
+        .contains("# TYPE http_server_requests_seconds summary")
+        .contains("http_server_requests_seconds{" + route + ",quantile=\"0.99\"} ")
+        .contains("http_server_requests_total{method=\"GET\",route=\"/horses/{id}/career\",status=\"4xx\"} 1")
+        .doesNotContain("/horses/-1");
+    assertThat(body.lines().filter(line -> line.startsWith("http_server_requests_total{" + route + ",status=\"2xx\"}")))
+        .singleElement()
+        .satisfies(line -> assertThat(Long.parseLong(line.substring(line.lastIndexOf(' ') + 1))).isGreaterThanOrEqualTo(2));
+    assertThat(body.lines().filter(line -> line.startsWith("http_server_response_size_bytes_total{" + route + "}")))
+        .singleElement()
+        .satisfies(line -> assertThat(Long.parseLong(line.substring(line.lastIndexOf(' ') + 1))).isPositive());
+  }
+}
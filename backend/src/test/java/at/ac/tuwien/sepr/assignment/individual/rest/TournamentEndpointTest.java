@@ -0,0 +1,324 @@
+package at.ac.tuwien.sepr.assignment.individual.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import at.ac.tuwien.sepr.assignment.individual.MaxQueries;
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.persistence.HorseDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.RequestQueryCounter;
+import at.ac.tuwien.sepr.assignment.individual.service.HorseService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+@EnableWebMvc
+@WebAppConfiguration
+public class TournamentEndpointTest extends TestBase {
+
+  @Autowired
+  private WebApplicationContext webAppContext;
+  private MockMvc mockMvc;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  HorseDao horseDao;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  RequestQueryCounter queryCounter;
+
+  @BeforeEach
+  public void setup() {
+    this.mockMvc = MockMvcBuilders.webAppContextSetup(webAppContext).build();
+  }
+
+  @Test
+  public void exportResultsWritesTheWinnerFirst() throws Exception {
+    var started = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-1/results/export"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String body = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv"))
+        .andReturn().getResponse().getContentAsString();
+
+    assertThat(body.lines().toList())
+        .hasSize(9)
+        .startsWith(
+            "horseId,name,dateOfBirth,entryNumber,roundReached",
+            "-7,Sophie,2010-06-18,7,4",
+            "-4,Thunder,2008-07-15,4,3");
+  }
+
+  @Test
+  public void statementsWritingTheExportAreCountedForTheRequest() throws Exception {
+    queryCounter.begin("export-results");
+    MDC.put("r", "export-results");
+    try {
+      var started = mockMvc
+          .perform(MockMvcRequestBuilders
+              .get("/tournaments/-1/results/export"))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+      mockMvc.perform(asyncDispatch(started))
+          .andExpect(status().isOk());
+    } finally {
+      MDC.remove("r");
+    }
+    // the results are only read on the thread writing the body, after the tournament was looked up
+    assertThat(queryCounter.end("export-results")).isEqualTo(2);
+  }
+
+  @Test
+  @MaxQueries(1)
+  public void exportResultsOfNonexistentTournamentReturns404() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-999/results/export"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void unchangedTournamentIsNotModified() throws Exception {
+    String etag = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-1/standings"))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(HttpHeaders.ETAG))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    for (String path : new String[] {"/tournaments/-1/standings", "/tournaments/-1"}) {
+      String body = mockMvc
+          .perform(MockMvcRequestBuilders
+              .get(path)
+              .header(HttpHeaders.IF_NONE_MATCH, etag))
+          .andExpect(status().isNotModified())
+          .andExpect(header().string(HttpHeaders.ETAG, etag))
+          .andReturn().getResponse().getContentAsString();
+      assertThat(body).isEmpty();
+    }
+  }
+
+  @Test
+  public void updatingAParticipantChangesTheETagOfTheTournament() throws Exception {
+    String etag = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-1/standings"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    // the winner of tournament -1
+    horseDao.update(horseService.getById(-7));
+
+    String newEtag = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-1/standings")
+            .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(newEtag).isNotEqualTo(etag);
+  }
+
+  @Test
+  public void etagOfNonexistentTournamentReturns404() throws Exception {
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-999/standings")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void standingsTreeIsBuiltAndRebuiltAfterAChange() throws Exception {
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo("Sophie");
+    // a second request is served from the cached standings
+    assertThat(standingsTree().branches()[0].thisParticipant().name()).isEqualTo("Thunder");
+
+    var sophie = horseService.getById(-7);
+    horseDao.update(new HorseDetailDto(sophie.id(), "Sophia", sophie.sex(), sophie.dateOfBirth(),
+        sophie.height(), sophie.weight(), sophie.breed()));
+
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo("Sophia");
+  }
+
+  @Test
+  public void cachedStandingsAreServedWithTheVersionReadForTheETag() throws Exception {
+    standingsTree();
+
+    queryCounter.begin("cached-standings");
+    MDC.put("r", "cached-standings");
+    try {
+      assertThat(standingsTree().thisParticipant().name()).isEqualTo("Sophie");
+    } finally {
+      MDC.remove("r");
+    }
+    assertThat(queryCounter.end("cached-standings")).isEqualTo(1);
+  }
+
+  @Test
+  public void putStandingsWritesOnlyTheChangedRows() throws Exception {
+    var root = standingsTree();
+    // Thunder, the loser of the final, wins it instead of Sophie
+    var changed = new TournamentStandingsTreeDto(root.branches()[0].thisParticipant(), root.branches());
+
+    String etag = mockMvc
+        .perform(putStandings(changed))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    assertThat(etag).isNotNull();
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo("Thunder");
+    assertThat(jdbcTemplate.queryForList("SELECT horse_id FROM standings WHERE tournament_id = -1 AND version > 0", Long.class))
+        .containsExactlyInAnyOrder(-4L, -7L);
+    assertThat(jdbcTemplate.queryForObject("SELECT round_reached FROM standings WHERE tournament_id = -1 AND horse_id = -7", Integer.class))
+        .isEqualTo(3);
+  }
+
+  @Test
+  public void putUnchangedStandingsWritesNothing() throws Exception {
+    mockMvc
+        .perform(putStandings(standingsTree()))
+        .andExpect(status().isOk());
+
+    assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM standings WHERE tournament_id = -1 AND version > 0", Integer.class))
+        .isZero();
+  }
+
+  @Test
+  public void putStandingsWithAWinnerOutsideTheFinalReturns422() throws Exception {
+    var root = standingsTree();
+    var leaf = root.branches()[0].branches()[0].branches()[0];
+    var changed = new TournamentStandingsTreeDto(leaf.thisParticipant(), root.branches());
+
+    mockMvc
+        .perform(putStandings(changed))
+        .andExpect(status().isUnprocessableEntity());
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo("Sophie");
+  }
+
+  @Test
+  public void putStandingsWithParticipantsWithoutHorseIdReturns422() throws Exception {
+    var body = (ObjectNode) objectMapper.valueToTree(new TournamentStandingsDto(-1, null, null, standingsTree()));
+    ((ObjectNode) body.get("tree")).putObject("thisParticipant");
+
+    mockMvc
+        .perform(MockMvcRequestBuilders
+            .put("/tournaments/-1/standings")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(body)))
+        .andExpect(status().isUnprocessableEntity());
+
+    var root = standingsTree();
+    var firstMatch = root.branches()[0].branches()[0];
+    var leaf = firstMatch.branches()[0].thisParticipant();
+    var nameless = new TournamentDetailParticipantDto(null, leaf.name(), leaf.dateOfBirth(), leaf.entryNumber(), leaf.roundReached());
+    firstMatch.branches()[0] = new TournamentStandingsTreeDto(nameless, null);
+
+    mockMvc
+        .perform(putStandings(root))
+        .andExpect(status().isUnprocessableEntity());
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo("Sophie");
+  }
+
+  @Test
+  public void putStandingsWithAForeignHorseReturns409() throws Exception {
+    var root = standingsTree();
+    var lastMatch = root.branches()[1].branches()[1];
+    var stranger = new TournamentDetailParticipantDto(-20L, null, null, 8L, 1L);
+    var changed = new TournamentStandingsTreeDto(root.thisParticipant(), new TournamentStandingsTreeDto[] {
+        root.branches()[0],
+        new TournamentStandingsTreeDto(root.branches()[1].thisParticipant(), new TournamentStandingsTreeDto[] {
+            root.branches()[1].branches()[0],
+            new TournamentStandingsTreeDto(lastMatch.thisParticipant(), new TournamentStandingsTreeDto[] {
+                lastMatch.branches()[0],
+                new TournamentStandingsTreeDto(stranger, null)
+            })
+        })
+    });
+
+    mockMvc
+        .perform(putStandings(changed))
+        .andExpect(status().isConflict());
+  }
+
+  @Test
+  public void putStandingsWithAStaleETagReturns412() throws Exception {
+    var root = standingsTree();
+    var changed = new TournamentStandingsTreeDto(root.branches()[0].thisParticipant(), root.branches());
+
+    mockMvc
+        .perform(putStandings(changed).header(HttpHeaders.IF_MATCH, "\"-1\""))
+        .andExpect(status().isPreconditionFailed());
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo("Sophie");
+  }
+
+  @Test
+  public void putStandingsWithTheCurrentETagReturnsTheNextVersion() throws Exception {
+    var root = standingsTree();
+    var changed = new TournamentStandingsTreeDto(root.branches()[0].thisParticipant(), root.branches());
+    long version = jdbcTemplate.queryForObject("SELECT version FROM tournament WHERE id = -1", Long.class);
+
+    mockMvc
+        .perform(putStandings(changed).header(HttpHeaders.IF_MATCH, "\"%d\"".formatted(version)))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"%d\"".formatted(version + 1)));
+    assertThat(standingsTree().thisParticipant().name()).isEqualTo(root.branches()[0].thisParticipant().name());
+  }
+
+  @Test
+  public void putUnchangedStandingsWithAStaleETagReturns412() throws Exception {
+    mockMvc
+        .perform(putStandings(standingsTree()).header(HttpHeaders.IF_MATCH, "\"-1\""))
+        .andExpect(status().isPreconditionFailed());
+  }
+
+  private MockHttpServletRequestBuilder putStandings(TournamentStandingsTreeDto tree) throws Exception {
+    return MockMvcRequestBuilders
+        .put("/tournaments/-1/standings")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsBytes(new TournamentStandingsDto(-1, null, null, tree)));
+  }
+
+  private TournamentStandingsTreeDto standingsTree() throws Exception {
+    byte[] body = mockMvc
+        .perform(MockMvcRequestBuilders
+            .get("/tournaments/-1/standings"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+    return objectMapper.readValue(body, TournamentStandingsDto.class).tree();
+  }
+}
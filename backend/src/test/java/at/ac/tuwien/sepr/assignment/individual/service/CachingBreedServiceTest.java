@@ -0,0 +1,77 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedSearchDto;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class CachingBreedServiceTest extends TestBase {
+
+  @Autowired
+  BreedService breedService;
+
+  @Autowired
+  CachingBreedService cache;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void breedServiceIsTheCache() {
+    assertThat(breedService).isSameAs(cache);
+  }
+
+  @Test
+  public void lookupsAfterTheFirstAreAnsweredFromMemory() {
+    var before = cache.statistics();
+    assertThat(breedService.findBreedsByIds(Set.of(-1L, -3L)))
+        .extracting(BreedDto::name)
+        .containsExactlyInAnyOrder("Andalusian", "Arabian");
+    assertThat(breedService.search(new BreedSearchDto("pony", 2)))
+        .extracting(BreedDto::name)
+        .containsExactly("Connemara Pony", "Dartmoor Pony");
+
+    var after = cache.statistics();
+    assertThat(after.size()).isEqualTo(20);
+    assertThat(after.hits() - before.hits()).isEqualTo(2);
+    assertThat(after.misses()).isEqualTo(before.misses());
+    assertThat(after.loads() - before.loads()).isLessThanOrEqualTo(1);
+  }
+
+  @Test
+  public void unknownIdsAreReadThroughAndReloadTheCache() {
+    breedService.allBreeds();
+    var before = cache.statistics();
+    jdbcTemplate.update("INSERT INTO breed (id, name) VALUES (-99, 'Noriker')");
+
+    assertThat(breedService.findBreedsByIds(Set.of(-1L, -99L)))
+        .extracting(BreedDto::name)
+        .containsExactlyInAnyOrder("Andalusian", "Noriker");
+    assertThat(breedService.search(new BreedSearchDto("norik", null)))
+        .extracting(BreedDto::id)
+        .containsExactly(-99L);
+
+    var after = cache.statistics();
+    assertThat(after.misses() - before.misses()).isEqualTo(1);
+    assertThat(after.loads() - before.loads()).isEqualTo(1);
+    assertThat(after.size()).isEqualTo(21);
+  }
+
+  @Test
+  public void refreshLoadsTheTableAgain() {
+    var before = cache.statistics();
+    cache.refresh();
+    var after = cache.statistics();
+    assertThat(after.loads() - before.loads()).isEqualTo(1);
+    assertThat(after.loadedAt()).isNotNull();
+  }
+}
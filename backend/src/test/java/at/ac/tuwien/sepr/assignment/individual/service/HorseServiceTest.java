@@ -36,7 +36,7 @@ public class HorseServiceTest extends TestBase {
 
   @Test
   public void searchByBreedWelFindsThreeHorses() throws ValidationException {
-    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null);
+    var searchDto = new HorseSearchDto(null, null, null, null, "Wel", null, null);
     var horses = horseService.search(searchDto);
     assertNotNull(horses);
     // We don't have height and weight of the horses here, so no reason to test for them.
@@ -55,7 +55,7 @@ public class HorseServiceTest extends TestBase {
     var searchDto = new HorseSearchDto(null, null,
         LocalDate.of(2017, 3, 5),
         LocalDate.of(2018, 10, 10),
-        null, null);
+        null, null, null);
     var horses = horseService.search(searchDto);
     assertNotNull(horses);
     assertThat(horses)
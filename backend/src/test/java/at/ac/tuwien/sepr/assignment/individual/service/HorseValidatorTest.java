@@ -0,0 +1,75 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.FieldErrorDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HorseValidatorTest {
+  private static final HorseCreateDto VALID =
+      new HorseCreateDto("Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380, new BreedDto(-1, null));
+  private static final HorseCreateDto INVALID =
+      new HorseCreateDto("W3ndy", null, LocalDate.now().plusDays(1), 4f, 10, new BreedDto(0, null));
+
+  private final HorseValidator validator = new HorseValidator(Integer.MAX_VALUE);
+
+  @Test
+  public void everyViolatedRuleIsReportedWithItsField() {
+    assertThat(validator.createErrors(List.of(VALID, INVALID)))
+        .satisfies(errors -> assertThat(errors.get(0)).isEmpty())
+        .satisfies(errors -> assertThat(errors.get(1)).extracting(FieldErrorDto::field)
+            .containsExactly("name", "sex", "dateOfBirth", "height", "weight", "breed"));
+  }
+
+  @Test
+  public void blankNameIsOnlyReportedAsMissing() {
+    var horse = new HorseCreateDto(" ", Sex.MALE, LocalDate.of(2019, 8, 5), 1.4f, 380, null);
+    assertThat(validator.createErrors(List.of(horse)).get(0))
+        .containsExactly(new FieldErrorDto("name", "No name given"));
+  }
+
+  @Test
+  public void horseToUpdateNeedsItsId() {
+    var horse = new HorseDetailDto(null, "Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380, null);
+    assertThat(validator.updateErrors(List.of(horse, horse.withId(-1))))
+        .containsExactly(List.of(new FieldErrorDto("id", "No ID given")), List.of());
+    assertThatThrownBy(() -> validator.validateForUpdate(horse))
+        .isInstanceOf(ValidationException.class)
+        .extracting(e -> ((ValidationException) e).errors())
+        .isEqualTo(List.of("No ID given"));
+  }
+
+  @Test
+  public void singleHorseIsRejectedWithAllMessages() {
+    assertThatThrownBy(() -> validator.validateCreate(INVALID))
+        .isInstanceOf(ValidationException.class)
+        .extracting(e -> ((ValidationException) e).errors())
+        .asList()
+        .hasSize(6)
+        .contains("Only letters and spaces allowed in name", "Date of birth cannot be in the future");
+  }
+
+  @Test
+  public void parallelBatchKeepsTheOrderOfTheHorses() {
+    List<HorseCreateDto> horses = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      horses.add(i % 7 == 0 ? INVALID : VALID);
+    }
+
+    List<List<FieldErrorDto>> parallel = new HorseValidator(16).createErrors(horses);
+
+    assertThat(parallel).isEqualTo(validator.createErrors(horses));
+    for (int i = 0; i < horses.size(); i++) {
+      assertThat(parallel.get(i).isEmpty()).isEqualTo(i % 7 != 0);
+    }
+  }
+}
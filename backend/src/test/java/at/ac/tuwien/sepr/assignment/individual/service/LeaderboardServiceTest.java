@@ -0,0 +1,108 @@
+package at.ac.tuwien.sepr.assignment.individual.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import at.ac.tuwien.sepr.assignment.individual.TestBase;
+import at.ac.tuwien.sepr.assignment.individual.dto.LeaderboardEntryDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles({"test", "datagen"}) // enable "test" spring profile during test execution in order to pick up configuration from application-test.yml
+@SpringBootTest
+public class LeaderboardServiceTest extends TestBase {
+
+  /**
+   * The leaderboard computed from the standings directly, as it was before the points were stored.
+   */
+  private static final String SQL_RANKING_FROM_STANDINGS = "SELECT s.horse_id, h.name,"
+      + " SUM(CASE s.round_reached WHEN 4 THEN 5 WHEN 3 THEN 3 WHEN 2 THEN 1 ELSE 0 END) AS points"
+      + " FROM standings s JOIN horse h ON h.id = s.horse_id"
+      + " GROUP BY s.horse_id, h.name HAVING SUM(CASE s.round_reached WHEN 4 THEN 5 WHEN 3 THEN 3 WHEN 2 THEN 1 ELSE 0 END) > 0"
+      + " ORDER BY points DESC, s.horse_id";
+
+  @Autowired
+  LeaderboardService leaderboardService;
+
+  @Autowired
+  TournamentService tournamentService;
+
+  @Autowired
+  HorseService horseService;
+
+  @Autowired
+  JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void leaderboardMatchesTheStandings() throws Exception {
+    assertThat(leaderboardService.top(100)).isEqualTo(rankingFromStandings());
+    assertThat(leaderboardService.top(3)).isEqualTo(rankingFromStandings().subList(0, 3));
+  }
+
+  @Test
+  public void changedStandingsAreOnTheLeaderboardRightAway() throws Exception {
+    var before = leaderboardService.top(100);
+
+    // Thunder wins the final of tournament -1 instead of Sophie
+    var root = tournamentService.getTournamentStandingById(-1).tree();
+    var changed = new TournamentStandingsTreeDto(root.branches()[0].thisParticipant(), root.branches());
+    tournamentService.updateStandings(-1, null, new TournamentStandingsDto(-1, null, null, changed));
+
+    var after = leaderboardService.top(100);
+    assertThat(after).isEqualTo(rankingFromStandings());
+    assertThat(pointsOf(after, -4) - pointsOf(before, -4)).isEqualTo(2);
+    assertThat(pointsOf(after, -7) - pointsOf(before, -7)).isEqualTo(-2);
+  }
+
+  @Test
+  public void deletedHorsesLeaveTheLeaderboard() throws Exception {
+    long leader = leaderboardService.top(1).get(0).horseId();
+
+    horseService.delete(leader);
+
+    assertThat(leaderboardService.top(3))
+        .hasSize(3)
+        .isEqualTo(rankingFromStandings().subList(0, 3))
+        .noneMatch(entry -> entry.horseId() == leader);
+  }
+
+  @Test
+  public void horsesWithTheSamePointsShareTheirRank() throws Exception {
+    var entries = leaderboardService.top(100);
+    for (int i = 1; i < entries.size(); i++) {
+      var previous = entries.get(i - 1);
+      var entry = entries.get(i);
+      assertThat(entry.rank()).isEqualTo(entry.points() == previous.points() ? previous.rank() : i + 1);
+    }
+  }
+
+  @Test
+  public void limitMustBePositive() {
+    assertThatThrownBy(() -> leaderboardService.top(0)).isInstanceOf(ValidationException.class);
+  }
+
+  private List<LeaderboardEntryDto> rankingFromStandings() {
+    var rows = jdbcTemplate.query(SQL_RANKING_FROM_STANDINGS,
+        (rs, rowNum) -> new LeaderboardEntryDto(0, rs.getLong("horse_id"), rs.getString("name"), rs.getLong("points")));
+    List<LeaderboardEntryDto> ranking = new ArrayList<>();
+    for (var row : rows) {
+      long rank = !ranking.isEmpty() && ranking.get(ranking.size() - 1).points() == row.points()
+          ? ranking.get(ranking.size() - 1).rank()
+          : ranking.size() + 1;
+      ranking.add(new LeaderboardEntryDto(rank, row.horseId(), row.name(), row.points()));
+    }
+    return ranking;
+  }
+
+  private static long pointsOf(List<LeaderboardEntryDto> entries, long horseId) {
+    return entries.stream().filter(e -> e.horseId() == horseId).mapToLong(LeaderboardEntryDto::points).findFirst().orElse(0);
+  }
+}
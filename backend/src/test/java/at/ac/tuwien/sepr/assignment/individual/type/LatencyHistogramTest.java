@@ -0,0 +1,55 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.assertj.core.data.Percentage;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void smallValuesAreExact() {
+    var histogram = new LatencyHistogram();
+    for (long micros = 0; micros < 32; micros++) {
+      histogram.record(micros);
+    }
+
+    assertThat(histogram.count()).isEqualTo(32);
+    assertThat(histogram.sum()).isEqualTo(31 * 32 / 2);
+    assertThat(histogram.max()).isEqualTo(31);
+    assertThat(histogram.valueAtQuantile(0.5)).isEqualTo(15);
+    assertThat(histogram.valueAtQuantile(1.0)).isEqualTo(31);
+  }
+
+  @Test
+  public void quantilesAreWithinTheBucketPrecision() {
+    var histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 100_000; micros++) {
+      histogram.record(micros);
+    }
+
+    assertThat(histogram.valueAtQuantile(0.5)).isCloseTo(50_000, Percentage.withPercentage(100.0 / 16));
+    assertThat(histogram.valueAtQuantile(0.99)).isCloseTo(99_000, Percentage.withPercentage(100.0 / 16));
+    assertThat(histogram.valueAtQuantile(0.999)).isCloseTo(99_900, Percentage.withPercentage(100.0 / 16));
+    assertThat(histogram.valueAtQuantile(1.0)).isEqualTo(100_000);
+  }
+
+  @Test
+  public void everyValueFallsIntoABucketThatHoldsIt() {
+    for (long value = 0; value < 1 << 20; value += 7) {
+      int index = LatencyHistogram.bucketIndex(value);
+      assertThat(LatencyHistogram.highestValueOf(index)).isGreaterThanOrEqualTo(value);
+      if (index > 0) {
+        assertThat(LatencyHistogram.highestValueOf(index - 1)).isLessThan(value);
+      }
+    }
+  }
+
+  @Test
+  public void emptyHistogramReportsZero() {
+    var histogram = new LatencyHistogram();
+
+    assertThat(histogram.valueAtQuantile(0.99)).isZero();
+    assertThat(histogram.max()).isZero();
+  }
+}
@@ -0,0 +1,93 @@
+package at.ac.tuwien.sepr.assignment.individual.type;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentDetailParticipantDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentStandingsTreeDto;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+public class TournamentBracketTest {
+
+  private static TournamentDetailParticipantDto participant(long entry, Long round) {
+    return new TournamentDetailParticipantDto(-entry, "Horse " + entry, LocalDate.of(2015, 1, 1), entry, round);
+  }
+
+  /**
+   * The finished tournament -1 of the test data: 7 beats 4 in the final, 2 and 6 lose the semi-finals.
+   */
+  private static TournamentDetailParticipantDto[] finishedTournament() {
+    long[] rounds = {1, 2, 1, 3, 1, 2, 4, 1};
+    var participants = new TournamentDetailParticipantDto[8];
+    for (int i = 0; i < 8; i++) {
+      participants[i] = participant(i + 1, rounds[i]);
+    }
+    return participants;
+  }
+
+  @Test
+  public void finishedTournamentFillsEverySlot() {
+    var bracket = TournamentBracket.of(finishedTournament());
+
+    assertThat(bracket.participantAt(0).entryNumber()).isEqualTo(7);
+    assertThat(bracket.participantAt(1).entryNumber()).isEqualTo(4);
+    assertThat(bracket.participantAt(2).entryNumber()).isEqualTo(7);
+    assertThat(bracket.participantAt(3).entryNumber()).isEqualTo(2);
+    assertThat(bracket.participantAt(6).entryNumber()).isEqualTo(7);
+    for (int entry = 1; entry <= 8; entry++) {
+      assertThat(bracket.participantAt(6 + entry).entryNumber()).isEqualTo(entry);
+    }
+  }
+
+  @Test
+  public void treeHasTheWinnerAtTheRootAndTheEntriesAsLeaves() {
+    TournamentStandingsTreeDto root = TournamentBracket.of(finishedTournament()).toTree();
+
+    assertThat(root.thisParticipant().entryNumber()).isEqualTo(7);
+    assertThat(root.branches()).extracting(b -> b.thisParticipant().entryNumber()).containsExactly(4L, 7L);
+    var firstMatch = root.branches()[0].branches()[0];
+    assertThat(firstMatch.thisParticipant().entryNumber()).isEqualTo(2);
+    assertThat(firstMatch.branches()).extracting(b -> b.thisParticipant().entryNumber()).containsExactly(1L, 2L);
+    assertThat(firstMatch.branches()[0].branches()).isNull();
+  }
+
+  @Test
+  public void undecidedMatchesAndMissingEntriesLeaveSlotsEmpty() {
+    var participants = new TournamentDetailParticipantDto[] {
+        participant(1, 2L),
+        participant(2, 1L),
+        participant(3, null),
+        new TournamentDetailParticipantDto(-9L, "Not entered", LocalDate.of(2015, 1, 1), null, null),
+        null
+    };
+    var bracket = TournamentBracket.of(participants);
+
+    assertThat(bracket.participantAt(3).entryNumber()).isEqualTo(1);
+    assertThat(bracket.participantAt(4)).isNull();
+    assertThat(bracket.participantAt(1)).isNull();
+    assertThat(bracket.participantAt(0)).isNull();
+    assertThat(bracket.participantAt(9).entryNumber()).isEqualTo(3);
+    assertThat(bracket.participantAt(10)).isNull();
+  }
+
+  @Test
+  public void treeReadsBackIntoTheSamePlacements() {
+    var bracket = TournamentBracket.fromTree(TournamentBracket.of(finishedTournament()).toTree());
+
+    assertThat(bracket.errors()).isEmpty();
+    assertThat(bracket.placements())
+        .hasSize(8)
+        .containsEntry(-7L, new TournamentBracket.Placement(7, 4))
+        .containsEntry(-4L, new TournamentBracket.Placement(4, 3))
+        .containsEntry(-8L, new TournamentBracket.Placement(8, 1));
+  }
+
+  @Test
+  public void winnerOutsideOfItsMatchIsAnError() {
+    var root = TournamentBracket.of(finishedTournament()).toTree();
+    var changed = new TournamentStandingsTreeDto(participant(1, 1L), root.branches());
+
+    assertThat(TournamentBracket.fromTree(changed).errors())
+        .containsExactly("The winner of match 1 of round 3, horse -1, did not take part in it");
+  }
+}
@@ -0,0 +1,64 @@
+package at.ac.tuwien.sepr.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseDetailDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
+import at.ac.tuwien.sepr.assignment.individual.entity.Horse;
+import at.ac.tuwien.sepr.assignment.individual.mapper.HorseMapper;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapping a horse entity to the DTOs of the search results and of the detail view,
+ * with the breed looked up in a map of the size the search endpoint passes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HorseMapperBenchmark {
+  private final HorseMapper mapper = new HorseMapper();
+  private Horse horse;
+  private Map<Long, BreedDto> breeds;
+
+  @Setup
+  public void setup() {
+    breeds = new HashMap<>();
+    for (long id = 1; id <= 20; id++) {
+      breeds.put(id, new BreedDto(id, "Breed " + id));
+    }
+    horse = new Horse()
+        .setId(42L)
+        .setName("Wendy")
+        .setSex(Sex.FEMALE)
+        .setDateOfBirth(LocalDate.of(2019, 8, 5))
+        .setHeight(1.4f)
+        .setWeight(380)
+        .setBreedId(7L);
+  }
+
+  @Benchmark
+  public HorseListDto entityToListDto() {
+    return mapper.entityToListDto(horse, breeds);
+  }
+
+  @Benchmark
+  public HorseDetailDto entityToDetailDto() {
+    return mapper.entityToDetailDto(horse, breeds);
+  }
+}
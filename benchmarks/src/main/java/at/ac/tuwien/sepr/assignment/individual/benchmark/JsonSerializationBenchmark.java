@@ -0,0 +1,63 @@
+package at.ac.tuwien.sepr.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseListDto;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing a search result, a {@code Stream<HorseListDto>}, as JSON, the way Spring MVC writes a stream returned
+ * by an endpoint: with the modules found on the class path, and dates as ISO strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+  @Param({"32", "1000"})
+  public int horses;
+
+  private final ObjectMapper objectMapper = JsonMapper.builder()
+      .findAndAddModules()
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+  private List<HorseListDto> result;
+
+  @Setup
+  public void setup() {
+    result = new ArrayList<>(horses);
+    for (int i = 0; i < horses; i++) {
+      result.add(new HorseListDto((long) i, "Horse" + i, i % 2 == 0 ? Sex.FEMALE : Sex.MALE,
+          LocalDate.of(2000, 1, 1).plusDays(i), new BreedDto(i % 20, "Breed " + i % 20)));
+    }
+  }
+
+  @Benchmark
+  public int writeStream() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, result.stream());
+    return out.size();
+  }
+}
@@ -0,0 +1,138 @@
+package at.ac.tuwien.sepr.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.BreedJdbcDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.HorseJdbcDao;
+import at.ac.tuwien.sepr.assignment.individual.persistence.impl.TournamentJdbcDao;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * The {@code mapRow} functions of the JDBC DAOs, reading every row of a result of an in-memory H2 database.
+ * The results are read once, into scrollable result sets, so that only the mapping is measured, not the query.
+ * The functions are private to their DAO; they are called through method handles, as the DAOs call them
+ * through method references.
+ * The database holds the test data of the backend, and {@link #horses} more horses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+  private static final String URL =
+      "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:sql/createSchema.sql'\\;RUNSCRIPT FROM 'classpath:sql/insertData.sql'";
+
+  @Param({"1000"})
+  public int horses;
+
+  private SingleConnectionDataSource dataSource;
+  private HorseJdbcDao horseDao;
+  private BreedJdbcDao breedDao;
+  private TournamentJdbcDao tournamentDao;
+  private MethodHandle horseMapRow;
+  private MethodHandle breedMapRow;
+  private MethodHandle tournamentMapRow;
+  private MethodHandle participantMapRow;
+  private ResultSet horseRows;
+  private ResultSet breedRows;
+  private ResultSet tournamentRows;
+  private ResultSet participantRows;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    dataSource = new SingleConnectionDataSource(URL, "sa", "", true);
+    var jdbcTemplate = new JdbcTemplate(dataSource);
+    var jdbcNamed = new NamedParameterJdbcTemplate(jdbcTemplate);
+    jdbcTemplate.update("INSERT INTO horse (name, sex, date_of_birth, height, weight, breed_id)"
+        + " SELECT 'Horse' || x, CASE WHEN MOD(x, 2) = 0 THEN 'FEMALE' ELSE 'MALE' END, DATEADD(DAY, x, DATE '2000-01-01'),"
+        + " 1.5, 450, (SELECT MIN(id) FROM breed) FROM SYSTEM_RANGE(1, ?)", horses);
+    var transactionManager = new DataSourceTransactionManager(dataSource);
+    horseDao = new HorseJdbcDao(jdbcNamed, jdbcTemplate, transactionManager, 1000);
+    breedDao = new BreedJdbcDao(jdbcNamed, transactionManager);
+    tournamentDao = new TournamentJdbcDao(jdbcNamed, jdbcTemplate, transactionManager);
+
+    horseMapRow = mapRow(HorseJdbcDao.class, "mapRow");
+    breedMapRow = mapRow(BreedJdbcDao.class, "mapRow");
+    tournamentMapRow = mapRow(TournamentJdbcDao.class, "mapRow");
+    participantMapRow = mapRow(TournamentJdbcDao.class, "mapRowParticipant");
+
+    var connection = dataSource.getConnection();
+    horseRows = scrollable(connection, "SELECT * FROM horse");
+    breedRows = scrollable(connection, "SELECT * FROM breed");
+    tournamentRows = scrollable(connection, "SELECT * FROM tournament");
+    var participantsQuery = MethodHandles.privateLookupIn(TournamentJdbcDao.class, MethodHandles.lookup())
+        .findStaticVarHandle(TournamentJdbcDao.class, "SQL_SELECT_PARTICIPANTS_BY_TOURNAMENT_ID", String.class)
+        .get();
+    participantRows = scrollable(connection, ((String) participantsQuery).replace("s.tournament_id = ?", "s.tournament_id IS NOT NULL"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+      statement.execute("SHUTDOWN");
+    }
+    dataSource.destroy();
+  }
+
+  private static MethodHandle mapRow(Class<?> dao, String name) throws ReflectiveOperationException {
+    var lookup = MethodHandles.privateLookupIn(dao, MethodHandles.lookup());
+    var method = dao.getDeclaredMethod(name, ResultSet.class, int.class);
+    return lookup.unreflect(method).asType(MethodType.methodType(Object.class, Object.class, ResultSet.class, int.class));
+  }
+
+  private static ResultSet scrollable(Connection connection, String sql) throws SQLException {
+    return connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY).executeQuery(sql);
+  }
+
+  private static void mapAll(Object dao, MethodHandle mapRow, ResultSet rows, Blackhole blackhole) throws Throwable {
+    rows.beforeFirst();
+    int rowNum = 0;
+    while (rows.next()) {
+      blackhole.consume((Object) mapRow.invokeExact(dao, rows, rowNum++));
+    }
+  }
+
+  @Benchmark
+  public void horse(Blackhole blackhole) throws Throwable {
+    mapAll(horseDao, horseMapRow, horseRows, blackhole);
+  }
+
+  @Benchmark
+  public void breed(Blackhole blackhole) throws Throwable {
+    mapAll(breedDao, breedMapRow, breedRows, blackhole);
+  }
+
+  @Benchmark
+  public void tournament(Blackhole blackhole) throws Throwable {
+    mapAll(tournamentDao, tournamentMapRow, tournamentRows, blackhole);
+  }
+
+  @Benchmark
+  public void tournamentParticipant(Blackhole blackhole) throws Throwable {
+    mapAll(tournamentDao, participantMapRow, participantRows, blackhole);
+  }
+}
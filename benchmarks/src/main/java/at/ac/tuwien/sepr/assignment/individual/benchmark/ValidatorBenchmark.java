@@ -0,0 +1,124 @@
+package at.ac.tuwien.sepr.assignment.individual.benchmark;
+
+import at.ac.tuwien.sepr.assignment.individual.dto.BreedDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.FieldErrorDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.HorseSelectionDto;
+import at.ac.tuwien.sepr.assignment.individual.dto.TournamentCreateDto;
+import at.ac.tuwien.sepr.assignment.individual.exception.ValidationException;
+import at.ac.tuwien.sepr.assignment.individual.service.HorseValidator;
+import at.ac.tuwien.sepr.assignment.individual.service.TournamentValidator;
+import at.ac.tuwien.sepr.assignment.individual.type.Sex;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validation of the horses and tournaments to create.
+ * {@code HorseValidator} used to check the name with {@code String.matches}, which compiles the pattern on every call;
+ * {@link #nameCheckStringMatches()} and {@link #nameCheckPrecompiledPattern()} show that part on its own.
+ * {@link #horseCreateErrorsOfBatch(Batch)} checks as many horses as a chunk of the bulk import,
+ * in parallel or, with the threshold beyond the size of the batch, one after the other.
+ * {@code TournamentValidator.allHorseIdsExist} is private, it is measured as part of {@code validateCreate}
+ * of a tournament, whose eight participants all exist.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+  private static final Pattern LETTERS = Pattern.compile("[a-zA-Z]+");
+  private static final int BATCH_SIZE = 5000;
+
+  private final HorseValidator horseValidator = new HorseValidator(Integer.MAX_VALUE);
+  private final TournamentValidator tournamentValidator = new TournamentValidator();
+  private HorseCreateDto validHorse;
+  private List<HorseCreateDto> invalidHorse;
+  private TournamentCreateDto tournament;
+  private Set<Long> existingHorseIds;
+
+  @Setup
+  public void setup() {
+    validHorse = new HorseCreateDto("Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380, new BreedDto(7, "Arabian"));
+    invalidHorse = List.of(new HorseCreateDto("W3ndy", null, LocalDate.now().plusDays(1), 4f, 10, new BreedDto(0, null)));
+    var participants = new HorseSelectionDto[8];
+    existingHorseIds = new HashSet<>();
+    for (int i = 0; i < participants.length; i++) {
+      participants[i] = new HorseSelectionDto(-(i + 1), "Horse", LocalDate.of(2015, 1, 1));
+      existingHorseIds.add((long) -(i + 1));
+    }
+    tournament = new TournamentCreateDto("Springcup", LocalDate.of(2024, 4, 1), LocalDate.of(2024, 4, 3), participants);
+  }
+
+  @Benchmark
+  public HorseCreateDto horseValidateCreate() throws ValidationException {
+    horseValidator.validateCreate(validHorse);
+    return validHorse;
+  }
+
+  @Benchmark
+  public List<List<FieldErrorDto>> horseCreateErrorsOfInvalidHorse() {
+    return horseValidator.createErrors(invalidHorse);
+  }
+
+  @Benchmark
+  public List<List<FieldErrorDto>> horseCreateErrorsOfBatch(Batch batch) {
+    return batch.validator.createErrors(batch.horses);
+  }
+
+  @Benchmark
+  public boolean nameCheckStringMatches() {
+    return validHorse.name().matches("[a-zA-Z]+");
+  }
+
+  @Benchmark
+  public boolean nameCheckPrecompiledPattern() {
+    return LETTERS.matcher(validHorse.name()).matches();
+  }
+
+  @Benchmark
+  public TournamentCreateDto tournamentValidateCreate() throws ValidationException {
+    tournamentValidator.validateCreate(tournament, existingHorseIds);
+    return tournament;
+  }
+
+  /**
+   * A chunk of the bulk import, every tenth horse of it invalid.
+   */
+  @State(Scope.Benchmark)
+  public static class Batch {
+    @Param({"2048", "2147483647"})
+    public int parallelThreshold;
+
+    private HorseValidator validator;
+    private List<HorseCreateDto> horses;
+
+    @Setup
+    public void setup() {
+      validator = new HorseValidator(parallelThreshold);
+      var valid = new HorseCreateDto("Wendy", Sex.FEMALE, LocalDate.of(2019, 8, 5), 1.4f, 380, new BreedDto(7, "Arabian"));
+      var invalid = new HorseCreateDto("W3ndy", null, LocalDate.now().plusDays(1), 4f, 10, new BreedDto(0, null));
+      horses = new ArrayList<>(BATCH_SIZE);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        horses.add(i % 10 == 0 ? invalid : valid);
+      }
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package at.ac.tuwien.sepr.assignment.individual.loadtest;
+
+import at.ac.tuwien.sepr.assignment.individual.type.LatencyHistogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The outcome of the requests to one endpoint during one stage of the load test.
+ * The latency of a request is counted from the moment it was due to be sent, not from when it actually was:
+ * a request, that waited for the client, waited as long for the user.
+ */
+final class EndpointStatistics {
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * Record an answered request.
+   *
+   * @param micros the time from the request being due to its response
+   * @param status the HTTP status of the response; anything but 2xx and 304 is an error
+   */
+  void record(long micros, int status) {
+    latencies.record(micros);
+    if (status / 100 != 2 && status != 304) {
+      errors.increment();
+    }
+  }
+
+  /**
+   * Record a request, that failed without a response, e.g. on a timeout.
+   *
+   * @param micros the time from the request being due to its failure
+   */
+  void recordFailure(long micros) {
+    latencies.record(micros);
+    errors.increment();
+  }
+
+  /**
+   * Record a request, that was not sent, because too many were waiting for a response.
+   */
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  /**
+   * Summarize the statistics.
+   *
+   * @param endpoint the method and route template, or a name for the statistics of several endpoints
+   * @param seconds the length of the stage
+   * @return the summary
+   */
+  LoadTestResult.Endpoint summary(String endpoint, double seconds) {
+    long count = latencies.count();
+    long failed = errors.sum() + dropped.sum();
+    long sent = count + dropped.sum();
+    return new LoadTestResult.Endpoint(
+        endpoint,
+        sent,
+        (count - errors.sum()) / seconds,
+        sent == 0 ? 0 : (double) failed / sent,
+        dropped.sum(),
+        millis(latencies.valueAtQuantile(0.5)),
+        millis(latencies.valueAtQuantile(0.9)),
+        millis(latencies.valueAtQuantile(0.99)),
+        millis(latencies.max()));
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
@@ -0,0 +1,155 @@
+package at.ac.tuwien.sepr.assignment.individual.loadtest;
+
+import at.ac.tuwien.sepr.assignment.individual.SeprIndividualAssignmentApplication;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+/**
+ * Finds the request rate a single instance of the backend sustains.
+ * Boots the backend in this JVM on a random port, against an in-memory database filled by the profile {@code datagen},
+ * and sends it an open workload at each of the given rates in turn, see {@link OpenWorkload}.
+ * Prints the throughput, the latency percentiles and the error rate of each endpoint per rate,
+ * and writes them to a JSON file. Needs no network beyond the loopback interface.
+ *
+ * <p>Run with {@code java -cp target/benchmarks.jar at.ac.tuwien.sepr.assignment.individual.loadtest.LoadTest},
+ * followed by any of the options in {@link #DEFAULTS}, e.g. {@code --rates=100,200,400 --duration=1m}.
+ */
+public final class LoadTest {
+
+  /**
+   * The options and their defaults.
+   */
+  static final Map<String, String> DEFAULTS = defaults();
+
+  private LoadTest() {
+  }
+
+  private static Map<String, String> defaults() {
+    Map<String, String> defaults = new LinkedHashMap<>();
+    // the generated data set
+    defaults.put("horses", "100000");
+    defaults.put("tournaments", "10000");
+    // the requests per second of the stages, each run for the duration, after a warmup at the first rate
+    defaults.put("rates", "50,100,200,400,800");
+    defaults.put("warmup", "10s");
+    defaults.put("duration", "30s");
+    // the weight of each operation in the workload
+    defaults.put("mix", "search=40,horse=40,standings=15,create_tournament=5");
+    // a stage is sustained, if the 99th percentile of the latency and the share of failed requests stay within these
+    defaults.put("p99-limit", "100ms");
+    defaults.put("error-limit", "0.01");
+    // requests beyond this many waiting for a response are dropped, and count as failed
+    defaults.put("max-in-flight", "1000");
+    defaults.put("seed", "1");
+    defaults.put("out", "loadtest-result.json");
+    return defaults;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parse(args);
+    long horses = Long.parseLong(options.get("horses"));
+    long tournaments = Long.parseLong(options.get("tournaments"));
+    List<Double> rates = Arrays.stream(options.get("rates").split(",")).map(String::trim).map(Double::valueOf).toList();
+    Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+    Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+    Map<Operation, Integer> mix = parseMix(options.get("mix"));
+    var limits = new OpenWorkload.Limits(DurationStyle.detectAndParse(options.get("p99-limit")).toNanos() / 1e6,
+        Double.parseDouble(options.get("error-limit")));
+
+    try (var context = new SpringApplicationBuilder(SeprIndividualAssignmentApplication.class).run(
+        "--server.port=0",
+        "--spring.profiles.active=datagen",
+        "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:sql/createSchema.sql'",
+        "--spring.h2.console.enabled=false",
+        "--spring.main.banner-mode=off",
+        // the backend logs as it does when deployed, but only to a file: the console is left to the report;
+        // named explicitly, as the logback.xml of JMH in this jar would take precedence over the one of the backend
+        "--logging.config=classpath:logback-spring.xml",
+        "--logging.threshold.console=OFF",
+        "--logging.file.name=loadtest.log",
+        "--app.datagen.horses=" + horses,
+        "--app.datagen.tournaments=" + tournaments,
+        "--app.datagen.threads=" + Runtime.getRuntime().availableProcessors())) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+      var workload = new OpenWorkload(client, URI.create("http://localhost:" + port), new Operation.DataSet(horses, tournaments),
+          mix, Integer.parseInt(options.get("max-in-flight")), Long.parseLong(options.get("seed")));
+
+      System.out.printf("Warming up at %.0f requests/s for %s%n", rates.get(0), warmup);
+      workload.run(rates.get(0), warmup, limits);
+      List<LoadTestResult.Stage> stages = new ArrayList<>();
+      for (double rate : rates) {
+        var stage = workload.run(rate, duration, limits);
+        print(stage);
+        stages.add(stage);
+      }
+
+      double sustainedRate = stages.stream()
+          .filter(LoadTestResult.Stage::sustained)
+          .mapToDouble(LoadTestResult.Stage::offeredRate)
+          .max()
+          .orElse(0);
+      System.out.printf("Sustained %.0f requests/s with a p99 of at most %s and at most %.1f %% errors%n",
+          sustainedRate, options.get("p99-limit"), limits.errorRate() * 100);
+      write(Path.of(options.get("out")),
+          new LoadTestResult(horses, tournaments, limits.p99Millis(), limits.errorRate(), sustainedRate, stages));
+    }
+  }
+
+  private static Map<String, String> parse(String[] args) {
+    Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+    for (String arg : args) {
+      int equals = arg.indexOf('=');
+      String key = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+      if (key == null || !DEFAULTS.containsKey(key)) {
+        throw new IllegalArgumentException("Unknown option " + arg + ", the options and their defaults are " + DEFAULTS);
+      }
+      options.put(key, arg.substring(equals + 1));
+    }
+    return options;
+  }
+
+  private static Map<Operation, Integer> parseMix(String mix) {
+    Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    for (String part : mix.split(",")) {
+      String[] weight = part.trim().split("=");
+      weights.put(Operation.valueOf(weight[0].toUpperCase(Locale.ROOT)), Integer.valueOf(weight[1]));
+    }
+    return weights;
+  }
+
+  private static void print(LoadTestResult.Stage stage) {
+    System.out.printf("%n%.0f requests/s offered, %.1f/s answered, p99 %.1f ms, %.2f %% errors%s%n",
+        stage.offeredRate(), stage.achievedRate(), stage.p99(), stage.errorRate() * 100,
+        stage.sustained() ? "" : ", NOT SUSTAINED");
+    System.out.printf("%-32s %9s %9s %9s %9s %9s %9s %8s%n", "endpoint", "requests", "ok/s", "p50 ms", "p90 ms", "p99 ms",
+        "max ms", "errors");
+    for (LoadTestResult.Endpoint endpoint : stage.endpoints()) {
+      System.out.printf("%-32s %9d %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f%%%n", endpoint.endpoint(), endpoint.requests(),
+          endpoint.throughput(), endpoint.p50(), endpoint.p90(), endpoint.p99(), endpoint.max(), endpoint.errorRate() * 100);
+    }
+  }
+
+  private static void write(Path file, LoadTestResult result) throws IOException {
+    JsonMapper.builder()
+        .enable(SerializationFeature.INDENT_OUTPUT)
+        .build()
+        .writeValue(file.toFile(), result);
+    System.out.println("Wrote " + file.toAbsolutePath());
+  }
+}
@@ -0,0 +1,69 @@
+package at.ac.tuwien.sepr.assignment.individual.loadtest;
+
+import java.util.List;
+
+/**
+ * The result of a load test, written as JSON to compare the results of two releases.
+ *
+ * @param horses the number of generated horses
+ * @param tournaments the number of generated tournaments
+ * @param p99Limit the 99th percentile of the latency, in milliseconds, a stage may reach to count as sustained
+ * @param errorLimit the share of failed requests a stage may have to count as sustained
+ * @param sustainedRate the highest offered rate of a sustained stage, requests per second; 0 if there is none
+ * @param stages the stages, in the order they ran
+ */
+public record LoadTestResult(
+    long horses,
+    long tournaments,
+    double p99Limit,
+    double errorLimit,
+    double sustainedRate,
+    List<Stage> stages
+) {
+
+  /**
+   * One stage of the load test, requests arriving at a constant rate.
+   *
+   * @param offeredRate the requests sent per second
+   * @param achievedRate the successful responses per second
+   * @param errorRate the share of failed requests, including the ones not sent
+   * @param p99 the 99th percentile of the latency over all endpoints, in milliseconds
+   * @param sustained whether the latency and the errors stayed within the limits
+   * @param endpoints the statistics of each endpoint
+   */
+  public record Stage(
+      double offeredRate,
+      double achievedRate,
+      double errorRate,
+      double p99,
+      boolean sustained,
+      List<Endpoint> endpoints
+  ) {
+  }
+
+  /**
+   * The statistics of one endpoint during a stage.
+   *
+   * @param endpoint the method and route template
+   * @param requests the requests due to be sent
+   * @param throughput the successful responses per second
+   * @param errorRate the share of failed requests, including the ones not sent
+   * @param dropped the requests not sent, because too many were waiting for a response
+   * @param p50 the median of the latency, in milliseconds
+   * @param p90 the 90th percentile of the latency, in milliseconds
+   * @param p99 the 99th percentile of the latency, in milliseconds
+   * @param max the longest latency, in milliseconds
+   */
+  public record Endpoint(
+      String endpoint,
+      long requests,
+      double throughput,
+      double errorRate,
+      long dropped,
+      double p50,
+      double p90,
+      double p99,
+      double max
+  ) {
+  }
+}
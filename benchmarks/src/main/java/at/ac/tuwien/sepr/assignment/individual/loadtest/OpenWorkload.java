@@ -0,0 +1,138 @@
+package at.ac.tuwien.sepr.assignment.individual.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a given rate, whether or not the earlier ones have been answered, as independent users would:
+ * an open workload. The gaps between the requests are exponentially distributed, so that they arrive like calls
+ * at a call center, bunched up at times. A closed workload, a fixed number of users each waiting for its response,
+ * slows down with the backend and hides the queueing delays an overloaded backend causes.
+ */
+final class OpenWorkload {
+  private final HttpClient client;
+  private final URI base;
+  private final Operation.DataSet data;
+  private final Map<Operation, Integer> mix;
+  private final int totalWeight;
+  private final int maxInFlight;
+  private final SplittableRandom random;
+
+  /**
+   * Prepare the workload.
+   *
+   * @param client the client sending the requests
+   * @param base the URI of the backend
+   * @param data the size of the generated data set
+   * @param mix the weight of each operation; an operation with weight 4 is sent four times as often as one with weight 1
+   * @param maxInFlight the requests waiting for a response at most; beyond that, requests are dropped and count as errors
+   * @param seed the seed of the operations and their parameters
+   */
+  OpenWorkload(HttpClient client, URI base, Operation.DataSet data, Map<Operation, Integer> mix, int maxInFlight, long seed) {
+    this.client = client;
+    this.base = base;
+    this.data = data;
+    this.mix = new EnumMap<>(mix);
+    this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+    this.maxInFlight = maxInFlight;
+    this.random = new SplittableRandom(seed);
+    if (totalWeight <= 0) {
+      throw new IllegalArgumentException("The workload mix " + mix + " has no operation with a positive weight");
+    }
+  }
+
+  /**
+   * Send requests at the given rate for the given time, and wait for the answers.
+   *
+   * @param rate the requests per second
+   * @param duration the time to send requests for
+   * @param limits the latency and error limits of a sustained stage
+   * @return the statistics of the stage
+   * @throws InterruptedException if interrupted while waiting for a request to be due or answered
+   */
+  LoadTestResult.Stage run(double rate, Duration duration, Limits limits) throws InterruptedException {
+    Map<Operation, EndpointStatistics> statistics = new EnumMap<>(Operation.class);
+    mix.keySet().forEach(operation -> statistics.put(operation, new EndpointStatistics()));
+    EndpointStatistics total = new EndpointStatistics();
+    Semaphore inFlight = new Semaphore(maxInFlight);
+
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    long due = start;
+    while (due < end) {
+      long wait = due - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        continue;
+      }
+      Operation operation = next();
+      EndpointStatistics endpoint = statistics.get(operation);
+      if (inFlight.tryAcquire()) {
+        send(operation.request(base, random, data), due, endpoint, total, inFlight);
+      } else {
+        endpoint.recordDropped();
+        total.recordDropped();
+      }
+      due += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+    }
+    if (!inFlight.tryAcquire(maxInFlight, Operation.TIMEOUT.toSeconds() + 1, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Requests of the stage at %.0f/s are still unanswered after their timeout".formatted(rate));
+    }
+
+    double seconds = duration.toNanos() / 1e9;
+    List<LoadTestResult.Endpoint> endpoints = new ArrayList<>();
+    statistics.forEach((operation, endpoint) -> endpoints.add(endpoint.summary(operation.endpoint(), seconds)));
+    LoadTestResult.Endpoint all = total.summary("all", seconds);
+    // a backend falling behind shows in the latency, as it is counted from when a request was due
+    boolean sustained = all.p99() <= limits.p99Millis() && all.errorRate() <= limits.errorRate();
+    return new LoadTestResult.Stage(rate, all.throughput(), all.errorRate(), all.p99(), sustained, endpoints);
+  }
+
+  /**
+   * The limits of a sustained stage.
+   *
+   * @param p99Millis the 99th percentile of the latency, in milliseconds
+   * @param errorRate the share of failed requests
+   */
+  record Limits(double p99Millis, double errorRate) {
+  }
+
+  private void send(HttpRequest request, long due, EndpointStatistics endpoint, EndpointStatistics total, Semaphore inFlight) {
+    client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+      long micros = (System.nanoTime() - due) / 1000;
+      if (response != null) {
+        endpoint.record(micros, response.statusCode());
+        total.record(micros, response.statusCode());
+      } else {
+        endpoint.recordFailure(micros);
+        total.recordFailure(micros);
+      }
+      inFlight.release();
+    });
+  }
+
+  private Operation next() {
+    int pick = random.nextInt(totalWeight);
+    for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+      pick -= entry.getValue();
+      if (pick < 0) {
+        return entry.getKey();
+      }
+    }
+    throw new IllegalStateException("No operation for the weight of the mix " + mix);
+  }
+}
@@ -0,0 +1,93 @@
+package at.ac.tuwien.sepr.assignment.individual.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * The requests of the workload, each against one endpoint of the backend.
+ * Horses and tournaments are picked at random from the IDs of the generated data set, {@code 1} to its size.
+ */
+public enum Operation {
+  SEARCH("GET /horses") {
+    @Override
+    HttpRequest request(URI base, SplittableRandom random, DataSet data) {
+      String name = NAME_PREFIXES[random.nextInt(NAME_PREFIXES.length)];
+      return get(base.resolve("/horses?limit=20&name=" + name));
+    }
+  },
+  HORSE("GET /horses/{id}") {
+    @Override
+    HttpRequest request(URI base, SplittableRandom random, DataSet data) {
+      return get(base.resolve("/horses/" + (1 + random.nextLong(data.horses()))));
+    }
+  },
+  STANDINGS("GET /tournaments/{id}/standings") {
+    @Override
+    HttpRequest request(URI base, SplittableRandom random, DataSet data) {
+      return get(base.resolve("/tournaments/" + (1 + random.nextLong(data.tournaments())) + "/standings"));
+    }
+  },
+  CREATE_TOURNAMENT("POST /tournaments") {
+    @Override
+    HttpRequest request(URI base, SplittableRandom random, DataSet data) {
+      String participants = LongStream.generate(() -> 1 + random.nextLong(data.horses()))
+          .distinct()
+          .limit(8)
+          .mapToObj(id -> "{\"id\":" + id + "}")
+          .collect(Collectors.joining(","));
+      String body = "{\"name\":\"Loadtest\",\"startDate\":\"2024-05-01\",\"endDate\":\"2024-05-03\","
+          + "\"participants\":[" + participants + "]}";
+      return HttpRequest.newBuilder(base.resolve("/tournaments"))
+          .timeout(TIMEOUT)
+          .header("Content-Type", "application/json")
+          .header("Accept", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofString(body))
+          .build();
+    }
+  };
+
+  /**
+   * Requests still unanswered after this long count as errors.
+   */
+  static final Duration TIMEOUT = Duration.ofSeconds(30);
+  /**
+   * Beginnings of the names of the generated horses, common ones and rare ones.
+   */
+  private static final String[] NAME_PREFIXES = {"Bel", "Lu", "Star", "Max", "ella", "Spi", "Zor", "Mis", "Hug", "x"};
+
+  /**
+   * The size of the generated data set the requests refer to.
+   *
+   * @param horses the number of generated horses
+   * @param tournaments the number of generated tournaments
+   */
+  public record DataSet(long horses, long tournaments) {
+  }
+
+  private final String endpoint;
+
+  Operation(String endpoint) {
+    this.endpoint = endpoint;
+  }
+
+  /**
+   * The method and route template of the endpoint, as reported.
+   */
+  public String endpoint() {
+    return endpoint;
+  }
+
+  abstract HttpRequest request(URI base, SplittableRandom random, DataSet data);
+
+  private static HttpRequest get(URI uri) {
+    return HttpRequest.newBuilder(uri)
+        .timeout(TIMEOUT)
+        .header("Accept", "application/json")
+        .GET()
+        .build();
+  }
+}
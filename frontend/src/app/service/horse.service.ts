@@ -5,6 +5,7 @@ import {environment} from 'src/environments/environment';
 import {Horse, HorseListDto} from '../dto/horse';
 import {HorseSearch} from '../dto/horse';
 import {formatIsoDate} from '../util/date-helper';
+import {getAllPages} from '../util/paging';
 
 const baseUri = environment.backendUrl + '/horses';
 
@@ -41,10 +42,14 @@ export class HorseService {
     if (searchParams.breedName) {
       params = params.append('breed', searchParams.breedName);
     }
+    let horses: Observable<HorseListDto[]>;
     if (searchParams.limit) {
       params = params.append('limit', searchParams.limit);
+      horses = this.http.get<HorseListDto[]>(baseUri, { params });
+    } else {
+      horses = getAllPages<HorseListDto>(this.http, baseUri, params);
     }
-    return this.http.get<HorseListDto[]>(baseUri, { params })
+    return horses
       .pipe(tap(horses => horses.map(h => {
         h.dateOfBirth = new Date(h.dateOfBirth); // Parse date string
       })));
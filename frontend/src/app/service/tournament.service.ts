@@ -3,6 +3,7 @@ import {HttpClient, HttpParams} from '@angular/common/http';
 import {environment} from '../../environments/environment';
 import {map, Observable, tap, throwError} from 'rxjs';
 import {formatIsoDate} from '../util/date-helper';
+import {getAllPages} from '../util/paging';
 import {
   TournamentCreateDto, TournamentDetailDto, TournamentDetailParticipantDto,
   TournamentListDto,
@@ -37,7 +38,7 @@ export class TournamentService {
       params = params.append('endDate', formatIsoDate(searchParams.endDate));
     }
 
-    return this.http.get<TournamentListDto[]>(baseUri, { params })
+    return getAllPages<TournamentListDto>(this.http, baseUri, params)
       .pipe(tap(tournaments => tournaments.map(t => {
         t.endDate = new Date (t.endDate);
         t.startDate = new Date (t.startDate);
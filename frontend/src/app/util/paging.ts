@@ -0,0 +1,21 @@
+import {HttpClient, HttpParams} from "@angular/common/http";
+import {EMPTY, expand, map, Observable, reduce} from "rxjs";
+
+const NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
+/**
+ * Gets every page of a search, by following the cursor in the header X-Next-Cursor.
+ * The backend returns one page at a time, if no limit is given.
+ */
+export function getAllPages<T>(http: HttpClient, uri: string, params: HttpParams): Observable<T[]> {
+  const page = (cursor: string | null) =>
+    http.get<T[]>(uri, {params: cursor ? params.set('cursor', cursor) : params, observe: 'response'});
+  return page(null).pipe(
+    expand(response => {
+      const cursor = response.headers.get(NEXT_CURSOR_HEADER);
+      return cursor ? page(cursor) : EMPTY;
+    }),
+    map(response => response.body ?? []),
+    reduce((all: T[], items: T[]) => all.concat(items), []),
+  );
+}